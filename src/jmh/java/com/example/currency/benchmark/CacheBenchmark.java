@@ -0,0 +1,77 @@
+package com.example.currency.benchmark;
+
+import com.example.currency.cache.CacheRegion;
+import com.example.currency.cache.CurrencyCache;
+import com.example.currency.cache.RateKey;
+import com.example.currency.dto.RateView;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Daily rate cache under single-threaded and contended access, with a mix of
+ * reads and writes over a configurable number of hot currencies.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheBenchmark {
+    @Param({"32", "4096"})
+    public int currencies;
+
+    @Param({"0.9"})
+    public double readRatio;
+
+    private CacheRegion<RateKey, RateView> dailyRates;
+    private RateKey[] keys;
+    private RateView rate;
+
+    @Setup
+    public void setUp() {
+        CurrencyCache cache = new CurrencyCache(1000, Duration.ofHours(12), 10_000, Duration.ofHours(1), 100_000);
+        dailyRates = cache.dailyRates();
+        LocalDate today = LocalDate.now();
+        keys = new RateKey[currencies];
+        rate = new RateView(1L, 431, "USD", new BigDecimal("3.2741"), 1, today);
+        for (int i = 0; i < currencies; i++) {
+            keys[i] = new RateKey(i, today);
+            dailyRates.put(keys[i], rate);
+        }
+    }
+
+    @Benchmark
+    public Optional<RateView> readWrite() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        RateKey key = keys[random.nextInt(keys.length)];
+        if (random.nextDouble() < readRatio) {
+            return dailyRates.get(key);
+        }
+        dailyRates.put(key, rate);
+        return Optional.empty();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Optional<RateView> readWriteContended() {
+        return readWrite();
+    }
+}
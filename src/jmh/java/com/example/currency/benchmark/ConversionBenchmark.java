@@ -0,0 +1,78 @@
+package com.example.currency.benchmark;
+
+import com.example.currency.conversion.RateMatrix;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion hot path: the original per-call BigDecimal formula against a
+ * lookup in the daily RateMatrix followed by fixed-point conversion.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConversionBenchmark {
+    private static final int USD = 431;
+    private static final int RUB = 456;
+
+    @Param({"1", "125.50", "98765.4321"})
+    public String amount;
+
+    private BigDecimal amountValue;
+    private BigDecimal usdRate;
+    private BigDecimal rubRate;
+    private RateMatrix matrix;
+
+    @Setup
+    public void setUp() {
+        amountValue = new BigDecimal(amount);
+        usdRate = new BigDecimal("3.2741");
+        rubRate = new BigDecimal("3.5537");
+        matrix = RateMatrix.builder(LocalDate.now())
+                .put(USD, RateMatrix.perUnitRate(usdRate, 1))
+                .put(RUB, RateMatrix.perUnitRate(rubRate, 100))
+                .build();
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalFormula() {
+        BigDecimal fromRatePerUnit = usdRate.divide(BigDecimal.valueOf(1), 6, RoundingMode.HALF_UP);
+        BigDecimal toRatePerUnit = rubRate.divide(BigDecimal.valueOf(100), 6, RoundingMode.HALF_UP);
+        return amountValue.multiply(fromRatePerUnit).divide(toRatePerUnit, 2, RoundingMode.HALF_UP);
+    }
+
+    @Benchmark
+    public BigDecimal rateMatrix() {
+        return RateMatrix.convert(amountValue, matrix.perUnitRate(USD), matrix.perUnitRate(RUB));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public BigDecimal bigDecimalFormulaContended() {
+        return bigDecimalFormula();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public BigDecimal rateMatrixContended() {
+        return rateMatrix();
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.currency.benchmark;
+
+import com.example.currency.dto.CurrencyView;
+import com.example.currency.dto.RateView;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encoding cost of the rate and currency list payloads in each negotiated
+ * format, with and without the gzip response compression applied on top.
+ * The encoded and gzipped sizes are printed once per trial, since JMH
+ * itself only reports time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncodingBenchmark {
+    @Param({"json", "cbor", "smile"})
+    public String format;
+
+    @Param({"30", "3000"})
+    public int size;
+
+    private ObjectMapper objectMapper;
+    private List<CurrencyView> currencies;
+    private List<RateView> rates;
+
+    @Setup
+    public void setUp() throws IOException {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+        objectMapper = switch (format) {
+            case "cbor" -> builder.factory(new CBORFactory()).build();
+            case "smile" -> builder.factory(new SmileFactory()).build();
+            default -> builder.build();
+        };
+        currencies = new ArrayList<>(size);
+        rates = new ArrayList<>(size);
+        LocalDate date = LocalDate.of(2024, 3, 1);
+        for (int i = 0; i < size; i++) {
+            currencies.add(new CurrencyView(i, String.valueOf(840 + i), "C" + i, "Currency " + i, 1));
+            rates.add(new RateView((long) i, i % 30, "C" + i % 30,
+                    new BigDecimal("3.2741").add(BigDecimal.valueOf(i, 4)), i % 3 == 0 ? 100 : 1,
+                    date.minusDays(i / 30)));
+        }
+        System.out.printf("%n%s, %d items: currencies %d bytes (%d gzipped), rates %d bytes (%d gzipped)%n",
+                format, size,
+                objectMapper.writeValueAsBytes(currencies).length, gzip(objectMapper.writeValueAsBytes(currencies)).length,
+                objectMapper.writeValueAsBytes(rates).length, gzip(objectMapper.writeValueAsBytes(rates)).length);
+    }
+
+    @Benchmark
+    public byte[] currencies() throws Exception {
+        return objectMapper.writeValueAsBytes(currencies);
+    }
+
+    @Benchmark
+    public byte[] rates() throws Exception {
+        return objectMapper.writeValueAsBytes(rates);
+    }
+
+    @Benchmark
+    public byte[] ratesGzipped() throws Exception {
+        return gzip(objectMapper.writeValueAsBytes(rates));
+    }
+
+    private static byte[] gzip(byte[] payload) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(payload.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(payload);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.currency.benchmark;
+
+import com.example.currency.repository.CurrencyRateBatchRepository;
+import com.example.currency.repository.RateRow;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bulk import of rate history: one auto-committed INSERT per row (what saving
+ * an IDENTITY entity per call does) against the chunked JDBC batch upsert used
+ * by the import service. The default in-process H2 database has no network
+ * round trip, which is what batching saves; pass
+ * {@code -p jdbcUrl=jdbc:mysql://...?rewriteBatchedStatements=true -p user=... -p password=...}
+ * to measure against MySQL.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImportBenchmark {
+    private static final String INSERT_SQL =
+            "INSERT INTO currency_rate (currency_id, date, cur_official_rate, cur_scale) VALUES (?, ?, ?, ?)";
+
+    @Param({"10000"})
+    public int rows;
+
+    @Param({"500"})
+    public int batchSize;
+
+    @Param({"jdbc:h2:mem:import;MODE=MySQL;DB_CLOSE_DELAY=-1"})
+    public String jdbcUrl;
+
+    @Param({"sa"})
+    public String user;
+
+    @Param({""})
+    public String password;
+
+    private JdbcTemplate jdbcTemplate;
+    private CurrencyRateBatchRepository batchRepository;
+    private List<RateRow> history;
+
+    @Setup
+    public void setUp() {
+        jdbcTemplate = new JdbcTemplate(new SingleConnectionDataSource(jdbcUrl, user, password, true));
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS currency_rate (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "currency_id INT, date DATE, cur_official_rate DECIMAL(19, 4), cur_scale INT, "
+                + "CONSTRAINT uk_currency_rate_currency_date UNIQUE (currency_id, date))");
+        batchRepository = new CurrencyRateBatchRepository(jdbcTemplate, batchSize);
+        history = new ArrayList<>(rows);
+        LocalDate start = LocalDate.of(2014, 1, 1);
+        for (int i = 0; i < rows; i++) {
+            history.add(new RateRow(400 + i % 30, start.plusDays(i / 30), new BigDecimal("3.2741"), 1));
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void truncate() {
+        jdbcTemplate.execute("TRUNCATE TABLE currency_rate");
+    }
+
+    @Benchmark
+    public int singleRowInserts() {
+        for (RateRow row : history) {
+            jdbcTemplate.update(INSERT_SQL, row.currencyId(), Date.valueOf(row.date()), row.officialRate(), row.scale());
+        }
+        return history.size();
+    }
+
+    @Benchmark
+    public int batchedUpsert() {
+        return batchRepository.upsert(history);
+    }
+}
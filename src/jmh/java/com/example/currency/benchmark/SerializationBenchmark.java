@@ -0,0 +1,105 @@
+package com.example.currency.benchmark;
+
+import com.example.currency.dto.ConversionResult;
+import com.example.currency.dto.CurrencyView;
+import com.example.currency.dto.RateView;
+import com.example.currency.models.CurrencyInfo;
+import com.example.currency.models.CurrencyRate;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON encoding of the list payloads returned by the rate and currency
+ * endpoints, using an ObjectMapper configured like Spring MVC's.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+    @Param({"30", "3000"})
+    public int size;
+
+    private ObjectMapper objectMapper;
+    private List<CurrencyInfo> currencies;
+    private List<CurrencyRate> rates;
+    private List<CurrencyView> currencyViews;
+    private List<RateView> rateViews;
+    private List<ConversionResult> conversions;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        currencies = new ArrayList<>(size);
+        rates = new ArrayList<>(size);
+        currencyViews = new ArrayList<>(size);
+        rateViews = new ArrayList<>(size);
+        conversions = new ArrayList<>(size);
+        LocalDate date = LocalDate.of(2024, 3, 1);
+        for (int i = 0; i < size; i++) {
+            CurrencyInfo currency = new CurrencyInfo();
+            currency.setId(i);
+            currency.setCode(String.valueOf(840 + i));
+            currency.setAbbreviation("C" + i);
+            currency.setName("Currency " + i);
+            currency.setScale(1);
+            currencies.add(currency);
+
+            CurrencyRate rate = new CurrencyRate();
+            rate.setId((long) i);
+            rate.setOfficialRate(new BigDecimal("3.2741"));
+            rate.setScale(1);
+            rate.setDate(date.minusDays(i % 365));
+            rate.setCurrency(currency);
+            rates.add(rate);
+            currencyViews.add(CurrencyView.from(currency));
+            rateViews.add(RateView.from(rate));
+
+            conversions.add(new ConversionResult(i, i + 1, new BigDecimal("125.50"), new BigDecimal("115.62"), null));
+        }
+    }
+
+    @Benchmark
+    public byte[] currencyInfoEntities() throws Exception {
+        return objectMapper.writeValueAsBytes(currencies);
+    }
+
+    @Benchmark
+    public byte[] currencyRateEntities() throws Exception {
+        return objectMapper.writeValueAsBytes(rates);
+    }
+
+    @Benchmark
+    public byte[] currencyViewDtos() throws Exception {
+        return objectMapper.writeValueAsBytes(currencyViews);
+    }
+
+    @Benchmark
+    public byte[] rateViewDtos() throws Exception {
+        return objectMapper.writeValueAsBytes(rateViews);
+    }
+
+    @Benchmark
+    public byte[] conversionResultDtos() throws Exception {
+        return objectMapper.writeValueAsBytes(conversions);
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.currency.loadtest;
+
+import com.example.currency.loadtest.LoadTestSettings.Operation;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop traffic against the running application: together the virtual
+ * users send {@code loadtest.rate} requests per second on a fixed schedule,
+ * each picking an operation by weight. Latency is measured from the time a
+ * request was scheduled to be sent, not from when the user got around to
+ * sending it, so a stall also counts against the requests queued behind it
+ * instead of hiding them (coordinated omission). Latencies go into
+ * per-operation HdrHistograms.
+ */
+final class LoadGenerator {
+    private static final LocalDate SEED_DATE = LocalDate.of(2000, 1, 3);
+    private static final long MAX_TRACKED_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    private final URI baseUri;
+    private final LoadTestSettings settings;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Operation[] weightedOperations;
+    private final List<Long> rateIds = new ArrayList<>();
+    private final List<Integer> currencyIds = new ArrayList<>();
+
+    LoadGenerator(URI baseUri, LoadTestSettings settings) {
+        this.baseUri = baseUri;
+        this.settings = settings;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        List<Operation> operations = new ArrayList<>();
+        settings.mix().forEach((operation, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                operations.add(operation);
+            }
+        });
+        if (operations.isEmpty()) {
+            throw new IllegalArgumentException("loadtest.mix must give at least one operation a positive weight");
+        }
+        this.weightedOperations = operations.toArray(Operation[]::new);
+    }
+
+    /**
+     * Loads the currency directory through the application (which fetches it
+     * from the stub) and creates one rate per currency for the write traffic
+     * to update.
+     */
+    void seed() throws IOException, InterruptedException {
+        JsonNode currencies = objectMapper.readTree(sendChecked(get("/api/currency/info")).body());
+        for (JsonNode currency : currencies) {
+            currencyIds.add(currency.get("id").asInt());
+        }
+        if (currencyIds.size() < 2) {
+            throw new IllegalStateException("Expected at least two currencies, got " + currencyIds.size());
+        }
+        for (Integer currencyId : currencyIds) {
+            String body = "{\"Cur_OfficialRate\":1.0000,\"Cur_Scale\":1,\"Date\":\"" + SEED_DATE
+                    + "\",\"currency\":{\"id\":" + currencyId + "}}";
+            JsonNode created = objectMapper.readTree(sendChecked(HttpRequest.newBuilder(uri("/api/currency/rates"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build()).body());
+            rateIds.add(created.get("id").asLong());
+        }
+    }
+
+    Map<Operation, OperationResult> run(Duration duration) throws InterruptedException {
+        Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+        Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            recorders.put(operation, new Recorder(MAX_TRACKED_NANOS, 3));
+            errors.put(operation, new LongAdder());
+        }
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService users = Executors.newFixedThreadPool(settings.concurrency());
+        long intervalNanos = (long) (settings.concurrency() * 1e9 / settings.rate());
+        long started = System.nanoTime();
+        for (int i = 0; i < settings.concurrency(); i++) {
+            // stagger the users evenly over one interval
+            long firstSend = started + intervalNanos * i / settings.concurrency();
+            users.execute(() -> {
+                long intended = firstSend;
+                while (running.get()) {
+                    long wait = intended - System.nanoTime();
+                    if (wait > 0) {
+                        LockSupport.parkNanos(wait);
+                        continue;
+                    }
+                    Operation operation = weightedOperations[ThreadLocalRandom.current().nextInt(weightedOperations.length)];
+                    boolean ok;
+                    try {
+                        ok = send(request(operation)).statusCode() / 100 == 2;
+                    } catch (IOException e) {
+                        ok = false;
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    recorders.get(operation).recordValue(Math.min(System.nanoTime() - intended, MAX_TRACKED_NANOS));
+                    if (!ok) {
+                        errors.get(operation).increment();
+                    }
+                    intended += intervalNanos;
+                }
+            });
+        }
+        Thread.sleep(duration.toMillis());
+        running.set(false);
+        users.shutdown();
+        users.awaitTermination(1, TimeUnit.MINUTES);
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+
+        Map<Operation, OperationResult> results = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = recorders.get(operation).getIntervalHistogram();
+            if (histogram.getTotalCount() > 0) {
+                results.put(operation, OperationResult.of(operation, histogram, errors.get(operation).sum(), elapsed));
+            }
+        }
+        return results;
+    }
+
+    private HttpRequest request(Operation operation) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return switch (operation) {
+            case CONVERT -> get("/api/currency/rates/convert?from=" + randomCurrency(random)
+                    + "&to=" + randomCurrency(random) + "&amount=" + (1 + random.nextInt(10_000)));
+            case LIST_RATES -> get("/api/currency/rates");
+            case LIST_CURRENCIES -> get("/api/currency/info");
+            case WRITE -> {
+                int index = random.nextInt(rateIds.size());
+                String body = "{\"Cur_OfficialRate\":" + (1 + random.nextInt(9)) + "." + (1000 + random.nextInt(9000))
+                        + ",\"Cur_Scale\":1,\"Date\":\"" + SEED_DATE + "\",\"currency\":{\"id\":" + currencyIds.get(index) + "}}";
+                yield HttpRequest.newBuilder(uri("/api/currency/rates/" + rateIds.get(index)))
+                        .header("Content-Type", "application/json")
+                        .PUT(HttpRequest.BodyPublishers.ofString(body))
+                        .build();
+            }
+        };
+    }
+
+    private int randomCurrency(ThreadLocalRandom random) {
+        return currencyIds.get(random.nextInt(currencyIds.size()));
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(uri(path)).GET().build();
+    }
+
+    private URI uri(String path) {
+        return baseUri.resolve(path);
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> sendChecked(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<String> response = send(request);
+        if (response.statusCode() / 100 != 2) {
+            throw new IllegalStateException(request.method() + " " + request.uri() + " returned "
+                    + response.statusCode() + ": " + response.body());
+        }
+        return response;
+    }
+
+    record OperationResult(Operation operation, long requests, long errors, double throughput,
+                           double p50Millis, double p99Millis, double p999Millis, double maxMillis) {
+
+        static OperationResult of(Operation operation, Histogram histogram, long errors, Duration elapsed) {
+            return new OperationResult(operation, histogram.getTotalCount(), errors,
+                    histogram.getTotalCount() / (elapsed.toNanos() / 1e9),
+                    millis(histogram.getValueAtPercentile(50)),
+                    millis(histogram.getValueAtPercentile(99)),
+                    millis(histogram.getValueAtPercentile(99.9)),
+                    millis(histogram.getMaxValue()));
+        }
+
+        double errorRate() {
+            return requests == 0 ? 0 : (double) errors / requests;
+        }
+
+        private static double millis(long nanos) {
+            return nanos / 1e6;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.currency.loadtest;
+
+import com.example.currency.Application;
+import com.example.currency.loadtest.LoadGenerator.OperationResult;
+import com.example.currency.loadtest.LoadTestSettings.Operation;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Starts the application on an in-memory H2 database against a local NBRB
+ * stub, drives a weighted mix of requests through its HTTP endpoints and
+ * exits non-zero if any operation's p99 latency or the error rate is over
+ * its threshold. Needs no network access.
+ *
+ * <pre>
+ * mvn -Ploadtest -DskipTests verify -Dloadtest.duration=PT60S -Dloadtest.rate=400 -Dloadtest.concurrency=64
+ * </pre>
+ *
+ * To compare platform and virtual request threads (Java 21+) while NBRB is
+ * slow, run a cold start with many currencies twice, switching only
+ * {@code loadtest.virtual-threads}, and compare the two reports:
+ *
+ * <pre>
+ * mvn -Ploadtest -DskipTests verify -Dloadtest.warmup=PT0S -Dloadtest.concurrency=400 \
+ *     -Dloadtest.currencies=600 -Dloadtest.upstream.latency=PT0.5S -Dloadtest.server-threads=50 \
+ *     -Dloadtest.virtual-threads=false -Dloadtest.report-file=target/loadtest-platform.json
+ * </pre>
+ */
+public final class LoadTest {
+    private static final Logger logger = LoggerFactory.getLogger(LoadTest.class);
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+        Path workDir = Files.createTempDirectory("currency-loadtest");
+        List<String> violations;
+        try (StubNbrbServer stub = new StubNbrbServer(settings.currencies(), settings.upstreamLatency(),
+                settings.upstreamErrorRate());
+             ConfigurableApplicationContext application = start(settings, stub, workDir)) {
+            int port = ((WebServerApplicationContext) application).getWebServer().getPort();
+            LoadGenerator generator = new LoadGenerator(URI.create("http://127.0.0.1:" + port), settings);
+            generator.seed();
+            logger.info("Warming up for {}", settings.warmup());
+            generator.run(settings.warmup());
+            logger.info("Measuring {} req/s from {} virtual users for {} against {} request threads",
+                    settings.rate(), settings.concurrency(), settings.duration(),
+                    settings.virtualThreads() ? "virtual" : settings.serverThreads() + " platform");
+            Map<Operation, OperationResult> results = generator.run(settings.duration());
+            violations = check(settings, results);
+            report(settings, results, violations, stub.requestCount());
+        }
+        if (!violations.isEmpty()) {
+            violations.forEach(violation -> logger.error("Threshold exceeded: {}", violation));
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+
+    private static ConfigurableApplicationContext start(LoadTestSettings settings, StubNbrbServer stub, Path workDir) {
+        // command line arguments, so that they take precedence over application.properties
+        return new SpringApplicationBuilder(Application.class).run(
+                "--server.port=0",
+                "--server.tomcat.threads.max=" + settings.serverThreads(),
+                "--spring.threads.virtual.enabled=" + settings.virtualThreads(),
+                "--spring.datasource.url=jdbc:h2:mem:loadtest;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.show-sql=false",
+                "--nbrb.api.base-url=" + stub.baseUrl(),
+                "--currency.ingestion.on-startup=false",
+                "--currency.history.dir=" + workDir.resolve("history"),
+                "--currency.snapshot.file=" + workDir.resolve("rate-snapshot.bin"),
+                "--logging.level.root=WARN",
+                "--logging.level.com.example.currency.loadtest=INFO");
+    }
+
+    private static List<String> check(LoadTestSettings settings, Map<Operation, OperationResult> results) {
+        List<String> violations = new ArrayList<>();
+        long requests = 0;
+        long errors = 0;
+        for (OperationResult result : results.values()) {
+            requests += result.requests();
+            errors += result.errors();
+            Duration limit = settings.maxP99().get(result.operation());
+            if (limit != null && result.p99Millis() > limit.toNanos() / 1e6) {
+                violations.add(String.format("%s p99 %.2f ms > %d ms",
+                        result.operation(), result.p99Millis(), limit.toMillis()));
+            }
+        }
+        double errorRate = requests == 0 ? 1 : (double) errors / requests;
+        if (errorRate > settings.maxErrorRate()) {
+            violations.add(String.format("error rate %.4f > %.4f", errorRate, settings.maxErrorRate()));
+        }
+        return violations;
+    }
+
+    private static void report(LoadTestSettings settings, Map<Operation, OperationResult> results,
+                               List<String> violations, long upstreamRequests) throws Exception {
+        StringBuilder table = new StringBuilder(String.format("%n%-16s %10s %8s %10s %9s %9s %9s %9s%n",
+                "operation", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms"));
+        double throughput = 0;
+        for (OperationResult result : results.values()) {
+            throughput += result.throughput();
+            table.append(String.format("%-16s %10d %8d %10.1f %9.2f %9.2f %9.2f %9.2f%n",
+                    result.operation(), result.requests(), result.errors(), result.throughput(),
+                    result.p50Millis(), result.p99Millis(), result.p999Millis(), result.maxMillis()));
+        }
+        table.append(String.format("total %.1f req/s, %d upstream requests", throughput, upstreamRequests));
+        logger.info("Load test results:{}", table);
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("settings", settings);
+        report.put("throughput", throughput);
+        report.put("results", results.values());
+        report.put("violations", violations);
+        Path reportFile = Path.of(settings.reportFile());
+        Files.createDirectories(reportFile.toAbsolutePath().getParent());
+        new ObjectMapper()
+                .findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DURATIONS_AS_TIMESTAMPS)
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(reportFile.toFile(), report);
+        logger.info("Report written to {}", reportFile);
+    }
+}
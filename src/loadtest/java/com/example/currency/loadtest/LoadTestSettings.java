@@ -0,0 +1,61 @@
+package com.example.currency.loadtest;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Load test parameters, read from {@code loadtest.*} system properties so
+ * they can be overridden on the Maven command line.
+ */
+record LoadTestSettings(
+        Duration warmup,
+        Duration duration,
+        int concurrency,
+        double rate,
+        boolean virtualThreads,
+        int serverThreads,
+        int currencies,
+        Map<Operation, Integer> mix,
+        Duration upstreamLatency,
+        double upstreamErrorRate,
+        Map<Operation, Duration> maxP99,
+        double maxErrorRate,
+        String reportFile) {
+
+    enum Operation {
+        CONVERT, LIST_RATES, LIST_CURRENCIES, WRITE
+    }
+
+    static LoadTestSettings fromSystemProperties() {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        mix.put(Operation.CONVERT, Integer.getInteger("loadtest.mix.convert", 80));
+        mix.put(Operation.LIST_RATES, Integer.getInteger("loadtest.mix.list-rates", 8));
+        mix.put(Operation.LIST_CURRENCIES, Integer.getInteger("loadtest.mix.list-currencies", 7));
+        mix.put(Operation.WRITE, Integer.getInteger("loadtest.mix.write", 5));
+        // about twice the worst p99 seen at the default rate on a single core
+        Map<Operation, Duration> maxP99 = new EnumMap<>(Operation.class);
+        maxP99.put(Operation.CONVERT, duration("loadtest.max-p99.convert", "PT0.075S"));
+        maxP99.put(Operation.LIST_RATES, duration("loadtest.max-p99.list-rates", "PT0.2S"));
+        maxP99.put(Operation.LIST_CURRENCIES, duration("loadtest.max-p99.list-currencies", "PT0.1S"));
+        maxP99.put(Operation.WRITE, duration("loadtest.max-p99.write", "PT0.25S"));
+        return new LoadTestSettings(
+                duration("loadtest.warmup", "PT10S"),
+                duration("loadtest.duration", "PT30S"),
+                Integer.getInteger("loadtest.concurrency", 32),
+                Double.parseDouble(System.getProperty("loadtest.rate", "100")),
+                Boolean.getBoolean("loadtest.virtual-threads"),
+                Integer.getInteger("loadtest.server-threads", 200),
+                Integer.getInteger("loadtest.currencies", 40),
+                mix,
+                duration("loadtest.upstream.latency", "PT0.05S"),
+                Double.parseDouble(System.getProperty("loadtest.upstream.error-rate", "0.01")),
+                maxP99,
+                Double.parseDouble(System.getProperty("loadtest.max-error-rate", "0.001")),
+                System.getProperty("loadtest.report-file", "target/loadtest-report.json"));
+    }
+
+    private static Duration duration(String name, String defaultValue) {
+        return Duration.parse(System.getProperty(name, defaultValue));
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.currency.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.StringJoiner;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Local stand-in for api.nbrb.by serving {@code /exrates/currencies},
+ * {@code /exrates/rates/{id}} and {@code /exrates/rates?ondate=...} for a
+ * generated set of currencies, with a fixed added latency and a random
+ * share of 503 responses.
+ */
+final class StubNbrbServer implements AutoCloseable {
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final int currencies;
+    private final Duration latency;
+    private final double errorRate;
+    private final AtomicLong requests = new AtomicLong();
+
+    StubNbrbServer(int currencies, Duration latency, double errorRate) throws IOException {
+        this.currencies = currencies;
+        this.latency = latency;
+        this.errorRate = errorRate;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/exrates/currencies", exchange -> handle(exchange, this::currencies));
+        server.createContext("/exrates/rates", exchange -> handle(exchange, this::rates));
+        server.start();
+    }
+
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/exrates/";
+    }
+
+    long requestCount() {
+        return requests.get();
+    }
+
+    static String abbreviation(int index) {
+        return "C" + (char) ('A' + index / 26 % 26) + (char) ('A' + index % 26);
+    }
+
+    private String currencies(HttpExchange exchange) {
+        StringJoiner json = new StringJoiner(",", "[", "]");
+        for (int i = 0; i < currencies; i++) {
+            json.add("{\"Cur_Code\":\"" + (100 + i) + "\",\"Cur_Abbreviation\":\"" + abbreviation(i)
+                    + "\",\"Cur_Name\":\"Currency " + i + "\",\"Cur_Scale\":" + scale(i) + "}");
+        }
+        return json.toString();
+    }
+
+    private String rates(HttpExchange exchange) {
+        String path = exchange.getRequestURI().getPath();
+        LocalDate today = LocalDate.now();
+        if (path.matches(".*/rates/\\d+")) {
+            // the application assigns ids in directory order starting from 1
+            int id = Integer.parseInt(path.substring(path.lastIndexOf('/') + 1));
+            return "{\"Cur_ID\":" + id + ",\"Date\":\"" + today + "T00:00:00\",\"Cur_Scale\":" + scale(id - 1)
+                    + ",\"Cur_OfficialRate\":" + rate(id - 1) + "}";
+        }
+        StringJoiner json = new StringJoiner(",", "[", "]");
+        for (int i = 0; i < currencies; i++) {
+            json.add("{\"Cur_ID\":" + (i + 1) + ",\"Date\":\"" + today + "T00:00:00\",\"Cur_Abbreviation\":\""
+                    + abbreviation(i) + "\",\"Cur_Scale\":" + scale(i) + ",\"Cur_Name\":\"Currency " + i
+                    + "\",\"Cur_OfficialRate\":" + rate(i) + "}");
+        }
+        return json.toString();
+    }
+
+    private static int scale(int index) {
+        return index % 3 == 0 ? 100 : 1;
+    }
+
+    private static BigDecimal rate(int index) {
+        return BigDecimal.valueOf(1 + Math.floorMod(index, 17))
+                .add(BigDecimal.valueOf(Math.floorMod(index, 97), 2))
+                .setScale(4, RoundingMode.UNNECESSARY);
+    }
+
+    private void handle(HttpExchange exchange, Function<HttpExchange, String> body) throws IOException {
+        requests.incrementAndGet();
+        try {
+            if (!latency.isZero()) {
+                Thread.sleep(latency.toMillis());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+            respond(exchange, 503, "{}");
+        } else {
+            respond(exchange, 200, body.apply(exchange));
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
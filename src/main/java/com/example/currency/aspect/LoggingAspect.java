@@ -1,37 +0,0 @@
-package com.example.currency.aspect;
-
-import org.aspectj.lang.JoinPoint;
-import org.aspectj.lang.annotation.AfterReturning;
-import org.aspectj.lang.annotation.AfterThrowing;
-import org.aspectj.lang.annotation.Aspect;
-import org.aspectj.lang.annotation.Before;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.springframework.stereotype.Component;
-
-import java.util.Arrays;
-
-@Aspect
-@Component
-public class LoggingAspect {
-    private static final Logger logger = LoggerFactory.getLogger(LoggingAspect.class);
-
-    @Before("execution(* com.example.currency.service.*.*(..)) || execution(* com.example.currency.controller.*.*(..))")
-    public void logMethodEntry(JoinPoint joinPoint) {
-        String methodName = joinPoint.getSignature().toShortString();
-        Object[] args = joinPoint.getArgs();
-        logger.info("Entering method: {} with arguments: {}", methodName, Arrays.toString(args));
-    }
-
-    @AfterReturning(pointcut = "execution(* com.example.currency.service.*.*(..)) || execution(* com.example.currency.controller.*.*(..))", returning = "result")
-    public void logMethodExit(JoinPoint joinPoint, Object result) {
-        String methodName = joinPoint.getSignature().toShortString();
-        logger.info("Exiting method: {} with result: {}", methodName, result);
-    }
-
-    @AfterThrowing(pointcut = "execution(* com.example.currency.service.*.*(..)) || execution(* com.example.currency.controller.*.*(..))", throwing = "ex")
-    public void logMethodException(JoinPoint joinPoint, Throwable ex) {
-        String methodName = joinPoint.getSignature().toShortString();
-        logger.error("Exception in method: {} with cause: {}", methodName, ex.getMessage(), ex);
-    }
-}
\ No newline at end of file
@@ -0,0 +1,133 @@
+package com.example.currency.aspect;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every service and controller call into a per-method Micrometer timer,
+ * whose histogram buckets are lock-free counters. Only calls slower than the
+ * threshold are logged; arguments and results of a sample of calls are logged
+ * at DEBUG and rendered only when the message is actually written.
+ */
+@Aspect
+@Component
+public class TracingAspect {
+    private static final Logger logger = LoggerFactory.getLogger(TracingAspect.class);
+    static final String METRIC_NAME = "method.timings";
+
+    private final MeterRegistry meterRegistry;
+    private final long slowThresholdNanos;
+    private final double sampleRate;
+    private final int maxPayloadLength;
+    private final Map<JoinPoint.StaticPart, Timer> timers = new ConcurrentHashMap<>();
+
+    public TracingAspect(
+            MeterRegistry meterRegistry,
+            @Value("${currency.tracing.slow-threshold:PT0.5S}") Duration slowThreshold,
+            @Value("${currency.tracing.sample-rate:0.01}") double sampleRate,
+            @Value("${currency.tracing.max-payload-length:512}") int maxPayloadLength) {
+        this.meterRegistry = meterRegistry;
+        this.slowThresholdNanos = slowThreshold.toNanos();
+        this.sampleRate = sampleRate;
+        this.maxPayloadLength = maxPayloadLength;
+    }
+
+    @Around("execution(* com.example.currency.service.*.*(..)) || execution(* com.example.currency.controller.*.*(..))")
+    public Object trace(ProceedingJoinPoint joinPoint) throws Throwable {
+        long started = System.nanoTime();
+        Object result = null;
+        Throwable failure = null;
+        try {
+            result = joinPoint.proceed();
+            return result;
+        } catch (Throwable ex) {
+            failure = ex;
+            throw ex;
+        } finally {
+            long elapsed = System.nanoTime() - started;
+            record(joinPoint.getStaticPart(), elapsed, failure);
+            if (elapsed >= slowThresholdNanos) {
+                logger.warn("Slow call: {} took {} ms with arguments: {}", joinPoint.getSignature().toShortString(),
+                        TimeUnit.NANOSECONDS.toMillis(elapsed), new Payload(joinPoint.getArgs(), maxPayloadLength));
+            } else if (logger.isDebugEnabled() && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+                logger.debug("Sampled call: {} took {} us with arguments: {} and {}: {}",
+                        joinPoint.getSignature().toShortString(), TimeUnit.NANOSECONDS.toMicros(elapsed),
+                        new Payload(joinPoint.getArgs(), maxPayloadLength),
+                        failure != null ? "exception" : "result",
+                        new Payload(failure != null ? failure : result, maxPayloadLength));
+            }
+        }
+    }
+
+    private void record(JoinPoint.StaticPart part, long elapsed, Throwable failure) {
+        Timer timer = failure == null
+                ? timers.computeIfAbsent(part, p -> timer(p, "none"))
+                : timer(part, failure.getClass().getSimpleName());
+        timer.record(elapsed, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer timer(JoinPoint.StaticPart part, String exception) {
+        return Timer.builder(METRIC_NAME)
+                .description("Service and controller method latency")
+                .tag("class", part.getSignature().getDeclaringType().getSimpleName())
+                .tag("method", part.getSignature().getName())
+                .tag("exception", exception)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Defers rendering to {@link #toString()}, which SLF4J only calls when the
+     * message is written. Collections and maps are summarised by size so that a
+     * sampled getAllRates() does not stringify the whole rate table.
+     */
+    static final class Payload {
+        private final Object value;
+        private final int maxLength;
+
+        Payload(Object value, int maxLength) {
+            this.value = value;
+            this.maxLength = maxLength;
+        }
+
+        @Override
+        public String toString() {
+            String rendered = render(value);
+            return rendered.length() <= maxLength ? rendered : rendered.substring(0, maxLength) + "...";
+        }
+
+        private static String render(Object value) {
+            if (value instanceof Object[] array) {
+                StringBuilder sb = new StringBuilder("[");
+                for (int i = 0; i < array.length; i++) {
+                    if (i > 0) {
+                        sb.append(", ");
+                    }
+                    sb.append(render(array[i]));
+                }
+                return sb.append(']').toString();
+            }
+            if (value instanceof Collection<?> collection) {
+                return value.getClass().getSimpleName() + "[size=" + collection.size() + "]";
+            }
+            if (value instanceof Map<?, ?> map) {
+                return value.getClass().getSimpleName() + "[size=" + map.size() + "]";
+            }
+            return String.valueOf(value);
+        }
+    }
+}
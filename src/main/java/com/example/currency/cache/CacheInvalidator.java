@@ -0,0 +1,171 @@
+package com.example.currency.cache;
+
+import com.example.currency.conversion.RateMatrixHolder;
+import com.example.currency.history.RateHistoryLoader;
+import com.example.currency.models.CacheInvalidation;
+import com.example.currency.repository.AfterCommit;
+import com.example.currency.repository.CacheInvalidationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Drops the cache entries, matrix rows and HTTP versions affected by a write,
+ * and records the tags in the shared cache_invalidation table so other
+ * instances can apply them too (see {@link InvalidationPoller}).
+ */
+@Component
+public class CacheInvalidator {
+    private static final Logger logger = LoggerFactory.getLogger(CacheInvalidator.class);
+    static final String TAG_SEPARATOR = "\n";
+
+    private final CurrencyCache cacheService;
+    private final RateMatrixHolder rateMatrixHolder;
+    private final DataVersions dataVersions;
+    private final RateHistoryLoader historyLoader;
+    private final CacheInvalidationRepository invalidationRepository;
+    private final String nodeId;
+    private final boolean distributed;
+    private final Clock clock = Clock.systemUTC();
+
+    public CacheInvalidator(
+            CurrencyCache cacheService,
+            RateMatrixHolder rateMatrixHolder,
+            DataVersions dataVersions,
+            RateHistoryLoader historyLoader,
+            CacheInvalidationRepository invalidationRepository,
+            @Value("${currency.cache.invalidation.node-id:${random.uuid}}") String nodeId,
+            @Value("${currency.cache.invalidation.enabled:true}") boolean distributed) {
+        this.cacheService = cacheService;
+        this.rateMatrixHolder = rateMatrixHolder;
+        this.dataVersions = dataVersions;
+        this.historyLoader = historyLoader;
+        this.invalidationRepository = invalidationRepository;
+        this.nodeId = nodeId;
+        this.distributed = distributed;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void invalidate(CacheTag... tags) {
+        invalidate(List.of(tags));
+    }
+
+    /**
+     * Publishes the tags to the other instances and applies them locally.
+     * Inside a transaction the row is written as part of it, so peers see it
+     * exactly when the write commits, and a failed publish fails the write
+     * with it; the local caches are dropped after the commit. Outside a
+     * transaction the write has already happened, so a failed publish is
+     * logged and peers catch up when their entries expire.
+     */
+    public void invalidate(Collection<CacheTag> tags) {
+        Set<CacheTag> unique = new LinkedHashSet<>(tags);
+        CacheInvalidation published = null;
+        if (distributed && !unique.isEmpty()) {
+            CacheInvalidation row = new CacheInvalidation(nodeId, join(unique), clock.instant());
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                published = invalidationRepository.save(row);
+            } else {
+                try {
+                    published = invalidationRepository.save(row);
+                } catch (RuntimeException e) {
+                    logger.warn("Could not publish cache invalidation {}: {}", unique, e.getMessage());
+                }
+            }
+        }
+        CacheInvalidation row = published;
+        AfterCommit.run(() -> apply(unique, row));
+    }
+
+    /**
+     * Rate tags from other instances also drop the affected rows of the rate
+     * matrix and mark the affected rate history for reloading, because the
+     * local write paths that keep both current did not run on this instance.
+     */
+    void applyRemote(CacheInvalidation row) {
+        List<CacheTag> tags = split(row.getTags());
+        for (CacheTag tag : tags) {
+            if (tag.kind() == CacheTag.Kind.DATE) {
+                rateMatrixHolder.evict(LocalDate.parse(tag.value()));
+            } else if (tag.kind() == CacheTag.Kind.RATE) {
+                int separator = tag.value().indexOf('@');
+                rateMatrixHolder.remove(LocalDate.parse(tag.value().substring(separator + 1)),
+                        Integer.parseInt(tag.value().substring(0, separator)));
+            }
+        }
+        historyLoader.markStale(tags);
+        apply(tags, row);
+    }
+
+    /**
+     * Clears everything after this instance may have missed invalidations,
+     * and moves the versions to the latest published row.
+     */
+    void clearLocally(CacheInvalidation latest) {
+        cacheService.clear();
+        rateMatrixHolder.evict(rateMatrixHolder.get().getDate());
+        historyLoader.markAllStale();
+        advanceTo(latest);
+    }
+
+    void advanceTo(CacheInvalidation latest) {
+        if (latest != null) {
+            for (DataVersions.Dataset dataset : DataVersions.Dataset.values()) {
+                dataVersions.advance(dataset, latest.getId(), latest.getCreatedAt());
+            }
+        }
+    }
+
+    private void apply(Collection<CacheTag> tags, CacheInvalidation published) {
+        int removed = cacheService.invalidate(tags);
+        boolean rates = false;
+        boolean currencies = false;
+        for (CacheTag tag : tags) {
+            rates |= tag.isRates();
+            currencies |= tag.isCurrencies();
+        }
+        if (rates) {
+            version(DataVersions.Dataset.RATES, published);
+        }
+        if (currencies) {
+            version(DataVersions.Dataset.CURRENCIES, published);
+        }
+        logger.debug("Invalidated {} cache entries for {}", removed, tags);
+    }
+
+    private void version(DataVersions.Dataset dataset, CacheInvalidation published) {
+        if (published != null) {
+            dataVersions.advance(dataset, published.getId(), published.getCreatedAt());
+        } else {
+            dataVersions.bump(dataset);
+        }
+    }
+
+    static String join(Collection<CacheTag> tags) {
+        return tags.stream().map(CacheTag::toString).collect(Collectors.joining(TAG_SEPARATOR));
+    }
+
+    static List<CacheTag> split(String tags) {
+        List<CacheTag> parsed = new ArrayList<>();
+        for (String tag : tags.split(TAG_SEPARATOR)) {
+            if (!tag.isBlank()) {
+                parsed.add(CacheTag.parse(tag));
+            }
+        }
+        return parsed;
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.currency.cache;
+
+public class CacheLoadTimeoutException extends RuntimeException {
+    public CacheLoadTimeoutException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
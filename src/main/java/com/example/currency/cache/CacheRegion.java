@@ -0,0 +1,165 @@
+package com.example.currency.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToIntFunction;
+
+/**
+ * A typed, bounded cache region with its own TTL. Eviction uses Caffeine's
+ * W-TinyLFU policy, so frequently requested entries stay resident when the
+ * region is full. Entries may carry {@link CacheTag}s; invalidating a tag
+ * drops exactly the entries that were put with it.
+ */
+public class CacheRegion<K, V> {
+    private static final Logger logger = LoggerFactory.getLogger(CacheRegion.class);
+
+    private record Tagged<V>(V value, Set<CacheTag> tags) {
+    }
+
+    private final String name;
+    private final Cache<K, Tagged<V>> cache;
+    private final Map<CacheTag, Set<K>> keysByTag = new ConcurrentHashMap<>();
+
+    public CacheRegion(String name, long maximumSize, Duration ttl) {
+        this(name, Caffeine.newBuilder().maximumSize(maximumSize), ttl);
+    }
+
+    /**
+     * A region bounded by the total weight of its values instead of their
+     * number, for values whose size varies by orders of magnitude. A value
+     * heavier than the whole bound is dropped right after it is put.
+     */
+    @SuppressWarnings("unchecked")
+    public CacheRegion(String name, long maximumWeight, Duration ttl, ToIntFunction<V> weigher) {
+        this(name, Caffeine.newBuilder()
+                .maximumWeight(maximumWeight)
+                .weigher((key, entry) -> weigher.applyAsInt(((Tagged<V>) entry).value())), ttl);
+    }
+
+    private CacheRegion(String name, Caffeine<Object, Object> builder, Duration ttl) {
+        this.name = name;
+        this.cache = builder
+                .expireAfterWrite(ttl)
+                .<K, Tagged<V>>evictionListener((key, entry, cause) -> {
+                    if (key != null && entry != null) {
+                        untrack(key, entry.tags());
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
+    public Optional<V> get(K key) {
+        Tagged<V> entry = cache.getIfPresent(key);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Cache {} {}: key={}", name, entry != null ? "hit" : "miss", key);
+        }
+        return entry != null ? Optional.ofNullable(entry.value()) : Optional.empty();
+    }
+
+    public void put(K key, V value) {
+        put(key, value, Set.of());
+    }
+
+    public void put(K key, V value, Collection<CacheTag> tags) {
+        logger.debug("Cache {} put: key={}, tags={}", name, key, tags);
+        Set<CacheTag> tagSet = Set.copyOf(tags);
+        Tagged<V> previous = cache.asMap().put(key, new Tagged<>(value, tagSet));
+        if (previous != null) {
+            previous.tags().stream().filter(tag -> !tagSet.contains(tag)).forEach(tag -> untrack(key, tag));
+        }
+        for (CacheTag tag : tagSet) {
+            keysByTag.compute(tag, (t, keys) -> {
+                Set<K> tagged = keys != null ? keys : ConcurrentHashMap.newKeySet();
+                tagged.add(key);
+                return tagged;
+            });
+        }
+    }
+
+    public void remove(K key) {
+        logger.debug("Cache {} remove: key={}", name, key);
+        Tagged<V> previous = cache.asMap().remove(key);
+        if (previous != null) {
+            untrack(key, previous.tags());
+        }
+    }
+
+    /**
+     * Removes every entry put with the tag and returns how many were removed.
+     */
+    public int invalidate(CacheTag tag) {
+        Set<K> keys = keysByTag.remove(tag);
+        if (keys == null) {
+            return 0;
+        }
+        int removed = 0;
+        for (K key : keys) {
+            Tagged<V> previous = cache.asMap().remove(key);
+            if (previous != null) {
+                untrack(key, previous.tags());
+                removed++;
+            }
+        }
+        logger.debug("Cache {} invalidate: tag={}, removed={}", name, tag, removed);
+        return removed;
+    }
+
+    public void clear() {
+        logger.debug("Cache {} clear: all entries removed", name);
+        cache.invalidateAll();
+        keysByTag.clear();
+    }
+
+    public void cleanUp() {
+        cache.cleanUp();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    int taggedKeyCount(CacheTag tag) {
+        Set<K> keys = keysByTag.get(tag);
+        return keys != null ? keys.size() : 0;
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /**
+     * Publishes hit, miss, eviction and size meters tagged with
+     * {@code cache=<region name>}.
+     */
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, name);
+    }
+
+    private void untrack(K key, Set<CacheTag> tags) {
+        tags.forEach(tag -> untrack(key, tag));
+    }
+
+    private void untrack(K key, CacheTag tag) {
+        keysByTag.computeIfPresent(tag, (t, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.currency.cache;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Identifies a group of cache entries that must be dropped together. Entries
+ * are tagged when they are cached; a write invalidates the tags it affects
+ * instead of clearing whole regions. Tags have a stable string form so they
+ * can be shipped to other instances.
+ */
+public record CacheTag(Kind kind, String value) {
+    public enum Kind {
+        CURRENCY,
+        DATE,
+        RATE,
+        LIST
+    }
+
+    public static final CacheTag ALL_RATES = list("allRates");
+    public static final CacheTag CURRENCY_LISTS = list("currencies");
+
+    public static CacheTag currency(int currencyId) {
+        return new CacheTag(Kind.CURRENCY, Integer.toString(currencyId));
+    }
+
+    public static CacheTag date(LocalDate date) {
+        return new CacheTag(Kind.DATE, date.toString());
+    }
+
+    public static CacheTag rate(int currencyId, LocalDate date) {
+        return new CacheTag(Kind.RATE, currencyId + "@" + date);
+    }
+
+    public static CacheTag list(String key) {
+        return new CacheTag(Kind.LIST, key);
+    }
+
+    public static CacheTag ratesList(String abbreviation, LocalDate date) {
+        return list("rates:" + abbreviation + ":" + date);
+    }
+
+    /**
+     * Tags for an entry holding one currency's rate on one date.
+     */
+    public static List<CacheTag> forRate(int currencyId, LocalDate date) {
+        return List.of(currency(currencyId), date(date), rate(currencyId, date));
+    }
+
+    public static CacheTag parse(String text) {
+        int separator = text.indexOf('=');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Malformed cache tag: " + text);
+        }
+        return new CacheTag(Kind.valueOf(text.substring(0, separator)), text.substring(separator + 1));
+    }
+
+    public boolean isRates() {
+        return kind != Kind.LIST || this.equals(ALL_RATES) || value.startsWith("rates:");
+    }
+
+    public boolean isCurrencies() {
+        return kind == Kind.CURRENCY || this.equals(CURRENCY_LISTS);
+    }
+
+    @Override
+    public String toString() {
+        return kind + "=" + value;
+    }
+}
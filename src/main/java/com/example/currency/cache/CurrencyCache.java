@@ -0,0 +1,89 @@
+package com.example.currency.cache;
+
+import com.example.currency.dto.CurrencyView;
+import com.example.currency.dto.RateView;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Component
+public class CurrencyCache implements MeterBinder {
+    private final CacheRegion<String, List<CurrencyView>> currencyLists;
+    private final CacheRegion<Integer, CurrencyView> currencies;
+    private final CacheRegion<RateKey, RateView> dailyRates;
+    private final CacheRegion<Long, RateView> ratesById;
+    private final CacheRegion<String, List<RateView>> rateLists;
+
+    public CurrencyCache(
+            @Value("${currency.cache.metadata.max-size:1000}") long metadataMaxSize,
+            @Value("${currency.cache.metadata.ttl:PT12H}") Duration metadataTtl,
+            @Value("${currency.cache.rates.max-size:10000}") long ratesMaxSize,
+            @Value("${currency.cache.rates.ttl:PT1H}") Duration ratesTtl,
+            @Value("${currency.cache.rate-lists.max-rows:100000}") long rateListsMaxRows) {
+        this.currencyLists = new CacheRegion<>("currencyLists", 16, metadataTtl);
+        this.currencies = new CacheRegion<>("currencies", metadataMaxSize, metadataTtl);
+        this.dailyRates = new CacheRegion<>("dailyRates", ratesMaxSize, ratesTtl);
+        this.ratesById = new CacheRegion<>("ratesById", ratesMaxSize, ratesTtl);
+        // weighed by rows: one unpaged list can hold the whole table
+        this.rateLists = new CacheRegion<>("rateLists", rateListsMaxRows, ratesTtl, rates -> Math.max(1, rates.size()));
+    }
+
+    public CacheRegion<String, List<CurrencyView>> currencyLists() {
+        return currencyLists;
+    }
+
+    public CacheRegion<Integer, CurrencyView> currencies() {
+        return currencies;
+    }
+
+    public CacheRegion<RateKey, RateView> dailyRates() {
+        return dailyRates;
+    }
+
+    public CacheRegion<Long, RateView> ratesById() {
+        return ratesById;
+    }
+
+    public CacheRegion<String, List<RateView>> rateLists() {
+        return rateLists;
+    }
+
+    public List<CacheRegion<?, ?>> regions() {
+        return List.of(currencyLists, currencies, dailyRates, ratesById, rateLists);
+    }
+
+    public Map<String, CacheStats> stats() {
+        Map<String, CacheStats> stats = new LinkedHashMap<>();
+        for (CacheRegion<?, ?> region : regions()) {
+            stats.put(region.getName(), region.stats());
+        }
+        return stats;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        regions().forEach(region -> region.bindTo(registry));
+    }
+
+    public int invalidate(Collection<CacheTag> tags) {
+        int removed = 0;
+        for (CacheTag tag : tags) {
+            for (CacheRegion<?, ?> region : regions()) {
+                removed += region.invalidate(tag);
+            }
+        }
+        return removed;
+    }
+
+    public void clear() {
+        regions().forEach(CacheRegion::clear);
+    }
+}
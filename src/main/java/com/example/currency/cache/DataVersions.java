@@ -0,0 +1,75 @@
+package com.example.currency.cache;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Version stamps for the data sets served over HTTP. HTTP validators (ETag and
+ * Last-Modified) are derived from the stamp, so they change exactly when the
+ * cached representation may have changed.
+ * <p>
+ * The version is the id and time of the latest cache_invalidation row that
+ * touched the data set, which every instance observes through its own writes
+ * and the {@link InvalidationPoller}, so replicas converge on the same
+ * validators and a restart never reissues one for different data. Writes that
+ * could not be published are counted locally on top of that version; the
+ * local count starts at the boot time in millis for the same reason.
+ */
+@Component
+public class DataVersions {
+    public enum Dataset {
+        RATES,
+        CURRENCIES
+    }
+
+    public record Stamp(long version, long unpublished, Instant modifiedAt) {
+    }
+
+    private final Clock clock;
+    private final long bootMillis;
+    private final Map<Dataset, AtomicReference<Stamp>> stamps = new EnumMap<>(Dataset.class);
+
+    public DataVersions() {
+        this(Clock.systemUTC());
+    }
+
+    DataVersions(Clock clock) {
+        this.clock = clock;
+        this.bootMillis = clock.millis();
+        for (Dataset dataset : Dataset.values()) {
+            stamps.put(dataset, new AtomicReference<>(new Stamp(0, 0, Instant.EPOCH)));
+        }
+    }
+
+    public Stamp current(Dataset dataset) {
+        return stamps.get(dataset).get();
+    }
+
+    /**
+     * Moves the data set to a published invalidation. Rows may be applied out
+     * of order, so an older id never moves the version back.
+     */
+    public void advance(Dataset dataset, long invalidationId, Instant createdAt) {
+        Instant modifiedAt = createdAt.truncatedTo(ChronoUnit.SECONDS);
+        stamps.get(dataset).updateAndGet(stamp -> invalidationId > stamp.version()
+                ? new Stamp(invalidationId, 0, modifiedAt)
+                : stamp);
+    }
+
+    /**
+     * Records a write that was not published to the shared log, which only
+     * this instance knows about.
+     */
+    public void bump(Dataset dataset) {
+        Instant now = clock.instant().truncatedTo(ChronoUnit.SECONDS);
+        stamps.get(dataset).updateAndGet(stamp -> new Stamp(stamp.version(),
+                stamp.unpublished() == 0 ? bootMillis : stamp.unpublished() + 1,
+                now.isAfter(stamp.modifiedAt()) ? now : stamp.modifiedAt()));
+    }
+}
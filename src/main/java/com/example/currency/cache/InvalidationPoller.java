@@ -0,0 +1,176 @@
+package com.example.currency.cache;
+
+import com.example.currency.models.CacheInvalidation;
+import com.example.currency.repository.CacheInvalidationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Applies cache invalidations written by other instances. Each poll reads the
+ * rows after the last id seen, so replicas converge within one poll interval.
+ * Ids skipped over are re-checked for a short while, because a concurrent
+ * insert may commit after a higher id is already visible. An instance that has
+ * not polled successfully for longer than the retention may have missed
+ * pruned rows and clears its caches instead. An instance restored from a
+ * snapshot resumes from the position recorded in it, so rows written while it
+ * was down are replayed.
+ */
+@Component
+@ConditionalOnProperty(name = "currency.cache.invalidation.enabled", havingValue = "true", matchIfMissing = true)
+public class InvalidationPoller {
+    private static final Logger logger = LoggerFactory.getLogger(InvalidationPoller.class);
+    private static final int PAGE_SIZE = 500;
+    private static final int MAX_PENDING_GAPS = 10_000;
+    private static final Duration GAP_TIMEOUT = Duration.ofMinutes(1);
+
+    private final CacheInvalidationRepository invalidationRepository;
+    private final CacheInvalidator invalidator;
+    private final Duration retention;
+    public record Position(long appliedThrough, Instant polledAt) {
+    }
+
+    private final Clock clock;
+    private boolean started;
+    private long lastSeenId = -1;
+    private Instant lastPolled;
+    private final Map<Long, Instant> pendingGaps = new LinkedHashMap<>();
+    // not synchronized: polls block on the database and may run on a virtual thread
+    private final ReentrantLock pollLock = new ReentrantLock();
+
+    @Autowired
+    public InvalidationPoller(
+            CacheInvalidationRepository invalidationRepository,
+            CacheInvalidator invalidator,
+            @Value("${currency.cache.invalidation.retention:PT1H}") Duration retention) {
+        this(invalidationRepository, invalidator, retention, Clock.systemUTC());
+    }
+
+    InvalidationPoller(CacheInvalidationRepository invalidationRepository, CacheInvalidator invalidator,
+                       Duration retention, Clock clock) {
+        this.invalidationRepository = invalidationRepository;
+        this.invalidator = invalidator;
+        this.retention = retention;
+        this.clock = clock;
+    }
+
+    @Scheduled(fixedDelayString = "${currency.cache.invalidation.poll-interval:PT2S}")
+    public void poll() {
+        pollLock.lock();
+        Instant now = clock.instant();
+        try {
+            if (!started) {
+                CacheInvalidation latest = invalidationRepository.findFirstByOrderByIdDesc().orElse(null);
+                invalidator.advanceTo(latest);
+                if (lastSeenId < 0) {
+                    // caches start empty, so nothing before startup needs replaying
+                    lastSeenId = latest != null ? latest.getId() : 0;
+                }
+                started = true;
+            }
+            if (lastPolled != null && Duration.between(lastPolled, now).compareTo(retention) > 0) {
+                logger.warn("Cache invalidation log not polled since {}, clearing local caches", lastPolled);
+                CacheInvalidation latest = invalidationRepository.findFirstByOrderByIdDesc().orElse(null);
+                invalidator.clearLocally(latest);
+                lastSeenId = latest != null ? latest.getId() : 0;
+                pendingGaps.clear();
+            }
+            recheckGaps(now);
+            List<CacheInvalidation> rows;
+            do {
+                rows = invalidationRepository.findTop500ByIdGreaterThanOrderByIdAsc(lastSeenId);
+                for (CacheInvalidation row : rows) {
+                    for (long gap = lastSeenId + 1; gap < row.getId() && pendingGaps.size() < MAX_PENDING_GAPS; gap++) {
+                        pendingGaps.put(gap, now);
+                    }
+                    apply(row);
+                    lastSeenId = row.getId();
+                }
+            } while (rows.size() == PAGE_SIZE);
+            lastPolled = now;
+        } catch (RuntimeException e) {
+            logger.warn("Polling cache invalidations failed: {}", e.getMessage());
+        } finally {
+            pollLock.unlock();
+        }
+    }
+
+    private void recheckGaps(Instant now) {
+        pendingGaps.values().removeIf(seen -> Duration.between(seen, now).compareTo(GAP_TIMEOUT) > 0);
+        if (pendingGaps.isEmpty()) {
+            return;
+        }
+        for (CacheInvalidation row : invalidationRepository.findAllById(List.copyOf(pendingGaps.keySet()))) {
+            apply(row);
+            pendingGaps.remove(row.getId());
+        }
+    }
+
+    private void apply(CacheInvalidation row) {
+        if (!invalidator.getNodeId().equals(row.getNode())) {
+            invalidator.applyRemote(row);
+        }
+    }
+
+    /**
+     * The id up to which every row has been applied, and when. Ids still
+     * awaited as gaps are not covered.
+     */
+    public Optional<Position> position() {
+        pollLock.lock();
+        try {
+            if (lastPolled == null) {
+                return Optional.empty();
+            }
+            long appliedThrough = pendingGaps.isEmpty() ? lastSeenId : pendingGaps.keySet().iterator().next() - 1;
+            return Optional.of(new Position(appliedThrough, lastPolled));
+        } finally {
+            pollLock.unlock();
+        }
+    }
+
+    /**
+     * Continues from a position restored with the local state, before the
+     * first poll.
+     */
+    public void resumeFrom(Position position) {
+        pollLock.lock();
+        try {
+            if (!started) {
+                lastSeenId = position.appliedThrough();
+                lastPolled = position.polledAt();
+            }
+        } finally {
+            pollLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${currency.cache.invalidation.prune-interval:PT10M}")
+    public void prune() {
+        try {
+            int deleted = invalidationRepository.deleteOlderThan(clock.instant().minus(retention));
+            if (deleted > 0) {
+                logger.debug("Pruned {} cache invalidation rows", deleted);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Pruning cache invalidations failed: {}", e.getMessage());
+        }
+    }
+
+    long getLastSeenId() {
+        return lastSeenId;
+    }
+}
@@ -0,0 +1,6 @@
+package com.example.currency.cache;
+
+import java.time.LocalDate;
+
+public record RateKey(Integer currencyId, LocalDate date) {
+}
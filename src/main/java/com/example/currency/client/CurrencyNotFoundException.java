@@ -0,0 +1,11 @@
+package com.example.currency.client;
+
+public class CurrencyNotFoundException extends RuntimeException {
+    public CurrencyNotFoundException(String message) {
+        super(message);
+    }
+
+    public CurrencyNotFoundException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
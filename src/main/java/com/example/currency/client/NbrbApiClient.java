@@ -2,35 +2,101 @@ package com.example.currency.client;
 
 import com.example.currency.models.CurrencyInfo;
 import com.example.currency.models.CurrencyRate;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.io.SocketConfig;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
+import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 @Component
-public class NbrbApiClient {
+public class NbrbApiClient implements DisposableBean {
     private static final Logger logger = LoggerFactory.getLogger(NbrbApiClient.class);
-    private static final String API_BASE_URL = "https://api.nbrb.by/exrates/";
+    private static final String METRIC_REQUESTS = "nbrb.client.requests";
+
+    private final CloseableHttpClient httpClient;
     private final RestTemplate restTemplate;
+    private final String apiBaseUrl;
+    private final NbrbApiProperties.Retry retry;
+    private final CircuitBreaker circuitBreaker;
+    private final MeterRegistry meterRegistry;
+    private final Counter retries;
+
+    public NbrbApiClient(RestTemplateBuilder restTemplateBuilder, NbrbApiProperties properties, MeterRegistry meterRegistry) {
+        this.httpClient = createHttpClient(properties);
+        this.restTemplate = restTemplateBuilder
+                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(httpClient))
+                .build();
+        String baseUrl = properties.baseUrl();
+        this.apiBaseUrl = baseUrl.endsWith("/") ? baseUrl : baseUrl + "/";
+        this.retry = properties.retry();
+        this.circuitBreaker = new CircuitBreaker(properties.circuit().failureThreshold(), properties.circuit().openDuration());
+        this.meterRegistry = meterRegistry;
+        this.retries = Counter.builder("nbrb.client.retries")
+                .description("Retried NBRB API calls")
+                .register(meterRegistry);
+        Gauge.builder("nbrb.client.circuit.open", circuitBreaker, cb -> cb.getState() == CircuitBreaker.State.CLOSED ? 0 : 1)
+                .description("1 while the NBRB circuit breaker is open or half-open")
+                .register(meterRegistry);
+    }
 
-    public NbrbApiClient(RestTemplateBuilder restTemplateBuilder) {
-        this.restTemplate = restTemplateBuilder.build();
+    private static CloseableHttpClient createHttpClient(NbrbApiProperties properties) {
+        Timeout connectTimeout = Timeout.of(properties.connectTimeout());
+        Timeout readTimeout = Timeout.of(properties.readTimeout());
+        return HttpClients.custom()
+                .setConnectionManager(PoolingHttpClientConnectionManagerBuilder.create()
+                        .setMaxConnTotal(properties.maxConnections())
+                        .setMaxConnPerRoute(properties.maxConnections())
+                        .setDefaultSocketConfig(SocketConfig.custom().setSoTimeout(readTimeout).build())
+                        .setDefaultConnectionConfig(ConnectionConfig.custom()
+                                .setConnectTimeout(connectTimeout)
+                                .setSocketTimeout(readTimeout)
+                                .setTimeToLive(TimeValue.ofMinutes(5))
+                                .build())
+                        .build())
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(properties.connectionRequestTimeout()))
+                        .setResponseTimeout(readTimeout)
+                        .build())
+                .evictIdleConnections(TimeValue.ofSeconds(30))
+                .disableAutomaticRetries()
+                .build();
     }
 
     public List<CurrencyInfo> getAllCurrencies() {
-        String url = API_BASE_URL + "currencies";
+        String url = apiBaseUrl + "currencies";
         try {
             logger.info("Fetching all currencies from URL: {}", url);
-            ResponseEntity<CurrencyInfo[]> response = restTemplate.getForEntity(url, CurrencyInfo[].class);
+            ResponseEntity<CurrencyInfo[]> response = execute("currencies",
+                    () -> restTemplate.getForEntity(url, CurrencyInfo[].class));
             List<CurrencyInfo> currencies = Arrays.asList(Objects.requireNonNull(response.getBody()));
             logger.info("Successfully fetched {} currencies", currencies.size());
             return currencies;
@@ -40,17 +106,14 @@ public class NbrbApiClient {
                 throw new CurrencyNotFoundException("Client error: " + e.getMessage(), e);
             }
             throw e;
-        } catch (HttpServerErrorException e) {
-            logger.error("Server error fetching currencies: {}", e.getMessage());
-            throw new RuntimeException("Server error: " + e.getMessage(), e);
         }
     }
 
     public CurrencyRate getCurrencyRate(Integer currencyId) {
-        String url = API_BASE_URL + "rates/" + currencyId;
+        String url = apiBaseUrl + "rates/" + currencyId;
         try {
             logger.info("Fetching rate for currency ID: {} from URL: {}", currencyId, url);
-            CurrencyRate rate = restTemplate.getForObject(url, CurrencyRate.class);
+            CurrencyRate rate = execute("rate", () -> restTemplate.getForObject(url, CurrencyRate.class));
             logger.info("Successfully fetched rate for currency ID: {}", currencyId);
             return rate;
         } catch (HttpClientErrorException e) {
@@ -59,15 +122,111 @@ public class NbrbApiClient {
                 throw new CurrencyNotFoundException("Currency rate not found for ID: " + currencyId, e);
             }
             throw e;
-        } catch (HttpServerErrorException e) {
-            logger.error("Server error fetching rate for currency ID {}: {}", currencyId, e.getMessage());
-            throw new RuntimeException("Server error: " + e.getMessage(), e);
         }
     }
-}
 
-class CurrencyNotFoundException extends RuntimeException {
-    public CurrencyNotFoundException(String message, Throwable cause) {
-        super(message, cause);
+    public List<NbrbRate> getDailyRates(LocalDate date) {
+        String url = apiBaseUrl + "rates?periodicity=0&ondate=" + date;
+        try {
+            logger.info("Fetching all daily rates for {} from URL: {}", date, url);
+            ResponseEntity<NbrbRate[]> response = execute("dailyRates",
+                    () -> restTemplate.getForEntity(url, NbrbRate[].class));
+            List<NbrbRate> rates = Arrays.asList(Objects.requireNonNull(response.getBody()));
+            logger.info("Successfully fetched {} daily rates for {}", rates.size(), date);
+            return rates;
+        } catch (HttpClientErrorException e) {
+            if (e.getStatusCode() == HttpStatus.BAD_REQUEST || e.getStatusCode() == HttpStatus.NOT_FOUND) {
+                logger.error("Client error fetching daily rates for {}: {}", date, e.getMessage());
+                throw new CurrencyNotFoundException("Daily rates not found for date: " + date, e);
+            }
+            throw e;
+        }
+    }
+
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    /**
+     * Runs an idempotent GET through the circuit breaker, retrying timeouts,
+     * I/O errors, 429 and 5xx responses with jittered exponential backoff.
+     * Every acquired call reports an outcome to the breaker, including
+     * unreadable responses and interrupts, so a half-open trial is always
+     * released.
+     */
+    private <T> T execute(String operation, Supplier<T> call) {
+        if (!circuitBreaker.tryAcquire()) {
+            record(operation, "CIRCUIT_OPEN", "none", 0);
+            throw new UpstreamUnavailableException("NBRB API circuit is open, skipping " + operation);
+        }
+        boolean succeeded = false;
+        try {
+            RuntimeException lastError = null;
+            for (int attempt = 1; attempt <= retry.maxAttempts(); attempt++) {
+                long started = System.nanoTime();
+                try {
+                    T result = call.get();
+                    record(operation, "SUCCESS", "200", System.nanoTime() - started);
+                    succeeded = true;
+                    return result;
+                } catch (HttpClientErrorException e) {
+                    record(operation, "CLIENT_ERROR", String.valueOf(e.getStatusCode().value()), System.nanoTime() - started);
+                    if (e.getStatusCode() != HttpStatus.TOO_MANY_REQUESTS) {
+                        succeeded = true;
+                        throw e;
+                    }
+                    lastError = e;
+                } catch (HttpServerErrorException e) {
+                    record(operation, "SERVER_ERROR", String.valueOf(e.getStatusCode().value()), System.nanoTime() - started);
+                    lastError = e;
+                } catch (ResourceAccessException e) {
+                    record(operation, "IO_ERROR", "none", System.nanoTime() - started);
+                    lastError = e;
+                } catch (RestClientException e) {
+                    // answered, but not with something we can read: retrying will not help
+                    record(operation, "ERROR", "none", System.nanoTime() - started);
+                    throw new UpstreamUnavailableException("Unreadable NBRB response: " + e.getMessage(), e);
+                }
+                if (attempt < retry.maxAttempts()) {
+                    retries.increment();
+                    logger.warn("NBRB {} attempt {} failed: {}", operation, attempt, lastError.getMessage());
+                    backoff(attempt);
+                }
+            }
+            logger.error("NBRB {} failed after {} attempts: {}", operation, retry.maxAttempts(), lastError.getMessage());
+            throw new UpstreamUnavailableException("Server error: " + lastError.getMessage(), lastError);
+        } finally {
+            if (succeeded) {
+                circuitBreaker.onSuccess();
+            } else {
+                circuitBreaker.onFailure();
+            }
+        }
+    }
+
+    private void backoff(int attempt) {
+        long ceiling = Math.min(retry.maxBackoff().toMillis(), retry.backoff().toMillis() << (attempt - 1));
+        long sleep = ThreadLocalRandom.current().nextLong(ceiling / 2, ceiling + 1);
+        try {
+            Thread.sleep(sleep);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UpstreamUnavailableException("Interrupted while retrying NBRB call", e);
+        }
+    }
+
+    private void record(String operation, String outcome, String status, long nanos) {
+        Timer.builder(METRIC_REQUESTS)
+                .description("NBRB API call latency per attempt")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .tag("status", status)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        httpClient.close();
     }
 }
@@ -0,0 +1,28 @@
+package com.example.currency.client;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "nbrb.api")
+public record NbrbApiProperties(
+        @DefaultValue("https://api.nbrb.by/exrates/") String baseUrl,
+        @DefaultValue("PT2S") Duration connectTimeout,
+        @DefaultValue("PT5S") Duration readTimeout,
+        @DefaultValue("PT1S") Duration connectionRequestTimeout,
+        @DefaultValue("20") int maxConnections,
+        @DefaultValue Retry retry,
+        @DefaultValue Circuit circuit) {
+
+    public record Retry(
+            @DefaultValue("3") int maxAttempts,
+            @DefaultValue("PT0.2S") Duration backoff,
+            @DefaultValue("PT2S") Duration maxBackoff) {
+    }
+
+    public record Circuit(
+            @DefaultValue("5") int failureThreshold,
+            @DefaultValue("PT30S") Duration openDuration) {
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.currency.client;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record NbrbRate(
+        @JsonProperty("Cur_ID") Integer id,
+        @JsonProperty("Date") LocalDateTime date,
+        @JsonProperty("Cur_Abbreviation") String abbreviation,
+        @JsonProperty("Cur_Scale") Integer scale,
+        @JsonProperty("Cur_Name") String name,
+        @JsonProperty("Cur_OfficialRate") BigDecimal officialRate) {
+}
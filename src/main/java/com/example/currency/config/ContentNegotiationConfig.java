@@ -0,0 +1,76 @@
+package com.example.currency.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * Binary encodings of the JSON payloads for service-to-service clients,
+ * chosen with {@code Accept: application/cbor} or
+ * {@code Accept: application/x-jackson-smile}. JSON stays the default.
+ * The mappers are built from Boot's builder so that they share the JSON
+ * mapper's settings (ISO dates, property names, modules); Spring MVC's own
+ * CBOR and Smile converters would not. All three converters send bodies
+ * below the compression threshold with a Content-Length, so that Tomcat
+ * leaves them uncompressed.
+ */
+@Configuration
+public class ContentNegotiationConfig {
+
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(
+            ObjectMapper objectMapper,
+            @Value("${server.compression.min-response-size:2KB}") DataSize compressionThreshold) {
+        int threshold = (int) compressionThreshold.toBytes();
+        return new MappingJackson2HttpMessageConverter(objectMapper) {
+            @Override
+            protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+                ThresholdOutputMessage message = new ThresholdOutputMessage(outputMessage, threshold);
+                super.writeInternal(object, type, message);
+                message.finish();
+            }
+        };
+    }
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(
+            Jackson2ObjectMapperBuilder builder,
+            @Value("${server.compression.min-response-size:2KB}") DataSize compressionThreshold) {
+        int threshold = (int) compressionThreshold.toBytes();
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build()) {
+            @Override
+            protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+                ThresholdOutputMessage message = new ThresholdOutputMessage(outputMessage, threshold);
+                super.writeInternal(object, type, message);
+                message.finish();
+            }
+        };
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(
+            Jackson2ObjectMapperBuilder builder,
+            @Value("${server.compression.min-response-size:2KB}") DataSize compressionThreshold) {
+        int threshold = (int) compressionThreshold.toBytes();
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build()) {
+            @Override
+            protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+                ThresholdOutputMessage message = new ThresholdOutputMessage(outputMessage, threshold);
+                super.writeInternal(object, type, message);
+                message.finish();
+            }
+        };
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.currency.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.system.JavaVersion;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Thread model for request handling. With {@code spring.threads.virtual.enabled=true}
+ * on Java 21+, Spring Boot runs Tomcat requests, {@code @Async} and
+ * {@code @Scheduled} work on virtual threads; NBRB calls are made on the
+ * request thread, so they block a virtual thread instead of a pool thread.
+ * The NBRB client is already bounded by its connection pool. On virtual
+ * threads the database is bounded here as well, by wrapping the DataSource in
+ * a {@link BulkheadDataSource} sized to the connection pool; on platform
+ * threads the request pool already bounds it and callers keep Hikari's own
+ * connection timeout.
+ */
+@Configuration
+public class ExecutionConfig {
+    private static final Logger logger = LoggerFactory.getLogger(ExecutionConfig.class);
+
+    public ExecutionConfig(Environment environment) {
+        boolean requested = environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false);
+        if (Threading.VIRTUAL.isActive(environment)) {
+            logger.info("Handling requests on virtual threads");
+        } else if (requested) {
+            logger.warn("spring.threads.virtual.enabled is set, but Java {} has no virtual threads; "
+                    + "handling requests on platform threads", JavaVersion.getJavaVersion());
+        }
+    }
+
+    @Bean
+    public static BeanPostProcessor databaseBulkhead(Environment environment) {
+        int maxConcurrency = environment.getProperty("currency.db.max-concurrency", Integer.class,
+                environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10));
+        Duration acquireTimeout = environment.getProperty("currency.db.acquire-timeout", Duration.class,
+                Duration.ofSeconds(2));
+        boolean virtual = Threading.VIRTUAL.isActive(environment);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (virtual && maxConcurrency > 0 && bean instanceof DataSource dataSource && !(bean instanceof BulkheadDataSource)) {
+                    logger.info("Limiting DataSource {} to {} concurrent connections", beanName, maxConcurrency);
+                    return new BulkheadDataSource(dataSource, maxConcurrency, acquireTimeout);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder databaseBulkheadMetrics(DataSource dataSource) {
+        return registry -> {
+            if (dataSource instanceof BulkheadDataSource bulkhead) {
+                Gauge.builder("currency.db.bulkhead.active", bulkhead, BulkheadDataSource::getActive)
+                        .description("Connections checked out through the database bulkhead")
+                        .register(registry);
+                Gauge.builder("currency.db.bulkhead.waiting", bulkhead, BulkheadDataSource::getWaiting)
+                        .description("Callers waiting for a database permit")
+                        .register(registry);
+                FunctionCounter.builder("currency.db.bulkhead.rejected", bulkhead, BulkheadDataSource::getRejected)
+                        .description("Callers that gave up waiting for a database permit")
+                        .register(registry);
+            }
+        };
+    }
+}
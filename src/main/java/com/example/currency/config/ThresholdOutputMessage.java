@@ -0,0 +1,75 @@
+package com.example.currency.config;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Holds a body back until it reaches the compression threshold. Tomcat only
+ * honours {@code server.compression.min-response-size} for responses of known
+ * length, and Jackson flushes without one, so every JSON body would be
+ * gzipped however small. Bodies that end below the threshold are sent with a
+ * Content-Length; larger ones stream as before.
+ */
+final class ThresholdOutputMessage implements HttpOutputMessage {
+    private final HttpOutputMessage target;
+    private final int threshold;
+    private final ByteArrayOutputStream buffer;
+    private final OutputStream body = new OutputStream() {
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            if (out == null && buffer.size() + length >= threshold) {
+                out = target.getBody();
+                buffer.writeTo(out);
+            }
+            if (out != null) {
+                out.write(bytes, offset, length);
+            } else {
+                buffer.write(bytes, offset, length);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (out != null) {
+                out.flush();
+            }
+        }
+    };
+    private OutputStream out;
+
+    ThresholdOutputMessage(HttpOutputMessage target, int threshold) {
+        this.target = target;
+        this.threshold = threshold;
+        this.buffer = new ByteArrayOutputStream(threshold);
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        return target.getHeaders();
+    }
+
+    @Override
+    public OutputStream getBody() {
+        return body;
+    }
+
+    /**
+     * Sends a body that stayed below the threshold; a no-op once the body
+     * has started streaming.
+     */
+    void finish() throws IOException {
+        if (out == null) {
+            target.getHeaders().setContentLength(buffer.size());
+            buffer.writeTo(target.getBody());
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.currency.controller;
 
+import com.example.currency.cache.DataVersions;
+import com.example.currency.dto.CurrencyView;
 import com.example.currency.models.CurrencyInfo;
 import com.example.currency.service.CurrencyService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -16,6 +18,7 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Optional;
@@ -25,42 +28,51 @@ import java.util.Optional;
 @Tag(name = "Currency Info", description = "API for managing currency information")
 public class CurrencyInfoController {
     private final CurrencyService currencyService;
+    private final HttpCachePolicy cachePolicy;
 
-    public CurrencyInfoController(CurrencyService currencyService) {
+    public CurrencyInfoController(CurrencyService currencyService, HttpCachePolicy cachePolicy) {
         this.currencyService = currencyService;
+        this.cachePolicy = cachePolicy;
     }
 
     @Operation(summary = "Get all currencies", description = "Retrieve a list of all currencies")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Successfully retrieved currencies"),
+            @ApiResponse(responseCode = "304", description = "Currencies unchanged since the cached response"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @GetMapping
-    public ResponseEntity<List<CurrencyInfo>> getAllCurrencies() {
-        return ResponseEntity.ok(currencyService.getAllCurrencies());
+    public ResponseEntity<List<CurrencyView>> getAllCurrencies(WebRequest request) {
+        return cachePolicy.conditional(request, DataVersions.Dataset.CURRENCIES, cachePolicy.untilNextPublication(),
+                () -> ResponseEntity.ok(currencyService.getAllCurrencies()));
     }
 
     @Operation(summary = "Get all currencies from database", description = "Retrieve all currencies stored in the database")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Successfully retrieved currencies"),
+            @ApiResponse(responseCode = "304", description = "Currencies unchanged since the cached response"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @GetMapping("/db")
-    public ResponseEntity<List<CurrencyInfo>> getAllCurrenciesFromDb() {
-        return ResponseEntity.ok(currencyService.getAllCurrenciesFromDb());
+    public ResponseEntity<List<CurrencyView>> getAllCurrenciesFromDb(WebRequest request) {
+        return cachePolicy.conditional(request, DataVersions.Dataset.CURRENCIES, cachePolicy.untilNextPublication(),
+                () -> ResponseEntity.ok(currencyService.getAllCurrenciesFromDb()));
     }
 
     @Operation(summary = "Get currency by ID", description = "Retrieve a currency by its ID")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Successfully retrieved currency"),
+            @ApiResponse(responseCode = "304", description = "Currency unchanged since the cached response"),
             @ApiResponse(responseCode = "404", description = "Currency not found"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @GetMapping("/{id}")
-    public ResponseEntity<CurrencyInfo> getCurrencyById(@PathVariable Integer id) {
-        Optional<CurrencyInfo> currency = currencyService.getCurrencyById(id);
-        return currency.map(ResponseEntity::ok)
-                .orElseGet(() -> ResponseEntity.notFound().build());
+    public ResponseEntity<CurrencyView> getCurrencyById(@PathVariable Integer id, WebRequest request) {
+        return cachePolicy.conditional(request, DataVersions.Dataset.CURRENCIES, cachePolicy.untilNextPublication(), () -> {
+            Optional<CurrencyView> currency = currencyService.getCurrencyById(id);
+            return currency.map(ResponseEntity::ok)
+                    .orElseGet(() -> ResponseEntity.notFound().build());
+        });
     }
 
     @Operation(summary = "Create a currency", description = "Create a new currency")
@@ -70,9 +82,9 @@ public class CurrencyInfoController {
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @PostMapping
-    public ResponseEntity<CurrencyInfo> createCurrency(@Valid @RequestBody CurrencyInfo currencyInfo) {
+    public ResponseEntity<CurrencyView> createCurrency(@Valid @RequestBody CurrencyInfo currencyInfo) {
         CurrencyInfo created = currencyService.createCurrency(currencyInfo);
-        return ResponseEntity.ok(created);
+        return ResponseEntity.ok(CurrencyView.from(created));
     }
 
     @Operation(summary = "Update a currency", description = "Update an existing currency by ID")
@@ -83,9 +95,9 @@ public class CurrencyInfoController {
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @PutMapping("/{id}")
-    public ResponseEntity<CurrencyInfo> updateCurrency(@PathVariable Integer id, @Valid @RequestBody CurrencyInfo currencyInfo) {
+    public ResponseEntity<CurrencyView> updateCurrency(@PathVariable Integer id, @Valid @RequestBody CurrencyInfo currencyInfo) {
         CurrencyInfo updated = currencyService.updateCurrency(id, currencyInfo);
-        return ResponseEntity.ok(updated);
+        return ResponseEntity.ok(CurrencyView.from(updated));
     }
 
     @Operation(summary = "Delete a currency", description = "Delete a currency by ID")
@@ -1,12 +1,28 @@
 package com.example.currency.controller;
 
+import com.example.currency.cache.DataVersions;
+import com.example.currency.dto.ImportResult;
+import com.example.currency.dto.RateStatsBucket;
+import com.example.currency.dto.RateView;
+import com.example.currency.history.StatsBucket;
 import com.example.currency.models.CurrencyRate;
+import com.example.currency.service.BatchConversionService;
 import com.example.currency.service.CurrencyConversionService;
+import com.example.currency.service.ExportCapacityException;
+import com.example.currency.service.RateExportService;
+import com.example.currency.service.RateImportService;
+import com.example.currency.service.RateStatisticsService;
+import com.example.currency.stream.RateUpdateBroadcaster;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -14,29 +30,62 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/currency/rates")
 @Tag(name = "Currency Rates", description = "API for managing currency rates and conversions")
 public class CurrencyRateController {
+    private static final String TEXT_CSV_VALUE = "text/csv";
+
     private final CurrencyConversionService conversionService;
+    private final BatchConversionService batchConversionService;
+    private final RateStatisticsService statisticsService;
+    private final RateImportService importService;
+    private final HttpCachePolicy cachePolicy;
+    private final RateUpdateBroadcaster updateBroadcaster;
+    private final RateExportService exportService;
+    private final int maxPageSize;
 
-    public CurrencyRateController(CurrencyConversionService conversionService) {
+    public CurrencyRateController(
+            CurrencyConversionService conversionService,
+            BatchConversionService batchConversionService,
+            RateStatisticsService statisticsService,
+            RateImportService importService,
+            HttpCachePolicy cachePolicy,
+            RateUpdateBroadcaster updateBroadcaster,
+            RateExportService exportService,
+            @Value("${currency.rates.max-page-size:1000}") int maxPageSize) {
         this.conversionService = conversionService;
+        this.batchConversionService = batchConversionService;
+        this.statisticsService = statisticsService;
+        this.importService = importService;
+        this.cachePolicy = cachePolicy;
+        this.updateBroadcaster = updateBroadcaster;
+        this.exportService = exportService;
+        this.maxPageSize = maxPageSize;
     }
 
     @Operation(summary = "Convert currency", description = "Convert an amount from one currency to another")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Conversion successful"),
+            @ApiResponse(responseCode = "304", description = "Rates unchanged since the cached response"),
             @ApiResponse(responseCode = "400", description = "Invalid input parameters"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
@@ -44,40 +93,167 @@ public class CurrencyRateController {
     public ResponseEntity<?> convert(
             @RequestParam Integer from,
             @RequestParam Integer to,
-            @RequestParam BigDecimal amount) {
+            @RequestParam BigDecimal amount,
+            WebRequest request) {
         if (amount.compareTo(BigDecimal.ZERO) <= 0) {
             return ResponseEntity.badRequest().body(
                     Map.of("error", "Amount must be greater than zero"));
         }
-        BigDecimal result = conversionService.convertCurrency(from, to, amount);
-        return ResponseEntity.ok(Map.of(
-                "amount", amount,
-                "from", from,
-                "to", to,
-                "result", result));
+        return cachePolicy.conditional(request, DataVersions.Dataset.RATES, cachePolicy.untilNextPublication(), () -> {
+            BigDecimal result = conversionService.convertCurrency(from, to, amount);
+            return ResponseEntity.ok(Map.of(
+                    "amount", amount,
+                    "from", from,
+                    "to", to,
+                    "result", result));
+        });
+    }
+
+    @Operation(summary = "Convert a batch of amounts",
+            description = "Convert a JSON array or NDJSON stream of {from, to, amount} items; results are streamed back as NDJSON")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Results streamed, one line per item"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PostMapping(value = "/convert/batch",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> convertBatch(HttpServletRequest request) {
+        StreamingResponseBody body = out -> batchConversionService.convert(request.getInputStream(), out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    @Operation(summary = "Bulk import historical rates",
+            description = "Import CSV (abbreviation,date,rate,scale) or NDJSON {abbreviation, date, rate, scale} records "
+                    + "using batched upserts; existing (currency, date) rows are overwritten")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Import finished, see counts and errors"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PostMapping(value = "/import",
+            consumes = {TEXT_CSV_VALUE, MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<ImportResult> importRates(HttpServletRequest request) throws IOException {
+        RateImportService.Format format = MediaType.parseMediaType(request.getContentType())
+                .isCompatibleWith(MediaType.parseMediaType(TEXT_CSV_VALUE))
+                ? RateImportService.Format.CSV
+                : RateImportService.Format.NDJSON;
+        return ResponseEntity.ok(importService.importRates(request.getInputStream(), format));
     }
 
-    @Operation(summary = "Get all rates", description = "Retrieve a list of all currency rates")
+    @Operation(summary = "Get all rates",
+            description = "Retrieve all currency rates, or with limit one page of rates in id order after the given id; "
+                    + "the Link header then points to the next page. Clients reading a large history should page: "
+                    + "the unpaged list is loaded in one piece")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Successfully retrieved rates"),
+            @ApiResponse(responseCode = "304", description = "Rates unchanged since the cached response"),
+            @ApiResponse(responseCode = "400", description = "Invalid page parameters"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @GetMapping
-    public ResponseEntity<List<CurrencyRate>> getAllRates() {
-        return ResponseEntity.ok(conversionService.getAllRates());
+    public ResponseEntity<?> getAllRates(
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit,
+            WebRequest request) {
+        if (limit == null) {
+            if (after != null) {
+                return ResponseEntity.badRequest().body(Map.of("error", "after requires limit"));
+            }
+            return cachePolicy.conditional(request, DataVersions.Dataset.RATES, cachePolicy.untilNextPublication(),
+                    () -> ResponseEntity.ok(conversionService.getAllRates()));
+        }
+        if (limit < 1 || limit > maxPageSize) {
+            return ResponseEntity.badRequest().body(
+                    Map.of("error", "limit must be between 1 and " + maxPageSize));
+        }
+        long afterId = after != null ? after : 0;
+        return cachePolicy.conditional(request, DataVersions.Dataset.RATES, cachePolicy.untilNextPublication(), () -> {
+            List<RateView> page = conversionService.getRatesAfter(afterId, limit);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (page.size() == limit) {
+                String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                        .replaceQueryParam("after", page.get(page.size() - 1).id())
+                        .replaceQueryParam("limit", limit)
+                        .toUriString();
+                response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+            }
+            return response.body(page);
+        });
+    }
+
+    @Operation(summary = "Export rate history",
+            description = "Stream every rate, optionally filtered by date range and currency ids, as NDJSON or, "
+                    + "with Accept: text/csv, as CSV; the output can be fed back to the import endpoint")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Rates streamed, one line per rate"),
+            @ApiResponse(responseCode = "400", description = "Invalid date range"),
+            @ApiResponse(responseCode = "503", description = "Too many exports already running"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportRates(
+            @RequestParam(required = false) LocalDate from,
+            @RequestParam(required = false) LocalDate to,
+            @RequestParam(required = false) Set<Integer> currencyId,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        if (from != null && to != null && from.isAfter(to)) {
+            // the declared body type has to stay StreamingResponseBody for Spring to stream it
+            return ResponseEntity.badRequest()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(out -> out.write("{\"error\":\"from must not be after to\"}".getBytes(StandardCharsets.UTF_8)));
+        }
+        boolean csv = accept != null && MediaType.parseMediaTypes(accept).stream()
+                .anyMatch(type -> type.isCompatibleWith(MediaType.parseMediaType(TEXT_CSV_VALUE)) && !type.isWildcardType());
+        RateImportService.Format format = csv ? RateImportService.Format.CSV : RateImportService.Format.NDJSON;
+        RateExportService.Slot slot;
+        try {
+            slot = exportService.reserveSlot();
+        } catch (ExportCapacityException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(out -> out.write(("{\"error\":\"Service unavailable: " + e.getMessage() + "\"}")
+                            .getBytes(StandardCharsets.UTF_8)));
+        }
+        StreamingResponseBody body = out -> {
+            try (slot) {
+                exportService.export(from, to, currencyId, format, out);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(csv ? MediaType.parseMediaType(TEXT_CSV_VALUE) : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"rates." + (csv ? "csv" : "ndjson") + "\"")
+                .body(body);
+    }
+
+    @Operation(summary = "Stream rate updates",
+            description = "Server-Sent Events stream of created, updated, deleted and ingested rates, "
+                    + "optionally limited to the given currency ids")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Stream opened"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamRates(@RequestParam(required = false) Set<Integer> currencyId) {
+        return updateBroadcaster.subscribe(currencyId != null ? currencyId : Set.of());
     }
 
     @Operation(summary = "Get rate by ID", description = "Retrieve a currency rate by its ID")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Successfully retrieved rate"),
+            @ApiResponse(responseCode = "304", description = "Rate unchanged since the cached response"),
             @ApiResponse(responseCode = "404", description = "Rate not found"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @GetMapping("/{id}")
-    public ResponseEntity<CurrencyRate> getRateById(@PathVariable Long id) {
-        Optional<CurrencyRate> rate = conversionService.getRateById(id);
-        return rate.map(ResponseEntity::ok)
-                .orElseGet(() -> ResponseEntity.notFound().build());
+    public ResponseEntity<RateView> getRateById(@PathVariable Long id, WebRequest request) {
+        return cachePolicy.conditional(request, DataVersions.Dataset.RATES, cachePolicy.untilNextPublication(), () -> {
+            Optional<RateView> rate = conversionService.getRateById(id);
+            return rate.map(ResponseEntity::ok)
+                    .orElseGet(() -> ResponseEntity.notFound().build());
+        });
     }
 
     @Operation(summary = "Create a rate", description = "Create a new currency rate")
@@ -87,9 +263,9 @@ public class CurrencyRateController {
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @PostMapping
-    public ResponseEntity<CurrencyRate> createRate(@Valid @RequestBody CurrencyRate rate) {
+    public ResponseEntity<RateView> createRate(@Valid @RequestBody CurrencyRate rate) {
         CurrencyRate created = conversionService.createRate(rate);
-        return ResponseEntity.ok(created);
+        return ResponseEntity.ok(RateView.from(created));
     }
 
     @Operation(summary = "Update a rate", description = "Update an existing currency rate by ID")
@@ -100,9 +276,9 @@ public class CurrencyRateController {
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @PutMapping("/{id}")
-    public ResponseEntity<CurrencyRate> updateRate(@PathVariable Long id, @Valid @RequestBody CurrencyRate rate) {
+    public ResponseEntity<RateView> updateRate(@PathVariable Long id, @Valid @RequestBody CurrencyRate rate) {
         CurrencyRate updated = conversionService.updateRate(id, rate);
-        return ResponseEntity.ok(updated);
+        return ResponseEntity.ok(RateView.from(updated));
     }
 
     @Operation(summary = "Delete a rate", description = "Delete a currency rate by ID")
@@ -120,14 +296,50 @@ public class CurrencyRateController {
     @Operation(summary = "Get rates by abbreviation and date", description = "Retrieve currency rates by abbreviation and date")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Successfully retrieved rates"),
+            @ApiResponse(responseCode = "304", description = "Rates unchanged since the cached response"),
             @ApiResponse(responseCode = "400", description = "Invalid abbreviation or date"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @GetMapping("/by-abbreviation")
-    public ResponseEntity<List<CurrencyRate>> getRatesByAbbreviationAndDate(
+    public ResponseEntity<List<RateView>> getRatesByAbbreviationAndDate(
             @RequestParam String abbreviation,
-            @RequestParam LocalDate date) {
-        List<CurrencyRate> rates = conversionService.getRatesByAbbreviationAndDate(abbreviation, date);
-        return ResponseEntity.ok(rates);
+            @RequestParam LocalDate date,
+            WebRequest request) {
+        return cachePolicy.conditional(request, DataVersions.Dataset.RATES, cachePolicy.forRateDate(date),
+                () -> ResponseEntity.ok(conversionService.getRatesByAbbreviationAndDate(abbreviation, date)));
+    }
+
+    @Operation(summary = "Get rate statistics",
+            description = "Min, max, average, first, last and percent change of a currency's rate per week or month")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Successfully computed statistics"),
+            @ApiResponse(responseCode = "304", description = "Rates unchanged since the cached response"),
+            @ApiResponse(responseCode = "400", description = "Invalid date range or bucket"),
+            @ApiResponse(responseCode = "404", description = "Currency not found"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping("/{abbreviation}/stats")
+    public ResponseEntity<?> getRateStats(
+            @PathVariable String abbreviation,
+            @RequestParam LocalDate from,
+            @RequestParam LocalDate to,
+            @RequestParam(defaultValue = "month") String bucket,
+            WebRequest request) {
+        if (from.isAfter(to)) {
+            return ResponseEntity.badRequest().body(
+                    Map.of("error", "from must not be after to"));
+        }
+        StatsBucket statsBucket;
+        try {
+            statsBucket = StatsBucket.from(bucket);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(
+                    Map.of("error", "bucket must be one of: week, month"));
+        }
+        return cachePolicy.conditional(request, DataVersions.Dataset.RATES, cachePolicy.forRateDate(to), () -> {
+            Optional<List<RateStatsBucket>> stats = statisticsService.getStats(abbreviation, from, to, statsBucket);
+            return stats.<ResponseEntity<?>>map(ResponseEntity::ok)
+                    .orElseGet(() -> ResponseEntity.notFound().build());
+        });
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,125 @@
+package com.example.currency.controller;
+
+import com.example.currency.cache.DataVersions;
+import com.example.currency.schedule.RatePublicationSchedule;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * Conditional GET support for the read endpoints. Validators are derived from
+ * the data set version and the current rate date, so If-None-Match and
+ * If-Modified-Since are answered with 304 before the body is loaded or
+ * serialized. Responses may be cached until the next rate publication; rates
+ * for past dates are final and get a long max-age. Bodies are negotiated
+ * (JSON, CBOR, Smile), so responses vary by Accept.
+ */
+@Component
+public class HttpCachePolicy {
+    private final DataVersions dataVersions;
+    private final RatePublicationSchedule schedule;
+    private final Duration finalRatesMaxAge;
+
+    public HttpCachePolicy(
+            DataVersions dataVersions,
+            RatePublicationSchedule schedule,
+            @Value("${currency.http.final-rates-max-age:P30D}") Duration finalRatesMaxAge) {
+        this.dataVersions = dataVersions;
+        this.schedule = schedule;
+        this.finalRatesMaxAge = finalRatesMaxAge;
+    }
+
+    public CacheControl untilNextPublication() {
+        return CacheControl.maxAge(schedule.untilNextPublication()).cachePublic();
+    }
+
+    public CacheControl forRateDate(LocalDate date) {
+        return schedule.isFinal(date)
+                ? CacheControl.maxAge(finalRatesMaxAge).cachePublic()
+                : untilNextPublication();
+    }
+
+    public <T> ResponseEntity<T> conditional(
+            WebRequest request,
+            DataVersions.Dataset dataset,
+            CacheControl cacheControl,
+            Supplier<ResponseEntity<T>> response) {
+        DataVersions.Stamp stamp = dataVersions.current(dataset);
+        LocalDate rateDate = schedule.servedRateDate();
+        String etag = etag(dataset, stamp, rateDate);
+        Instant published = schedule.publishedAt(rateDate);
+        Instant lastModified = stamp.modifiedAt().isAfter(published) ? stamp.modifiedAt() : published;
+
+        // not WebRequest.checkNotModified, which also puts the validators on 404s
+        if (notModified(request, etag, lastModified)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .lastModified(lastModified)
+                    .cacheControl(cacheControl)
+                    .varyBy(HttpHeaders.ACCEPT)
+                    .build();
+        }
+        ResponseEntity<T> result = response.get();
+        if (!result.getStatusCode().is2xxSuccessful()) {
+            return result;
+        }
+        return ResponseEntity.status(result.getStatusCode())
+                .headers(result.getHeaders())
+                .eTag(etag)
+                .lastModified(lastModified)
+                .cacheControl(cacheControl)
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(result.getBody());
+    }
+
+    static boolean notModified(WebRequest request, String etag, Instant lastModified) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            String opaque = opaque(etag);
+            for (String candidate : ifNoneMatch.split(",")) {
+                String trimmed = candidate.trim();
+                if (trimmed.equals("*") || opaque(trimmed).equals(opaque)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        String ifModifiedSince = request.getHeader(HttpHeaders.IF_MODIFIED_SINCE);
+        if (ifModifiedSince == null) {
+            return false;
+        }
+        try {
+            Instant since = ZonedDateTime.parse(ifModifiedSince, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+            return !lastModified.isAfter(since);
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    static String etag(DataVersions.Dataset dataset, DataVersions.Stamp stamp, LocalDate rateDate) {
+        // weak: the same version may be rendered in more than one media type
+        String version = Long.toHexString(stamp.version());
+        if (stamp.unpublished() != 0) {
+            version += "." + Long.toHexString(stamp.unpublished());
+        }
+        return "W/\"" + dataset.name().toLowerCase(Locale.ROOT) + "-" + version + "-" + rateDate + "\"";
+    }
+
+    private static String opaque(String etag) {
+        // If-None-Match uses the weak comparison
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+}
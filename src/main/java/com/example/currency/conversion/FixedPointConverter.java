@@ -0,0 +1,127 @@
+package com.example.currency.conversion;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+
+/**
+ * Currency conversion on scaled longs. Produces exactly the value of
+ * {@code amount * fromPerUnit / toPerUnit} rounded HALF_UP to 2 decimals, the
+ * same as the BigDecimal formula, and falls back to BigDecimal when an
+ * intermediate product does not fit in a long.
+ * <p>
+ * Only the {@code long} overloads are allocation-free. The BigDecimal overload
+ * replaces the two BigDecimal divisions with long arithmetic, but it still
+ * allocates the result and, through {@link BigDecimal#unscaledValue()}, a
+ * BigInteger for the amount: BigDecimal has no public accessor for its compact
+ * long, and every workaround (movePointRight, scaleByPowerOfTen) allocates
+ * a BigDecimal of the same size instead.
+ */
+public final class FixedPointConverter {
+    public static final int RESULT_SCALE = 2;
+    public static final long OVERFLOW = Long.MIN_VALUE;
+
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L,
+            1_000_000_000L, 10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L,
+            10_000_000_000_000L, 100_000_000_000_000L, 1_000_000_000_000_000L,
+            10_000_000_000_000_000L, 100_000_000_000_000_000L, 1_000_000_000_000_000_000L
+    };
+
+    private FixedPointConverter() {
+    }
+
+    public static BigDecimal convert(BigDecimal amount, long fromPerUnitRate, long toPerUnitRate) {
+        if (toPerUnitRate == 0) {
+            throw new ArithmeticException("Division by zero");
+        }
+        if (amount.precision() <= 18) {
+            long cents = convert(amount.unscaledValue().longValue(), amount.scale(), fromPerUnitRate, toPerUnitRate);
+            if (cents != OVERFLOW) {
+                return BigDecimal.valueOf(cents, RESULT_SCALE);
+            }
+        }
+        return convertExact(amount, fromPerUnitRate, toPerUnitRate);
+    }
+
+    /**
+     * Converts {@code amountUnscaled / 10^amountScale} using per-unit rates
+     * unscaled at {@link RateMatrix#RATE_SCALE}. Returns the result unscaled at
+     * {@link #RESULT_SCALE}, or {@link #OVERFLOW} if it cannot be computed in a long.
+     */
+    public static long convert(long amountUnscaled, int amountScale, long fromPerUnitRate, long toPerUnitRate) {
+        // amount * from / to = A * F / (T * 10^s); in cents that is A * F * 10^(2 - s) / T
+        long numerator = multiply(amountUnscaled, fromPerUnitRate);
+        long denominator = toPerUnitRate;
+        int shift = RESULT_SCALE - amountScale;
+        if (shift > 0) {
+            numerator = multiply(numerator, powerOfTen(shift));
+        } else if (shift < 0) {
+            denominator = multiply(denominator, powerOfTen(-shift));
+        }
+        if (numerator == OVERFLOW || denominator == OVERFLOW || denominator == 0) {
+            return OVERFLOW;
+        }
+        return divideHalfUp(numerator, denominator);
+    }
+
+    /**
+     * Per-unit rate {@code officialRate / curScale} rounded HALF_UP to
+     * {@link RateMatrix#RATE_SCALE} decimals and returned unscaled, or
+     * {@link #OVERFLOW} if it cannot be computed in a long.
+     */
+    public static long perUnitRate(long officialRateUnscaled, int officialRateScale, int curScale) {
+        long numerator = officialRateUnscaled;
+        long denominator = curScale;
+        int shift = RateMatrix.RATE_SCALE - officialRateScale;
+        if (shift > 0) {
+            numerator = multiply(numerator, powerOfTen(shift));
+        } else if (shift < 0) {
+            denominator = multiply(denominator, powerOfTen(-shift));
+        }
+        if (numerator == OVERFLOW || denominator == OVERFLOW || denominator == 0) {
+            return OVERFLOW;
+        }
+        return divideHalfUp(numerator, denominator);
+    }
+
+    static BigDecimal convertExact(BigDecimal amount, long fromPerUnitRate, long toPerUnitRate) {
+        return amount.multiply(BigDecimal.valueOf(fromPerUnitRate, RateMatrix.RATE_SCALE))
+                .divide(BigDecimal.valueOf(toPerUnitRate, RateMatrix.RATE_SCALE), RESULT_SCALE, RoundingMode.HALF_UP);
+    }
+
+    static long perUnitRateExact(BigDecimal officialRate, int curScale) {
+        BigInteger unscaled = officialRate.divide(BigDecimal.valueOf(curScale), RateMatrix.RATE_SCALE, RoundingMode.HALF_UP)
+                .unscaledValue();
+        return unscaled.longValueExact();
+    }
+
+    private static long divideHalfUp(long numerator, long denominator) {
+        long quotient = numerator / denominator;
+        long remainder = numerator % denominator;
+        if (remainder != 0) {
+            long absRemainder = Math.abs(remainder);
+            long absDenominator = Math.abs(denominator);
+            if (absRemainder >= absDenominator - absRemainder) {
+                quotient += (numerator ^ denominator) < 0 ? -1 : 1;
+            }
+        }
+        return quotient;
+    }
+
+    private static long multiply(long a, long b) {
+        if (a == OVERFLOW || b == OVERFLOW) {
+            return OVERFLOW;
+        }
+        long high = Math.multiplyHigh(a, b);
+        long low = a * b;
+        if ((high == 0 && low >= 0) || (high == -1 && low < 0)) {
+            return low;
+        }
+        return OVERFLOW;
+    }
+
+    private static long powerOfTen(int exponent) {
+        return exponent < POWERS_OF_TEN.length ? POWERS_OF_TEN[exponent] : OVERFLOW;
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.currency.conversion;
+
+import com.example.currency.models.CurrencyRate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Immutable snapshot of one day's per-unit rates, indexed by currency id.
+ * Rates are stored as the per-unit rate rounded to 6 decimals, unscaled
+ * (i.e. in millionths), which is exactly the intermediate value the
+ * conversion formula has always used.
+ */
+public final class RateMatrix {
+    public static final int MAX_CURRENCY_ID = 1 << 16;
+    public static final int RATE_SCALE = 6;
+    public static final long MISSING = Long.MIN_VALUE;
+
+    private final LocalDate date;
+    private final long[] perUnitRates;
+
+    private RateMatrix(LocalDate date, long[] perUnitRates) {
+        this.date = date;
+        this.perUnitRates = perUnitRates;
+    }
+
+    public static RateMatrix empty(LocalDate date) {
+        return new RateMatrix(date, new long[0]);
+    }
+
+    public static Builder builder(LocalDate date) {
+        return new Builder(date);
+    }
+
+    public static long perUnitRate(CurrencyRate rate) {
+        return perUnitRate(rate.getOfficialRate(), rate.getScale());
+    }
+
+    public static long perUnitRate(BigDecimal officialRate, int scale) {
+        if (officialRate.precision() <= 18) {
+            long perUnitRate = FixedPointConverter.perUnitRate(officialRate.unscaledValue().longValue(), officialRate.scale(), scale);
+            if (perUnitRate != FixedPointConverter.OVERFLOW) {
+                return perUnitRate;
+            }
+        }
+        return FixedPointConverter.perUnitRateExact(officialRate, scale);
+    }
+
+    public static BigDecimal convert(BigDecimal amount, long fromPerUnitRate, long toPerUnitRate) {
+        return FixedPointConverter.convert(amount, fromPerUnitRate, toPerUnitRate);
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public boolean contains(int currencyId) {
+        return perUnitRate(currencyId) != MISSING;
+    }
+
+    public long perUnitRate(int currencyId) {
+        if (currencyId < 0 || currencyId >= perUnitRates.length) {
+            return MISSING;
+        }
+        return perUnitRates[currencyId];
+    }
+
+    public int size() {
+        int size = 0;
+        for (long rate : perUnitRates) {
+            if (rate != MISSING) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    public void forEach(RateConsumer consumer) {
+        for (int currencyId = 0; currencyId < perUnitRates.length; currencyId++) {
+            if (perUnitRates[currencyId] != MISSING) {
+                consumer.accept(currencyId, perUnitRates[currencyId]);
+            }
+        }
+    }
+
+    public Builder toBuilder() {
+        Builder builder = new Builder(date);
+        builder.perUnitRates = perUnitRates.clone();
+        return builder;
+    }
+
+    public RateMatrix with(int currencyId, long perUnitRate) {
+        if (!isIndexable(currencyId)) {
+            return this;
+        }
+        long[] rates = Arrays.copyOf(perUnitRates, Math.max(perUnitRates.length, currencyId + 1));
+        Arrays.fill(rates, perUnitRates.length, rates.length, MISSING);
+        rates[currencyId] = perUnitRate;
+        return new RateMatrix(date, rates);
+    }
+
+    public RateMatrix without(int currencyId) {
+        if (!contains(currencyId)) {
+            return this;
+        }
+        long[] rates = perUnitRates.clone();
+        rates[currencyId] = MISSING;
+        return new RateMatrix(date, rates);
+    }
+
+    private static boolean isIndexable(int currencyId) {
+        return currencyId >= 0 && currencyId < MAX_CURRENCY_ID;
+    }
+
+    @FunctionalInterface
+    public interface RateConsumer {
+        void accept(int currencyId, long perUnitRate);
+    }
+
+    public static final class Builder {
+        private final LocalDate date;
+        private long[] perUnitRates = new long[0];
+
+        private Builder(LocalDate date) {
+            this.date = date;
+        }
+
+        public Builder put(int currencyId, long perUnitRate) {
+            if (!isIndexable(currencyId)) {
+                return this;
+            }
+            if (currencyId >= perUnitRates.length) {
+                int oldLength = perUnitRates.length;
+                perUnitRates = Arrays.copyOf(perUnitRates, Math.max(currencyId + 1, oldLength * 2));
+                Arrays.fill(perUnitRates, oldLength, perUnitRates.length, MISSING);
+            }
+            perUnitRates[currencyId] = perUnitRate;
+            return this;
+        }
+
+        public RateMatrix build() {
+            return new RateMatrix(date, perUnitRates.clone());
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.currency.conversion;
+
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Component
+public class RateMatrixHolder {
+    private final AtomicReference<RateMatrix> current = new AtomicReference<>(RateMatrix.empty(LocalDate.MIN));
+
+    public RateMatrix get() {
+        return current.get();
+    }
+
+    /**
+     * Replaces the current matrix unless it is for a later date, so a reader
+     * that loaded the previous day just before a rollover cannot undo it.
+     */
+    public void publish(RateMatrix matrix) {
+        current.updateAndGet(existing -> matrix.getDate().isBefore(existing.getDate()) ? existing : matrix);
+    }
+
+    public void put(LocalDate date, int currencyId, long perUnitRate) {
+        current.updateAndGet(matrix -> matrix.getDate().equals(date) ? matrix.with(currencyId, perUnitRate) : matrix);
+    }
+
+    public void putAll(LocalDate date, Map<Integer, Long> perUnitRates) {
+        current.updateAndGet(matrix -> {
+            if (date.isBefore(matrix.getDate())) {
+                return matrix;
+            }
+            RateMatrix.Builder builder = matrix.getDate().equals(date) ? matrix.toBuilder() : RateMatrix.builder(date);
+            perUnitRates.forEach(builder::put);
+            return builder.build();
+        });
+    }
+
+    public void remove(LocalDate date, int currencyId) {
+        current.updateAndGet(matrix -> matrix.getDate().equals(date) ? matrix.without(currencyId) : matrix);
+    }
+
+    /**
+     * Drops the whole matrix if it is for the given date, so the next reader
+     * reloads it from the database.
+     */
+    public void evict(LocalDate date) {
+        current.updateAndGet(matrix -> matrix.getDate().equals(date) ? RateMatrix.empty(LocalDate.MIN) : matrix);
+    }
+}
@@ -0,0 +1,6 @@
+package com.example.currency.dto;
+
+import java.math.BigDecimal;
+
+public record ConversionRequest(Integer from, Integer to, BigDecimal amount) {
+}
@@ -0,0 +1,20 @@
+package com.example.currency.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.math.BigDecimal;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ConversionResult(Integer from, Integer to, BigDecimal amount, BigDecimal result, String error) {
+    public static ConversionResult success(ConversionRequest request, BigDecimal result) {
+        return new ConversionResult(request.from(), request.to(), request.amount(), result, null);
+    }
+
+    public static ConversionResult failure(ConversionRequest request, String error) {
+        return new ConversionResult(request.from(), request.to(), request.amount(), null, error);
+    }
+
+    public static ConversionResult invalid(String error) {
+        return new ConversionResult(null, null, null, null, error);
+    }
+}
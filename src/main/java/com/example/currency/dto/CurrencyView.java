@@ -0,0 +1,21 @@
+package com.example.currency.dto;
+
+import com.example.currency.models.CurrencyInfo;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Read model of a currency: the directory fields only, without the rate
+ * collection of the entity.
+ */
+public record CurrencyView(
+        Integer id,
+        @JsonProperty("Cur_Code") String code,
+        @JsonProperty("Cur_Abbreviation") String abbreviation,
+        @JsonProperty("Cur_Name") String name,
+        @JsonProperty("Cur_Scale") Integer scale) {
+
+    public static CurrencyView from(CurrencyInfo currency) {
+        return new CurrencyView(currency.getId(), currency.getCode(), currency.getAbbreviation(),
+                currency.getName(), currency.getScale());
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.currency.dto;
+
+import java.util.List;
+
+public record ImportResult(
+        long read,
+        long imported,
+        long skipped,
+        long elapsedMillis,
+        double rowsPerSecond,
+        List<String> errors) {
+}
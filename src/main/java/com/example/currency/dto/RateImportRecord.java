@@ -0,0 +1,7 @@
+package com.example.currency.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public record RateImportRecord(String abbreviation, LocalDate date, BigDecimal rate, Integer scale) {
+}
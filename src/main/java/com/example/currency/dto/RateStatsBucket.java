@@ -0,0 +1,16 @@
+package com.example.currency.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public record RateStatsBucket(
+        LocalDate start,
+        LocalDate end,
+        int count,
+        BigDecimal min,
+        BigDecimal max,
+        BigDecimal average,
+        BigDecimal first,
+        BigDecimal last,
+        BigDecimal changePercent) {
+}
@@ -0,0 +1,28 @@
+package com.example.currency.dto;
+
+import com.example.currency.models.CurrencyRate;
+import com.example.currency.repository.RateRow;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * One rate change pushed to stream subscribers. Ingested rows are upserted in
+ * bulk, so their rate id is not known and is omitted.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record RateUpdate(Type type, Long id, Integer currencyId, LocalDate date, BigDecimal officialRate, Integer scale) {
+    public enum Type {
+        CREATED, UPDATED, DELETED, INGESTED
+    }
+
+    public static RateUpdate of(Type type, CurrencyRate rate) {
+        Integer currencyId = rate.getCurrency() != null ? rate.getCurrency().getId() : null;
+        return new RateUpdate(type, rate.getId(), currencyId, rate.getDate(), rate.getOfficialRate(), rate.getScale());
+    }
+
+    public static RateUpdate ingested(RateRow row) {
+        return new RateUpdate(Type.INGESTED, null, row.currencyId(), row.date(), row.officialRate(), row.scale());
+    }
+}
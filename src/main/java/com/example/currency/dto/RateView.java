@@ -0,0 +1,31 @@
+package com.example.currency.dto;
+
+import com.example.currency.models.CurrencyInfo;
+import com.example.currency.models.CurrencyRate;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Read model of a rate with its currency flattened to id and abbreviation,
+ * so a list is one joined query and serializes without walking entities.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record RateView(
+        Long id,
+        @JsonProperty("Cur_ID") Integer currencyId,
+        @JsonProperty("Cur_Abbreviation") String abbreviation,
+        @JsonProperty("Cur_OfficialRate") BigDecimal officialRate,
+        @JsonProperty("Cur_Scale") Integer scale,
+        @JsonProperty("Date") LocalDate date) {
+
+    public static RateView from(CurrencyRate rate) {
+        CurrencyInfo currency = rate.getCurrency();
+        return new RateView(rate.getId(),
+                currency != null ? currency.getId() : null,
+                currency != null ? currency.getAbbreviation() : null,
+                rate.getOfficialRate(), rate.getScale(), rate.getDate());
+    }
+}
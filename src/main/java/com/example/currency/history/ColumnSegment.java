@@ -0,0 +1,373 @@
+package com.example.currency.history;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * History of one currency as two column files: epoch days (int32) and per-unit
+ * rates (int64), both little-endian and sorted by day. The files are mapped
+ * read-write in steps of {@link #GROWTH_ROWS} rows and written through the
+ * mapping, so an append only publishes a new row count and a remap happens
+ * only when the history outgrows the mapped region. Rows past the count are
+ * zero; a real rate is never zero, which is how the count is recovered when
+ * the files are reopened.
+ * <p>
+ * Rows below the published count are never written again, because readers
+ * may be scanning them. Anything other than an append past the last day
+ * (a replaced or older day, a removal, a clear) writes the whole history to
+ * the next generation of files, {@code <id>.<generation>.days/.rates}, and
+ * publishes columns over those; readers of the previous columns keep their
+ * mapping of the old files.
+ */
+final class ColumnSegment implements Closeable {
+    static final int GROWTH_ROWS = 1024;
+    static final String DAY_SUFFIX = ".days";
+    static final String RATE_SUFFIX = ".rates";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final int DAY_BYTES = Integer.BYTES;
+    private static final int RATE_BYTES = Long.BYTES;
+
+    private final Path directory;
+    private final int currencyId;
+    private long generation;
+    private FileChannel dayChannel;
+    private FileChannel rateChannel;
+    private ByteBuffer dayMap;
+    private ByteBuffer rateMap;
+    private IntBuffer dayView;
+    private LongBuffer rateView;
+    private int capacity;
+    private volatile Columns columns;
+
+    ColumnSegment(Path directory, int currencyId) throws IOException {
+        this.directory = directory;
+        this.currencyId = currencyId;
+        this.generation = latestGeneration();
+        deleteOtherGenerations();
+        open();
+        int count = (int) Math.min(dayChannel.size() / DAY_BYTES, rateChannel.size() / RATE_BYTES);
+        remap(Math.max(count, 1));
+        while (count > 0 && dayMap.getInt((count - 1) * DAY_BYTES) == 0 && rateMap.getLong((count - 1) * RATE_BYTES) == 0) {
+            count--;
+        }
+        // a crash between the two column writes can leave one file a row ahead
+        for (int i = count; i < capacity; i++) {
+            dayMap.putInt(i * DAY_BYTES, 0);
+            rateMap.putLong(i * RATE_BYTES, 0);
+        }
+        columns = new Columns(dayView, rateView, count);
+    }
+
+    /**
+     * Currency id of a column file name, or -1 for files that are not day
+     * columns.
+     */
+    static int currencyIdOf(Path file) {
+        String name = file.getFileName().toString();
+        if (!name.endsWith(DAY_SUFFIX)) {
+            return -1;
+        }
+        int dot = name.indexOf('.');
+        try {
+            return Integer.parseInt(name.substring(0, dot));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    Columns columns() {
+        return columns;
+    }
+
+    /**
+     * Appends rates sorted by day. Days after the last stored day are written
+     * in place; a day equal to or older than the last stored day rewrites the
+     * history with the new rates merged in.
+     */
+    synchronized void append(int[] days, long[] rates, int length) {
+        if (length == 0) {
+            return;
+        }
+        try {
+            Columns current = columns;
+            int count = current.count;
+            int lastDay = count > 0 ? current.days.get(count - 1) : Integer.MIN_VALUE;
+            if (days[0] < lastDay) {
+                merge(current, days, rates, length);
+                return;
+            }
+            int start = 0;
+            if (days[0] == lastDay) {
+                if (current.rates.get(count - 1) != rates[0]) {
+                    merge(current, days, rates, length);
+                    return;
+                }
+                start = 1;
+            }
+            ensureCapacity(count + length - start);
+            for (int i = start; i < length; i++, count++) {
+                dayMap.putInt(count * DAY_BYTES, days[i]);
+                rateMap.putLong(count * RATE_BYTES, rates[i]);
+            }
+            columns = new Columns(dayView, rateView, count);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append rate history", e);
+        }
+    }
+
+    /**
+     * Drops the rate stored for the day, if there is one.
+     */
+    synchronized void remove(int day) {
+        Columns current = columns;
+        int index = current.lowerBound(day);
+        if (index == current.count || current.days.get(index) != day) {
+            return;
+        }
+        int[] days = new int[current.count - 1];
+        long[] rates = new long[current.count - 1];
+        for (int i = 0, n = 0; i < current.count; i++) {
+            if (i != index) {
+                days[n] = current.days.get(i);
+                rates[n++] = current.rates.get(i);
+            }
+        }
+        rewrite(days, rates, days.length);
+    }
+
+    /**
+     * Replaces the whole history, unless it already holds exactly these rows.
+     */
+    synchronized void replace(int[] days, long[] rates, int length) {
+        Columns current = columns;
+        if (current.count == length) {
+            boolean same = true;
+            for (int i = 0; i < length && same; i++) {
+                same = current.days.get(i) == days[i] && current.rates.get(i) == rates[i];
+            }
+            if (same) {
+                return;
+            }
+        }
+        rewrite(days, rates, length);
+    }
+
+    synchronized void clear() {
+        if (columns.count > 0) {
+            rewrite(new int[0], new long[0], 0);
+        }
+    }
+
+    private void merge(Columns current, int[] days, long[] rates, int length) {
+        int[] mergedDays = new int[current.count + length];
+        long[] mergedRates = new long[current.count + length];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < current.count || j < length) {
+            int existingDay = i < current.count ? current.days.get(i) : Integer.MAX_VALUE;
+            int newDay = j < length ? days[j] : Integer.MAX_VALUE;
+            if (newDay <= existingDay) {
+                if (newDay == existingDay) {
+                    i++;
+                }
+                mergedDays[n] = newDay;
+                mergedRates[n++] = rates[j++];
+            } else {
+                mergedDays[n] = existingDay;
+                mergedRates[n++] = current.rates.get(i++);
+            }
+        }
+        rewrite(mergedDays, mergedRates, n);
+    }
+
+    /**
+     * Writes the rows to the next generation of files and switches to it.
+     * Both files are complete on disk before either gets its final name, and
+     * a generation counts only once both have it, so a crash leaves either
+     * the old or the new history, never a mix.
+     */
+    private void rewrite(int[] days, long[] rates, int length) {
+        try {
+            long next = generation + 1;
+            int rows = Math.max(length, 1);
+            int newCapacity = (rows + GROWTH_ROWS - 1) / GROWTH_ROWS * GROWTH_ROWS;
+            ByteBuffer dayBytes = ByteBuffer.allocate(newCapacity * DAY_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            ByteBuffer rateBytes = ByteBuffer.allocate(newCapacity * RATE_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < length; i++) {
+                dayBytes.putInt(i * DAY_BYTES, days[i]);
+                rateBytes.putLong(i * RATE_BYTES, rates[i]);
+            }
+            Path dayTemp = temp(dayFile(next));
+            Path rateTemp = temp(rateFile(next));
+            write(dayTemp, dayBytes);
+            write(rateTemp, rateBytes);
+            Files.move(rateTemp, rateFile(next), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(dayTemp, dayFile(next), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+            long previous = generation;
+            closeChannels();
+            generation = next;
+            open();
+            remap(newCapacity);
+            columns = new Columns(dayView, rateView, length);
+            deletePrevious(previous);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to rewrite rate history for currency " + currencyId, e);
+        }
+    }
+
+    /**
+     * Readers of the old columns keep their mapping after the files are
+     * unlinked. Where the platform refuses to delete a mapped file, the next
+     * open removes it.
+     */
+    private void deletePrevious(long previous) {
+        try {
+            Files.deleteIfExists(dayFile(previous));
+            Files.deleteIfExists(rateFile(previous));
+        } catch (IOException e) {
+            // left for deleteOtherGenerations
+        }
+    }
+
+    private static void write(Path file, ByteBuffer bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            channel.force(true);
+        }
+    }
+
+    private void ensureCapacity(int rows) throws IOException {
+        if (rows > capacity) {
+            remap(rows);
+        }
+    }
+
+    /**
+     * Maps both files up to {@code rows} rounded up to the next growth step,
+     * extending them if needed. Readers holding the previous mapping keep it
+     * until they drop their columns.
+     */
+    private void remap(int rows) throws IOException {
+        int newCapacity = (rows + GROWTH_ROWS - 1) / GROWTH_ROWS * GROWTH_ROWS;
+        dayMap = dayChannel.map(FileChannel.MapMode.READ_WRITE, 0, (long) newCapacity * DAY_BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        rateMap = rateChannel.map(FileChannel.MapMode.READ_WRITE, 0, (long) newCapacity * RATE_BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        dayView = dayMap.asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        rateView = rateMap.asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+        capacity = newCapacity;
+    }
+
+    private void open() throws IOException {
+        dayChannel = FileChannel.open(dayFile(generation),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        rateChannel = FileChannel.open(rateFile(generation),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * The newest generation with both column files, or 0 when there is none.
+     */
+    private long latestGeneration() throws IOException {
+        long latest = 0;
+        for (Path file : ownFiles()) {
+            String name = file.getFileName().toString();
+            if (name.endsWith(DAY_SUFFIX)) {
+                long candidate = generationOf(name);
+                if (candidate > latest && Files.exists(rateFile(candidate))) {
+                    latest = candidate;
+                }
+            }
+        }
+        return latest;
+    }
+
+    private void deleteOtherGenerations() throws IOException {
+        for (Path file : ownFiles()) {
+            if (!file.equals(dayFile(generation)) && !file.equals(rateFile(generation))) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private List<Path> ownFiles() throws IOException {
+        String prefix = currencyId + ".";
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> listing = Files.list(directory)) {
+            listing.filter(file -> file.getFileName().toString().startsWith(prefix)).forEach(files::add);
+        }
+        return files;
+    }
+
+    private long generationOf(String name) {
+        String middle = name.substring(Integer.toString(currencyId).length(), name.length() - DAY_SUFFIX.length());
+        if (middle.isEmpty()) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(middle.substring(1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private Path dayFile(long generation) {
+        return directory.resolve(baseName(generation) + DAY_SUFFIX);
+    }
+
+    private Path rateFile(long generation) {
+        return directory.resolve(baseName(generation) + RATE_SUFFIX);
+    }
+
+    private String baseName(long generation) {
+        return generation == 0 ? Integer.toString(currencyId) : currencyId + "." + generation;
+    }
+
+    private static Path temp(Path file) {
+        return file.resolveSibling(file.getFileName() + TEMP_SUFFIX);
+    }
+
+    private void closeChannels() throws IOException {
+        dayChannel.close();
+        rateChannel.close();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closeChannels();
+    }
+
+    record Columns(IntBuffer days, LongBuffer rates, int count) {
+        int lowerBound(int day) {
+            int low = 0;
+            int high = count;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (days.get(mid) < day) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.currency.history;
+
+import com.example.currency.conversion.RateMatrix;
+import com.example.currency.dto.RateStatsBucket;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Computes per-bucket min/max/average/first/last over a rate series in a
+ * single pass over the primitive columns. Objects are only created when a
+ * bucket is closed.
+ */
+public final class RateAggregator {
+    private static final int PERCENT_SCALE = 4;
+
+    private RateAggregator() {
+    }
+
+    public static List<RateStatsBucket> aggregate(RateSeries series, StatsBucket bucket) {
+        List<RateStatsBucket> buckets = new ArrayList<>();
+        int size = series.size();
+        int index = 0;
+        while (index < size) {
+            int bucketStart = bucket.start(series.epochDay(index));
+            int bucketEnd = bucket.end(bucketStart);
+            long first = series.perUnitRate(index);
+            long min = first;
+            long max = first;
+            long last = first;
+            long sum = 0;
+            int count = 0;
+            while (index < size && series.epochDay(index) < bucketEnd) {
+                long rate = series.perUnitRate(index++);
+                min = Math.min(min, rate);
+                max = Math.max(max, rate);
+                sum += rate;
+                last = rate;
+                count++;
+            }
+            buckets.add(new RateStatsBucket(
+                    LocalDate.ofEpochDay(bucketStart),
+                    LocalDate.ofEpochDay(bucketEnd - 1L),
+                    count,
+                    scaled(min),
+                    scaled(max),
+                    BigDecimal.valueOf(sum).divide(BigDecimal.valueOf(count), 0, RoundingMode.HALF_UP)
+                            .movePointLeft(RateMatrix.RATE_SCALE),
+                    scaled(first),
+                    scaled(last),
+                    changePercent(first, last)));
+        }
+        return buckets;
+    }
+
+    private static BigDecimal scaled(long perUnitRate) {
+        return BigDecimal.valueOf(perUnitRate, RateMatrix.RATE_SCALE);
+    }
+
+    private static BigDecimal changePercent(long first, long last) {
+        if (first == 0) {
+            return null;
+        }
+        return BigDecimal.valueOf(last - first)
+                .multiply(BigDecimal.valueOf(100))
+                .divide(BigDecimal.valueOf(first), PERCENT_SCALE, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.currency.history;
+
+import com.example.currency.cache.CacheTag;
+import com.example.currency.repository.RateRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+public class RateHistoryLoader {
+    private static final Logger logger = LoggerFactory.getLogger(RateHistoryLoader.class);
+    private static final String SELECT_SQL = "SELECT currency_id, date, cur_official_rate, cur_scale FROM currency_rate";
+    private static final String SELECT_ALL_SQL = SELECT_SQL + " ORDER BY currency_id, date";
+    private static final String SELECT_CURRENCY_SQL = SELECT_SQL + " WHERE currency_id = ? ORDER BY date";
+    private static final String SELECT_DATE_SQL = SELECT_SQL + " WHERE date = ?";
+    private static final RowMapper<RateRow> ROW_MAPPER = (rs, rowNum) -> new RateRow(
+            rs.getInt("currency_id"),
+            rs.getDate("date").toLocalDate(),
+            rs.getBigDecimal("cur_official_rate"),
+            rs.getInt("cur_scale"));
+
+    private final RateHistoryStore historyStore;
+    private final JdbcTemplate jdbcTemplate;
+    private final int maxStaleDates;
+    private final Set<Integer> staleCurrencies = ConcurrentHashMap.newKeySet();
+    private final Set<LocalDate> staleDates = ConcurrentHashMap.newKeySet();
+    private volatile boolean allStale;
+
+    public RateHistoryLoader(
+            RateHistoryStore historyStore,
+            DataSource dataSource,
+            @Value("${currency.history.fetch-size:1000}") int fetchSize,
+            @Value("${currency.history.sync-max-dates:31}") int maxStaleDates) {
+        this.historyStore = historyStore;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.maxStaleDates = maxStaleDates;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void rebuildIfMissing() {
+        if (historyStore.isEmpty()) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Brings the store back in line with the table, picking up deletes and
+     * writes the local write paths did not see (other instances, direct
+     * database changes).
+     */
+    @Scheduled(initialDelayString = "${currency.history.resync-interval:PT6H}",
+            fixedDelayString = "${currency.history.resync-interval:PT6H}")
+    public void resync() {
+        rebuild();
+    }
+
+    /**
+     * Marks the parts of the history a write on another instance changed:
+     * the currency of a rate or currency tag, every currency on a date tag.
+     * They are reloaded from the table by the next {@link #syncStale()}.
+     */
+    public void markStale(Collection<CacheTag> tags) {
+        for (CacheTag tag : tags) {
+            switch (tag.kind()) {
+                case RATE -> staleCurrencies.add(Integer.parseInt(tag.value().substring(0, tag.value().indexOf('@'))));
+                case CURRENCY -> staleCurrencies.add(Integer.parseInt(tag.value()));
+                case DATE -> staleDates.add(LocalDate.parse(tag.value()));
+                default -> {
+                }
+            }
+        }
+    }
+
+    /**
+     * Schedules a full rebuild, after invalidations may have been missed.
+     */
+    public void markAllStale() {
+        allStale = true;
+    }
+
+    /**
+     * Reloads what {@link #markStale} collected, so every instance's history
+     * follows the table within the poll and sync intervals. Past
+     * {@code currency.history.sync-max-dates} dates (a bulk import) one
+     * rebuild is cheaper than a query per date.
+     */
+    @Scheduled(fixedDelayString = "${currency.history.sync-interval:PT5S}")
+    public void syncStale() {
+        if (allStale || staleDates.size() > maxStaleDates) {
+            allStale = false;
+            staleCurrencies.clear();
+            staleDates.clear();
+            rebuild();
+            return;
+        }
+        for (Iterator<Integer> it = staleCurrencies.iterator(); it.hasNext(); ) {
+            int currencyId = it.next();
+            it.remove();
+            historyStore.replace(currencyId, jdbcTemplate.query(SELECT_CURRENCY_SQL, ROW_MAPPER, currencyId));
+        }
+        for (Iterator<LocalDate> it = staleDates.iterator(); it.hasNext(); ) {
+            LocalDate date = it.next();
+            it.remove();
+            List<RateRow> rows = jdbcTemplate.query(SELECT_DATE_SQL, ROW_MAPPER, date);
+            Set<Integer> missing = historyStore.currencyIds();
+            rows.forEach(row -> missing.remove(row.currencyId()));
+            historyStore.appendAll(rows);
+            missing.forEach(currencyId -> historyStore.remove(currencyId, date));
+        }
+    }
+
+    /**
+     * Replaces the store's contents with every row of the currency_rate table,
+     * one currency at a time, so scans see either a currency's old or its new
+     * history and never a partial one.
+     */
+    public long rebuild() {
+        long started = System.nanoTime();
+        List<RateRow> currencyRows = new ArrayList<>();
+        Set<Integer> currencyIds = new HashSet<>();
+        long[] total = new long[1];
+        jdbcTemplate.query(SELECT_ALL_SQL, rs -> {
+            RateRow row = ROW_MAPPER.mapRow(rs, 0);
+            if (!currencyRows.isEmpty() && currencyRows.get(0).currencyId() != row.currencyId()) {
+                historyStore.replace(currencyRows.get(0).currencyId(), currencyRows);
+                currencyRows.clear();
+            }
+            currencyRows.add(row);
+            currencyIds.add(row.currencyId());
+            total[0]++;
+        });
+        if (!currencyRows.isEmpty()) {
+            historyStore.replace(currencyRows.get(0).currencyId(), currencyRows);
+        }
+        historyStore.retainOnly(currencyIds);
+        logger.info("Rebuilt rate history from database: {} rows in {} ms", total[0], (System.nanoTime() - started) / 1_000_000);
+        return total[0];
+    }
+}
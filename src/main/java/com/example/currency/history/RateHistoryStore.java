@@ -0,0 +1,158 @@
+package com.example.currency.history;
+
+import com.example.currency.conversion.RateMatrix;
+import com.example.currency.repository.RateRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Memory-mapped columnar store of (date, currency id, per-unit rate). Each
+ * currency is kept in its own pair of column files so a range scan is a
+ * binary search plus a slice of the mapping. Writes that change stored days
+ * (replacing, removing, rebuilding) publish a new copy of the currency's
+ * columns, so scans already handed out stay consistent.
+ */
+@Component
+public class RateHistoryStore implements DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(RateHistoryStore.class);
+    private final Path directory;
+    private final Map<Integer, ColumnSegment> segments = new ConcurrentHashMap<>();
+
+    public RateHistoryStore(@Value("${currency.history.dir:data/rate-history}") Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(ColumnSegment::currencyIdOf).filter(id -> id >= 0).distinct().toList().forEach(this::segment);
+        }
+        logger.info("Opened rate history in {} with {} currencies", directory, segments.size());
+    }
+
+    public boolean isEmpty() {
+        return segments.values().stream().allMatch(segment -> segment.columns().count() == 0);
+    }
+
+    public void append(RateRow row) {
+        appendAll(List.of(row));
+    }
+
+    public void appendAll(List<RateRow> rows) {
+        Map<Integer, List<RateRow>> rowsByCurrency = new TreeMap<>();
+        for (RateRow row : rows) {
+            rowsByCurrency.computeIfAbsent(row.currencyId(), id -> new ArrayList<>()).add(row);
+        }
+        rowsByCurrency.forEach((currencyId, currencyRows) -> {
+            Columns columns = columns(currencyRows);
+            segment(currencyId).append(columns.days, columns.rates, columns.length);
+        });
+    }
+
+    /**
+     * Drops the currency's rate on the date, after the rate was deleted or
+     * moved to another currency or date.
+     */
+    public void remove(int currencyId, LocalDate date) {
+        ColumnSegment segment = segments.get(currencyId);
+        if (segment != null) {
+            segment.remove((int) date.toEpochDay());
+        }
+    }
+
+    /**
+     * Replaces everything stored for the currency with the given rows.
+     */
+    public void replace(int currencyId, List<RateRow> rows) {
+        ColumnSegment segment = rows.isEmpty() ? segments.get(currencyId) : segment(currencyId);
+        if (segment != null) {
+            Columns columns = columns(new ArrayList<>(rows));
+            segment.replace(columns.days, columns.rates, columns.length);
+        }
+    }
+
+    /**
+     * Empties every currency not in the given set.
+     */
+    public void retainOnly(Set<Integer> currencyIds) {
+        segments.forEach((currencyId, segment) -> {
+            if (!currencyIds.contains(currencyId)) {
+                segment.clear();
+            }
+        });
+    }
+
+    public Set<Integer> currencyIds() {
+        return new HashSet<>(segments.keySet());
+    }
+
+    public RateSeries scan(int currencyId, LocalDate from, LocalDate to) {
+        ColumnSegment segment = segments.get(currencyId);
+        if (segment == null || from.isAfter(to)) {
+            return RateSeries.empty();
+        }
+        ColumnSegment.Columns columns = segment.columns();
+        int start = columns.lowerBound((int) from.toEpochDay());
+        int end = columns.lowerBound((int) to.toEpochDay() + 1);
+        IntBuffer days = columns.days().slice(start, end - start);
+        LongBuffer rates = columns.rates().slice(start, end - start);
+        return new RateSeries(days, rates);
+    }
+
+    public void clear() {
+        segments.values().forEach(ColumnSegment::clear);
+    }
+
+    private ColumnSegment segment(int currencyId) {
+        return segments.computeIfAbsent(currencyId, id -> {
+            try {
+                return new ColumnSegment(directory, id);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to open rate history for currency " + id, e);
+            }
+        });
+    }
+
+    private static Columns columns(List<RateRow> rows) {
+        rows.sort(Comparator.comparing(RateRow::date));
+        int[] days = new int[rows.size()];
+        long[] rates = new long[rows.size()];
+        int length = 0;
+        for (RateRow row : rows) {
+            int day = (int) row.date().toEpochDay();
+            if (length > 0 && days[length - 1] == day) {
+                length--;
+            }
+            days[length] = day;
+            rates[length++] = RateMatrix.perUnitRate(row.officialRate(), row.scale());
+        }
+        return new Columns(days, rates, length);
+    }
+
+    private record Columns(int[] days, long[] rates, int length) {
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        for (ColumnSegment segment : segments.values()) {
+            segment.close();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.currency.history;
+
+import com.example.currency.conversion.RateMatrix;
+
+import java.math.BigDecimal;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.time.LocalDate;
+
+/**
+ * A zero-copy view over part of one currency's history. Values are read
+ * straight from the memory-mapped column files.
+ */
+public final class RateSeries {
+    private static final RateSeries EMPTY = new RateSeries(IntBuffer.allocate(0), LongBuffer.allocate(0));
+
+    private final IntBuffer days;
+    private final LongBuffer rates;
+
+    RateSeries(IntBuffer days, LongBuffer rates) {
+        this.days = days;
+        this.rates = rates;
+    }
+
+    static RateSeries empty() {
+        return EMPTY;
+    }
+
+    public int size() {
+        return days.limit();
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int epochDay(int index) {
+        return days.get(index);
+    }
+
+    public LocalDate date(int index) {
+        return LocalDate.ofEpochDay(days.get(index));
+    }
+
+    /**
+     * Per-unit rate, unscaled at {@link RateMatrix#RATE_SCALE} decimals.
+     */
+    public long perUnitRate(int index) {
+        return rates.get(index);
+    }
+
+    public BigDecimal rate(int index) {
+        return BigDecimal.valueOf(rates.get(index), RateMatrix.RATE_SCALE);
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.currency.history;
+
+import java.time.LocalDate;
+import java.util.Locale;
+
+public enum StatsBucket {
+    WEEK,
+    MONTH;
+
+    public static StatsBucket from(String value) {
+        return StatsBucket.valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * First epoch day of the bucket containing the given epoch day.
+     */
+    int start(int epochDay) {
+        if (this == WEEK) {
+            // 1970-01-01 was a Thursday, so Monday-based weeks start 3 days earlier
+            return epochDay - Math.floorMod(epochDay + 3, 7);
+        }
+        return (int) LocalDate.ofEpochDay(epochDay).withDayOfMonth(1).toEpochDay();
+    }
+
+    /**
+     * First epoch day after the bucket that starts on the given epoch day.
+     */
+    int end(int startDay) {
+        if (this == WEEK) {
+            return startDay + 7;
+        }
+        return (int) LocalDate.ofEpochDay(startDay).plusMonths(1).toEpochDay();
+    }
+}
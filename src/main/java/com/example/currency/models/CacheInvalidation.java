@@ -0,0 +1,42 @@
+package com.example.currency.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * One row per write that invalidated cache tags. The auto-increment id is the
+ * version every instance polls past.
+ */
+@Entity
+@Table(name = "cache_invalidation", indexes = @Index(name = "idx_cache_invalidation_created_at", columnList = "created_at"))
+@Data
+@NoArgsConstructor
+public class CacheInvalidation {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "node", nullable = false, length = 64)
+    private String node;
+
+    @Column(name = "tags", nullable = false, columnDefinition = "TEXT")
+    private String tags;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    public CacheInvalidation(String node, String tags, Instant createdAt) {
+        this.node = node;
+        this.tags = tags;
+        this.createdAt = createdAt;
+    }
+}
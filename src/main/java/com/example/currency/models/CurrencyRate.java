@@ -3,19 +3,26 @@ package com.example.currency.models;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "currency_rate")
+@Table(name = "currency_rate",
+        uniqueConstraints = @UniqueConstraint(name = "uk_currency_rate_currency_date", columnNames = {"currency_id", "date"}),
+        indexes = @Index(name = "idx_currency_rate_date", columnList = "date"))
 @Data
 public class CurrencyRate {
     @Id
@@ -34,7 +41,9 @@ public class CurrencyRate {
     @Column(name = "date")
     private LocalDate date;
 
-    @ManyToOne
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "currency_id", nullable = false)
     private CurrencyInfo currency;
 }
\ No newline at end of file
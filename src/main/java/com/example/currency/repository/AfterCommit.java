@@ -0,0 +1,29 @@
+package com.example.currency.repository;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Defers work with side effects outside the database (in-memory state,
+ * events to clients) until the surrounding transaction has committed, so a
+ * rollback leaves no trace of it. Runs the work immediately when there is no
+ * transaction. The work must not use the database: the committed
+ * transaction's resources are still bound while it runs.
+ */
+public final class AfterCommit {
+    private AfterCommit() {
+    }
+
+    public static void run(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
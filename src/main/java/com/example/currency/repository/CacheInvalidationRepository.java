@@ -0,0 +1,26 @@
+package com.example.currency.repository;
+
+import com.example.currency.models.CacheInvalidation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface CacheInvalidationRepository extends JpaRepository<CacheInvalidation, Long> {
+
+    List<CacheInvalidation> findTop500ByIdGreaterThanOrderByIdAsc(Long id);
+
+    Optional<CacheInvalidation> findFirstByOrderByIdDesc();
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM CacheInvalidation ci WHERE ci.createdAt < :cutoff")
+    int deleteOlderThan(@Param("cutoff") Instant cutoff);
+}
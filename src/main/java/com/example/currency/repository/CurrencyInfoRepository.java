@@ -1,10 +1,25 @@
 package com.example.currency.repository;
 
+import com.example.currency.dto.CurrencyView;
 import com.example.currency.models.CurrencyInfo;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface CurrencyInfoRepository extends JpaRepository<CurrencyInfo, Integer> {
+    String VIEW = "SELECT new com.example.currency.dto.CurrencyView(c.id, c.code, c.abbreviation, c.name, c.scale) "
+            + "FROM CurrencyInfo c";
+
+    Optional<CurrencyInfo> findFirstByAbbreviation(String abbreviation);
+
+    @Query(VIEW + " ORDER BY c.id")
+    List<CurrencyView> findAllViews();
+
+    @Query(VIEW + " WHERE c.id = :id")
+    Optional<CurrencyView> findViewById(@Param("id") Integer id);
 }
@@ -0,0 +1,42 @@
+package com.example.currency.repository;
+
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.util.List;
+
+@Repository
+public class CurrencyRateBatchRepository {
+    private static final String UPSERT_SQL =
+            "INSERT INTO currency_rate (currency_id, date, cur_official_rate, cur_scale) VALUES (?, ?, ?, ?) "
+                    + "ON DUPLICATE KEY UPDATE cur_official_rate = VALUES(cur_official_rate), cur_scale = VALUES(cur_scale)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    public CurrencyRateBatchRepository(JdbcTemplate jdbcTemplate, @Value("${currency.jdbc.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Inserts or updates one rate per (currency, date) using JDBC batches.
+     * Relies on the unique key on currency_rate(currency_id, date), so the
+     * call is idempotent. Returns the number of rows submitted.
+     */
+    @Transactional
+    @Timed(value = "currency.rates.batch.upsert", description = "JDBC batch upsert of currency rates", histogram = true)
+    public int upsert(List<RateRow> rows) {
+        jdbcTemplate.batchUpdate(UPSERT_SQL, rows, batchSize, (ps, row) -> {
+            ps.setInt(1, row.currencyId());
+            ps.setDate(2, Date.valueOf(row.date()));
+            ps.setBigDecimal(3, row.officialRate());
+            ps.setInt(4, row.scale());
+        });
+        return rows.size();
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.currency.repository;
 
+import com.example.currency.dto.RateView;
 import com.example.currency.models.CurrencyRate;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -8,11 +10,35 @@ import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 
 @Repository
 public interface CurrencyRateRepository extends JpaRepository<CurrencyRate, Long> {
- 
-    @Query("SELECT cr FROM CurrencyRate cr WHERE cr.currency.abbreviation = :abbreviation AND cr.date = :date")
-    List<CurrencyRate> findByCurrencyAbbreviationAndDate(@Param("abbreviation") String abbreviation, @Param("date") LocalDate date);
+    String VIEW = "SELECT new com.example.currency.dto.RateView(cr.id, c.id, c.abbreviation, cr.officialRate, cr.scale, cr.date) "
+            + "FROM CurrencyRate cr JOIN cr.currency c";
+
+    @Query("SELECT cr FROM CurrencyRate cr JOIN FETCH cr.currency WHERE cr.id = :id")
+    Optional<CurrencyRate> findWithCurrencyById(@Param("id") Long id);
+
+    @Query(VIEW + " ORDER BY cr.id")
+    List<RateView> findAllViews();
+
+    @Query(VIEW + " WHERE cr.id > :afterId ORDER BY cr.id")
+    List<RateView> findViewsAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    @Query(VIEW + " WHERE cr.id = :id")
+    Optional<RateView> findViewById(@Param("id") Long id);
+
+    @Query(VIEW + " WHERE c.abbreviation = :abbreviation AND cr.date = :date")
+    List<RateView> findViewsByAbbreviationAndDate(@Param("abbreviation") String abbreviation, @Param("date") LocalDate date);
+
+    @Query(VIEW + " WHERE cr.date = :date")
+    List<RateView> findViewsByDate(@Param("date") LocalDate date);
+
+    @Query(VIEW + " WHERE c.id = :currencyId AND cr.date = :date")
+    Optional<RateView> findViewByCurrencyIdAndDate(@Param("currencyId") Integer currencyId, @Param("date") LocalDate date);
+
+    @Query(VIEW + " WHERE c.id = :currencyId AND cr.date <= :date ORDER BY cr.date DESC")
+    List<RateView> findLatestViews(@Param("currencyId") Integer currencyId, @Param("date") LocalDate date, Pageable pageable);
 }
@@ -0,0 +1,93 @@
+package com.example.currency.repository;
+
+import com.example.currency.dto.RateImportRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * Reads rates for export through a forward-only, read-only cursor. Rows are
+ * handed to the consumer one at a time and the driver holds at most
+ * {@code currency.export.fetch-size} of them, so memory use does not depend
+ * on how much history is exported. MySQL ignores a positive fetch size
+ * unless the whole pool is opened with {@code useCursorFetch=true}, which
+ * also changes every other statement, so there the export statement alone is
+ * switched to the driver's row-by-row streaming mode instead.
+ */
+@Repository
+public class RateExportRepository {
+    private static final String SELECT_SQL =
+            "SELECT c.cur_abbreviation, cr.date, cr.cur_official_rate, cr.cur_scale "
+                    + "FROM currency_rate cr JOIN currency_info c ON c.id = cr.currency_id WHERE 1 = 1";
+
+    private final DataSource dataSource;
+    private final int fetchSize;
+    private volatile NamedParameterJdbcTemplate jdbcTemplate;
+
+    public RateExportRepository(DataSource dataSource, @Value("${currency.export.fetch-size:1000}") int fetchSize) {
+        this.dataSource = dataSource;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Streams the rates in (currency, date) order, optionally limited to a
+     * date range (both ends inclusive) and to the given currency ids.
+     * Returns the number of rows read.
+     */
+    public long forEach(LocalDate from, LocalDate to, Collection<Integer> currencyIds, Consumer<RateImportRecord> consumer) {
+        StringBuilder sql = new StringBuilder(SELECT_SQL);
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        if (from != null) {
+            sql.append(" AND cr.date >= :from");
+            parameters.addValue("from", from);
+        }
+        if (to != null) {
+            sql.append(" AND cr.date <= :to");
+            parameters.addValue("to", to);
+        }
+        if (currencyIds != null && !currencyIds.isEmpty()) {
+            sql.append(" AND cr.currency_id IN (:currencyIds)");
+            parameters.addValue("currencyIds", currencyIds);
+        }
+        sql.append(" ORDER BY cr.currency_id, cr.date");
+        long[] count = new long[1];
+        jdbcTemplate().query(sql.toString(), parameters, rs -> {
+            consumer.accept(new RateImportRecord(
+                    rs.getString(1),
+                    rs.getDate(2).toLocalDate(),
+                    rs.getBigDecimal(3),
+                    rs.getInt(4)));
+            count[0]++;
+        });
+        return count[0];
+    }
+
+    private NamedParameterJdbcTemplate jdbcTemplate() {
+        NamedParameterJdbcTemplate template = jdbcTemplate;
+        if (template == null) {
+            JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+            jdbc.setFetchSize(isMySql() ? Integer.MIN_VALUE : fetchSize);
+            template = new NamedParameterJdbcTemplate(jdbc);
+            jdbcTemplate = template;
+        }
+        return template;
+    }
+
+    private boolean isMySql() {
+        try {
+            return "MySQL".equals(JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName));
+        } catch (MetaDataAccessException e) {
+            throw new IllegalStateException("Cannot read the database product name", e);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.currency.repository;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Makes sure currency_rate has its unique key on (currency_id, date) before
+ * anything writes rates. The batch upsert depends on that key. Without it
+ * every upsert inserts another row, and single-row lookups fail. Hibernate's
+ * {@code ddl-auto=update} cannot add the key to a table that already holds
+ * duplicates. It only logs the failure, so this removes the duplicates,
+ * keeping the newest row of each (currency, date), and adds the key itself.
+ * Startup fails if the key still cannot be added.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class RateKeyMigration {
+    private static final Logger logger = LoggerFactory.getLogger(RateKeyMigration.class);
+    static final String CONSTRAINT_NAME = "uk_currency_rate_currency_date";
+    private static final String DELETE_DUPLICATES_SQL =
+            "DELETE FROM currency_rate WHERE id IN (SELECT id FROM (SELECT cr.id FROM currency_rate cr "
+                    + "JOIN currency_rate newer ON newer.currency_id = cr.currency_id AND newer.date = cr.date "
+                    + "AND newer.id > cr.id) duplicate)";
+    private static final String ADD_CONSTRAINT_SQL =
+            "ALTER TABLE currency_rate ADD CONSTRAINT " + CONSTRAINT_NAME + " UNIQUE (currency_id, date)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public RateKeyMigration(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void migrate() {
+        Boolean present = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            String table = metaData.storesUpperCaseIdentifiers() ? "CURRENCY_RATE" : "currency_rate";
+            try (ResultSet tables = metaData.getTables(connection.getCatalog(), null, table, null)) {
+                if (!tables.next()) {
+                    return null;
+                }
+            }
+            Map<String, Set<String>> uniqueIndexes = new HashMap<>();
+            try (ResultSet indexes = metaData.getIndexInfo(connection.getCatalog(), null, table, true, false)) {
+                while (indexes.next()) {
+                    String column = indexes.getString("COLUMN_NAME");
+                    if (column != null) {
+                        uniqueIndexes.computeIfAbsent(indexes.getString("INDEX_NAME"), name -> new LinkedHashSet<>())
+                                .add(column.toLowerCase(Locale.ROOT));
+                    }
+                }
+            }
+            return uniqueIndexes.containsValue(Set.of("currency_id", "date"));
+        });
+        if (present == null) {
+            logger.warn("Table currency_rate does not exist, skipping the unique key check");
+            return;
+        }
+        if (present) {
+            return;
+        }
+        int deleted = jdbcTemplate.update(DELETE_DUPLICATES_SQL);
+        logger.warn("currency_rate had no unique key on (currency_id, date); removed {} duplicate rows", deleted);
+        try {
+            jdbcTemplate.execute(ADD_CONSTRAINT_SQL);
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("Could not add " + CONSTRAINT_NAME + " to currency_rate", e);
+        }
+        logger.info("Added unique key {} to currency_rate", CONSTRAINT_NAME);
+    }
+}
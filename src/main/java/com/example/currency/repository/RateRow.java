@@ -0,0 +1,7 @@
+package com.example.currency.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public record RateRow(int currencyId, LocalDate date, BigDecimal officialRate, int scale) {
+}
@@ -0,0 +1,121 @@
+package com.example.currency.schedule;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * When official rates take effect. The rates for a date become current at
+ * the publication time of that date in the NBRB time zone and stay current
+ * until the next day's publication; rates for earlier dates never change.
+ * <p>
+ * Once a date has been {@linkplain #promote(LocalDate) promoted}, the next
+ * date is only served after it has been promoted as well, so the previous
+ * day's rates stay in use while the new set is still incomplete. The hold is
+ * bounded by {@code currency.refresh.max-hold}, after which the clock wins
+ * and rates are loaded on demand again.
+ */
+@Component
+public class RatePublicationSchedule {
+    private final ZoneId zone;
+    private final LocalTime publicationTime;
+    private final Clock clock;
+    private final Duration maxHold;
+    private final AtomicReference<LocalDate> promotedDate = new AtomicReference<>();
+
+    @Autowired
+    public RatePublicationSchedule(
+            @Value("${currency.rates.zone:Europe/Minsk}") ZoneId zone,
+            @Value("${currency.rates.publication-time:00:00}") LocalTime publicationTime,
+            @Value("${currency.refresh.max-hold:PT2H}") Duration maxHold) {
+        this(zone, publicationTime, Clock.system(zone), maxHold);
+    }
+
+    public RatePublicationSchedule(ZoneId zone, LocalTime publicationTime, Clock clock) {
+        this(zone, publicationTime, clock, Duration.ZERO);
+    }
+
+    public RatePublicationSchedule(ZoneId zone, LocalTime publicationTime, Clock clock, Duration maxHold) {
+        this.zone = zone;
+        this.publicationTime = publicationTime;
+        this.clock = clock;
+        this.maxHold = maxHold;
+    }
+
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    public LocalTime getPublicationTime() {
+        return publicationTime;
+    }
+
+    public Instant now() {
+        return clock.instant();
+    }
+
+    /**
+     * The date whose rates are in effect right now.
+     */
+    public LocalDate currentRateDate() {
+        ZonedDateTime now = ZonedDateTime.now(clock.withZone(zone));
+        LocalDate today = now.toLocalDate();
+        return now.toLocalTime().isBefore(publicationTime) ? today.minusDays(1) : today;
+    }
+
+    /**
+     * The date whose rates are served right now: the {@linkplain
+     * #currentRateDate() current rate date}, unless its rates have not been
+     * promoted yet and the previous day is still within the hold.
+     */
+    public LocalDate servedRateDate() {
+        LocalDate current = currentRateDate();
+        LocalDate promoted = promotedDate.get();
+        if (promoted == null || !promoted.equals(current.minusDays(1))) {
+            return current;
+        }
+        return clock.instant().isBefore(publishedAt(current).plus(maxHold)) ? promoted : current;
+    }
+
+    /**
+     * Marks the rates for {@code date} as complete and switches serving to
+     * them if their publication time has passed. Never moves backwards.
+     */
+    public void promote(LocalDate date) {
+        promotedDate.accumulateAndGet(date, (promoted, next) -> promoted == null || next.isAfter(promoted) ? next : promoted);
+    }
+
+    public LocalDate getPromotedDate() {
+        return promotedDate.get();
+    }
+
+    public Instant publishedAt(LocalDate date) {
+        return date.atTime(publicationTime).atZone(zone).toInstant();
+    }
+
+    public Instant nextPublication() {
+        return publishedAt(servedRateDate().plusDays(1));
+    }
+
+    public Duration untilNextPublication() {
+        Duration remaining = Duration.between(clock.instant(), nextPublication());
+        return remaining.isNegative() ? Duration.ZERO : remaining;
+    }
+
+    /**
+     * True once a later date's rates have been published, i.e. the rates for
+     * {@code date} can no longer change.
+     */
+    public boolean isFinal(LocalDate date) {
+        return date.isBefore(servedRateDate());
+    }
+}
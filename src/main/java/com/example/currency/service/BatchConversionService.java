@@ -0,0 +1,172 @@
+package com.example.currency.service;
+
+import com.example.currency.client.CurrencyNotFoundException;
+import com.example.currency.conversion.RateMatrix;
+import com.example.currency.dto.ConversionRequest;
+import com.example.currency.dto.ConversionResult;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DatabindException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+@Service
+public class BatchConversionService {
+    private static final Logger logger = LoggerFactory.getLogger(BatchConversionService.class);
+    private static final int FLUSH_EVERY = 256;
+
+    private final CurrencyConversionService conversionService;
+    private final ObjectReader requestReader;
+    private final ObjectWriter resultWriter;
+
+    public BatchConversionService(CurrencyConversionService conversionService, ObjectMapper objectMapper) {
+        this.conversionService = conversionService;
+        this.requestReader = objectMapper.readerFor(ConversionRequest.class);
+        this.resultWriter = objectMapper.writerFor(ConversionResult.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator("\n");
+    }
+
+    /**
+     * Reads either a JSON array or an NDJSON stream of conversion requests and
+     * writes one NDJSON result line per request as soon as it is computed.
+     * Each currency's rate, or the fact that it is unknown, is resolved once
+     * per batch; other failures, such as NBRB being down, are retried by the
+     * next item that needs the currency. An
+     * item that cannot be read gets an error line and the batch goes on; only
+     * broken JSON syntax inside an array ends it early.
+     */
+    public long convert(InputStream in, OutputStream out) throws IOException {
+        Batch batch = new Batch(conversionService.currentRateMatrix());
+        BufferedInputStream input = new BufferedInputStream(in);
+        try (SequenceWriter results = resultWriter.writeValues(out)) {
+            batch.results = results;
+            if (startsWithArray(input)) {
+                convertArray(input, batch);
+            } else {
+                convertLines(input, batch);
+            }
+            results.flush();
+            out.write('\n');
+        }
+        logger.info("Batch conversion finished: {} items, {} currencies, {} unknown",
+                batch.count, batch.perUnitRates.size(), batch.failures.size());
+        return batch.count;
+    }
+
+    private void convertArray(InputStream in, Batch batch) throws IOException {
+        try (MappingIterator<ConversionRequest> requests = requestReader.readValues(in)) {
+            while (requests.hasNextValue()) {
+                ConversionResult result;
+                try {
+                    result = convert(batch, requests.nextValue());
+                } catch (DatabindException e) {
+                    // the iterator skips the rest of the bad element on the next hasNextValue
+                    result = ConversionResult.invalid("Invalid item: " + e.getOriginalMessage());
+                }
+                batch.write(result);
+            }
+        } catch (JsonProcessingException e) {
+            batch.write(ConversionResult.invalid("Malformed JSON, batch ended: " + e.getOriginalMessage()));
+        }
+    }
+
+    private void convertLines(InputStream in, Batch batch) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            ConversionResult result;
+            try {
+                result = convert(batch, requestReader.readValue(line));
+            } catch (JsonProcessingException e) {
+                result = ConversionResult.invalid("Invalid item: " + e.getOriginalMessage());
+            }
+            batch.write(result);
+        }
+    }
+
+    private static boolean startsWithArray(BufferedInputStream in) throws IOException {
+        while (true) {
+            in.mark(1);
+            int next = in.read();
+            if (next == -1 || !Character.isWhitespace(next)) {
+                in.reset();
+                return next == '[';
+            }
+        }
+    }
+
+    private ConversionResult convert(Batch batch, ConversionRequest request) {
+        if (request.from() == null || request.to() == null || request.amount() == null) {
+            return ConversionResult.failure(request, "from, to and amount are required");
+        }
+        if (request.amount().compareTo(BigDecimal.ZERO) <= 0) {
+            return ConversionResult.failure(request, "Amount must be greater than zero");
+        }
+        try {
+            long fromRate = perUnitRate(batch, request.from());
+            long toRate = perUnitRate(batch, request.to());
+            return ConversionResult.success(request, RateMatrix.convert(request.amount(), fromRate, toRate));
+        } catch (RuntimeException e) {
+            return ConversionResult.failure(request, e.getMessage());
+        }
+    }
+
+    private long perUnitRate(Batch batch, Integer currencyId) {
+        Long perUnitRate = batch.perUnitRates.get(currencyId);
+        if (perUnitRate != null) {
+            return perUnitRate;
+        }
+        CurrencyNotFoundException failure = batch.failures.get(currencyId);
+        if (failure != null) {
+            throw failure;
+        }
+        try {
+            perUnitRate = conversionService.perUnitRate(batch.matrix, currencyId);
+        } catch (CurrencyNotFoundException e) {
+            batch.failures.put(currencyId, e);
+            throw e;
+        }
+        batch.perUnitRates.put(currencyId, perUnitRate);
+        return perUnitRate;
+    }
+
+    private static final class Batch {
+        final RateMatrix matrix;
+        final Map<Integer, Long> perUnitRates = new HashMap<>();
+        final Map<Integer, CurrencyNotFoundException> failures = new HashMap<>();
+        SequenceWriter results;
+        long count;
+
+        Batch(RateMatrix matrix) {
+            this.matrix = matrix;
+        }
+
+        void write(ConversionResult result) throws IOException {
+            results.write(result);
+            if (++count % FLUSH_EVERY == 0) {
+                results.flush();
+            }
+        }
+    }
+}
@@ -1,127 +1,259 @@
 package com.example.currency.service;
 
-import com.example.currency.cache.SimpleCache;
+import com.example.currency.cache.CacheInvalidator;
+import com.example.currency.cache.CacheTag;
+import com.example.currency.cache.CurrencyCache;
+import com.example.currency.cache.SingleFlight;
+import com.example.currency.conversion.RateMatrix;
+import com.example.currency.conversion.RateMatrixHolder;
+import com.example.currency.dto.CurrencyView;
+import com.example.currency.dto.RateUpdate;
+import com.example.currency.dto.RateView;
+import com.example.currency.history.RateHistoryStore;
 import com.example.currency.models.CurrencyRate;
+import com.example.currency.repository.AfterCommit;
 import com.example.currency.repository.CurrencyRateRepository;
+import com.example.currency.repository.RateRow;
+import com.example.currency.schedule.RatePublicationSchedule;
+import com.example.currency.stream.RateUpdateBroadcaster;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 @Service
 public class CurrencyConversionService {
+    private static final String ALL_RATES = "allRates";
+
     private final CurrencyService currencyService;
     private final CurrencyRateRepository currencyRateRepository;
-    private final SimpleCache cacheService;
+    private final CurrencyCache cacheService;
+    private final RateMatrixHolder rateMatrixHolder;
+    private final SingleFlight<LocalDate, RateMatrix> matrixLoads;
+    private final RateHistoryStore historyStore;
+    private final CacheInvalidator cacheInvalidator;
+    private final RateUpdateBroadcaster updateBroadcaster;
+    private final RatePublicationSchedule schedule;
 
     public CurrencyConversionService(
             CurrencyService currencyService,
             CurrencyRateRepository currencyRateRepository,
-            SimpleCache cacheService) {
+            CurrencyCache cacheService,
+            RateMatrixHolder rateMatrixHolder,
+            RateHistoryStore historyStore,
+            CacheInvalidator cacheInvalidator,
+            RateUpdateBroadcaster updateBroadcaster,
+            RatePublicationSchedule schedule,
+            @Value("${currency.rates.load-timeout:PT10S}") Duration rateLoadTimeout) {
         this.currencyService = currencyService;
         this.currencyRateRepository = currencyRateRepository;
         this.cacheService = cacheService;
+        this.rateMatrixHolder = rateMatrixHolder;
+        this.matrixLoads = new SingleFlight<>(rateLoadTimeout);
+        this.historyStore = historyStore;
+        this.cacheInvalidator = cacheInvalidator;
+        this.updateBroadcaster = updateBroadcaster;
+        this.schedule = schedule;
     }
 
+    @Timed(value = "currency.conversion", description = "Single currency conversion latency")
     public BigDecimal convertCurrency(Integer fromCurrencyId, Integer toCurrencyId, BigDecimal amount) {
-        String cacheKey = "convert:" + fromCurrencyId + ":" + toCurrencyId + ":" + amount.toString();
-        Optional<Object> cached = cacheService.get(cacheKey);
-        if (cached.isPresent()) {
-            return (BigDecimal) cached.get();
-        }
-
-        CurrencyRate fromRate = currencyService.getCurrencyRate(fromCurrencyId);
-        CurrencyRate toRate = currencyService.getCurrencyRate(toCurrencyId);
+        RateMatrix matrix = currentRateMatrix();
+        long fromRatePerUnit = perUnitRate(matrix, fromCurrencyId);
+        long toRatePerUnit = perUnitRate(matrix, toCurrencyId);
+        return RateMatrix.convert(amount, fromRatePerUnit, toRatePerUnit);
+    }
 
-        BigDecimal fromRatePerUnit = fromRate.getOfficialRate()
-                .divide(BigDecimal.valueOf(fromRate.getScale()), 6, RoundingMode.HALF_UP);
+    public RateMatrix currentRateMatrix() {
+        LocalDate today = schedule.servedRateDate();
+        RateMatrix matrix = rateMatrixHolder.get();
+        if (matrix.getDate().equals(today)) {
+            return matrix;
+        }
+        return matrixLoads.execute(today, () -> loadRateMatrix(today));
+    }
 
-        BigDecimal toRatePerUnit = toRate.getOfficialRate()
-                .divide(BigDecimal.valueOf(toRate.getScale()), 6, RoundingMode.HALF_UP);
+    private RateMatrix loadRateMatrix(LocalDate date) {
+        RateMatrix current = rateMatrixHolder.get();
+        if (current.getDate().equals(date)) {
+            return current;
+        }
+        RateMatrix.Builder builder = RateMatrix.builder(date);
+        for (RateView rate : currencyRateRepository.findViewsByDate(date)) {
+            builder.put(rate.currencyId(), RateMatrix.perUnitRate(rate.officialRate(), rate.scale()));
+        }
+        RateMatrix matrix = builder.build();
+        rateMatrixHolder.publish(matrix);
+        return matrix;
+    }
 
-        BigDecimal result = amount.multiply(fromRatePerUnit)
-                .divide(toRatePerUnit, 2, RoundingMode.HALF_UP);
+    public long perUnitRate(RateMatrix matrix, Integer currencyId) {
+        long perUnitRate = matrix.perUnitRate(currencyId);
+        if (perUnitRate != RateMatrix.MISSING) {
+            return perUnitRate;
+        }
+        RateView rate = currencyService.getCurrencyRate(currencyId);
+        perUnitRate = RateMatrix.perUnitRate(rate.officialRate(), rate.scale());
+        if (matrix.getDate().equals(rate.date())) {
+            rateMatrixHolder.put(matrix.getDate(), currencyId, perUnitRate);
+        }
+        return perUnitRate;
+    }
 
-        cacheService.put(cacheKey, result);
-        return result;
+    private void refreshRateMatrix(CurrencyRate rate) {
+        if (rate.getCurrency() != null && rate.getCurrency().getId() != null && rate.getDate() != null) {
+            rateMatrixHolder.put(rate.getDate(), rate.getCurrency().getId(), RateMatrix.perUnitRate(rate));
+            historyStore.append(new RateRow(rate.getCurrency().getId(), rate.getDate(), rate.getOfficialRate(), rate.getScale()));
+        }
     }
 
     public CurrencyRate createRate(CurrencyRate rate) {
         CurrencyRate savedRate = currencyRateRepository.save(rate);
-        String cacheKey = generateCacheKey(rate.getCurrency().getAbbreviation(), rate.getDate());
-        cacheService.put(cacheKey, List.of(savedRate));
+        refreshRateMatrix(savedRate);
+        cacheInvalidator.invalidate(invalidationTags(savedRate));
+        updateBroadcaster.publish(RateUpdate.of(RateUpdate.Type.CREATED, savedRate));
         return savedRate;
     }
 
-    public List<CurrencyRate> getAllRates() {
-        String cacheKey = "allRates";
-        Optional<Object> cached = cacheService.get(cacheKey);
+    /**
+     * Every rate in one list. It is cached only while it fits the rate list
+     * region's row budget ({@code currency.cache.rate-lists.max-rows});
+     * larger histories should be read with {@link #getRatesAfter}.
+     */
+    public List<RateView> getAllRates() {
+        Optional<List<RateView>> cached = cacheService.rateLists().get(ALL_RATES);
         if (cached.isPresent()) {
-            return (List<CurrencyRate>) cached.get();
+            return cached.get();
         }
 
-        List<CurrencyRate> rates = currencyRateRepository.findAll();
-        cacheService.put(cacheKey, rates);
+        List<RateView> rates = currencyRateRepository.findAllViews();
+        cacheService.rateLists().put(ALL_RATES, rates, List.of(CacheTag.ALL_RATES));
         return rates;
     }
 
-    public Optional<CurrencyRate> getRateById(Long id) {
-        String cacheKey = "rateById:" + id;
-        Optional<Object> cached = cacheService.get(cacheKey);
+    /**
+     * One page of rates in id order, starting after the given id. Seeking by
+     * id keeps every page an index range scan, however deep the client pages,
+     * so pages are not cached: a client walking the history would otherwise
+     * hold all of it in the cache.
+     */
+    public List<RateView> getRatesAfter(long afterId, int limit) {
+        return currencyRateRepository.findViewsAfter(afterId, PageRequest.ofSize(limit));
+    }
+
+    public Optional<RateView> getRateById(Long id) {
+        Optional<RateView> cached = cacheService.ratesById().get(id);
         if (cached.isPresent()) {
-            return Optional.of((CurrencyRate) cached.get());
+            return cached;
         }
 
-        Optional<CurrencyRate> rate = currencyRateRepository.findById(id);
-        rate.ifPresent(r -> cacheService.put(cacheKey, r));
+        Optional<RateView> rate = currencyRateRepository.findViewById(id);
+        rate.ifPresent(r -> cacheService.ratesById().put(id, r, CacheTag.forRate(r.currencyId(), r.date())));
         return rate;
     }
 
+    @Transactional
     public CurrencyRate updateRate(Long id, CurrencyRate updatedRate) {
-        Optional<CurrencyRate> existingRate = currencyRateRepository.findById(id);
+        Optional<CurrencyRate> existingRate = currencyRateRepository.findWithCurrencyById(id);
         if (existingRate.isPresent()) {
             CurrencyRate rate = existingRate.get();
+            List<CacheTag> tags = new ArrayList<>(invalidationTags(rate));
+            LocalDate oldDate = rate.getDate();
+            Integer oldCurrencyId = rate.getCurrency() != null ? rate.getCurrency().getId() : null;
             rate.setOfficialRate(updatedRate.getOfficialRate());
             rate.setScale(updatedRate.getScale());
             rate.setDate(updatedRate.getDate());
-            rate.setCurrency(updatedRate.getCurrency());
-            CurrencyRate savedRate = currencyRateRepository.save(rate);
-            String cacheKey = generateCacheKey(rate.getCurrency().getAbbreviation(), rate.getDate());
-            cacheService.put(cacheKey, List.of(savedRate));
-            cacheService.remove("rateById:" + id);
+            // keep the fetched currency unless it changes, so the result is usable outside the transaction
+            if (updatedRate.getCurrency() == null
+                    || !Objects.equals(updatedRate.getCurrency().getId(), rate.getCurrency().getId())) {
+                rate.setCurrency(updatedRate.getCurrency());
+            }
+            // flushed first, so constraint violations surface before anything outside the database changes
+            CurrencyRate savedRate = currencyRateRepository.saveAndFlush(rate);
+            boolean moved = oldDate != null && oldCurrencyId != null && (!oldDate.equals(savedRate.getDate())
+                    || savedRate.getCurrency() == null || !oldCurrencyId.equals(savedRate.getCurrency().getId()));
+            AfterCommit.run(() -> {
+                if (moved) {
+                    // the rate moved to another currency or date; its old slot must not keep converting at it
+                    rateMatrixHolder.remove(oldDate, oldCurrencyId);
+                    historyStore.remove(oldCurrencyId, oldDate);
+                }
+                refreshRateMatrix(savedRate);
+            });
+            tags.addAll(invalidationTags(savedRate));
+            cacheInvalidator.invalidate(tags);
+            AfterCommit.run(() -> updateBroadcaster.publish(RateUpdate.of(RateUpdate.Type.UPDATED, savedRate)));
             return savedRate;
         }
         throw new RuntimeException("Rate not found with id: " + id);
     }
 
     public void deleteRate(Long id) {
-        Optional<CurrencyRate> rate = currencyRateRepository.findById(id);
+        Optional<CurrencyRate> rate = currencyRateRepository.findWithCurrencyById(id);
         if (rate.isPresent()) {
-            String cacheKey = generateCacheKey(rate.get().getCurrency().getAbbreviation(), rate.get().getDate());
             currencyRateRepository.deleteById(id);
-            cacheService.remove(cacheKey);
-            cacheService.remove("rateById:" + id);
+            LocalDate date = rate.get().getDate();
+            Integer currencyId = rate.get().getCurrency().getId();
+            AfterCommit.run(() -> {
+                rateMatrixHolder.remove(date, currencyId);
+                historyStore.remove(currencyId, date);
+            });
+            cacheInvalidator.invalidate(invalidationTags(rate.get()));
+            updateBroadcaster.publish(RateUpdate.of(RateUpdate.Type.DELETED, rate.get()));
         } else {
             throw new RuntimeException("Rate not found with id: " + id);
         }
     }
 
-    public List<CurrencyRate> getRatesByAbbreviationAndDate(String abbreviation, LocalDate date) {
+    public List<RateView> getRatesByAbbreviationAndDate(String abbreviation, LocalDate date) {
         String cacheKey = generateCacheKey(abbreviation, date);
-        Optional<Object> cached = cacheService.get(cacheKey);
+        Optional<List<RateView>> cached = cacheService.rateLists().get(cacheKey);
         if (cached.isPresent()) {
-            return (List<CurrencyRate>) cached.get();
+            return cached.get();
         }
 
-        List<CurrencyRate> rates = currencyRateRepository.findByCurrencyAbbreviationAndDate(abbreviation, date);
-        cacheService.put(cacheKey, rates);
+        List<RateView> rates = currencyRateRepository.findViewsByAbbreviationAndDate(abbreviation, date);
+        List<CacheTag> tags = new ArrayList<>();
+        tags.add(CacheTag.ratesList(abbreviation, date));
+        tags.add(CacheTag.date(date));
+        rates.forEach(r -> {
+            tags.add(CacheTag.currency(r.currencyId()));
+            tags.add(CacheTag.rate(r.currencyId(), date));
+        });
+        cacheService.rateLists().put(cacheKey, rates, tags);
         return rates;
     }
 
     private String generateCacheKey(String abbreviation, LocalDate date) {
-        return "rates:" + abbreviation + ":" + date.toString();
+        return CacheTag.ratesList(abbreviation, date).value();
+    }
+
+    private List<CacheTag> invalidationTags(CurrencyRate rate) {
+        List<CacheTag> tags = new ArrayList<>();
+        tags.add(CacheTag.ALL_RATES);
+        if (rate.getDate() != null && rate.getCurrency() != null) {
+            Integer currencyId = rate.getCurrency().getId();
+            String abbreviation = rate.getCurrency().getAbbreviation();
+            if (currencyId != null) {
+                tags.add(CacheTag.rate(currencyId, rate.getDate()));
+                if (abbreviation == null) {
+                    // request bodies usually carry only the currency id
+                    abbreviation = currencyService.getCurrencyById(currencyId).map(CurrencyView::abbreviation).orElse(null);
+                }
+            }
+            if (abbreviation != null) {
+                tags.add(CacheTag.ratesList(abbreviation, rate.getDate()));
+            }
+        }
+        return tags;
     }
 }
\ No newline at end of file
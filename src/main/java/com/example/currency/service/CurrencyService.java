@@ -1,106 +1,168 @@
 package com.example.currency.service;
 
-import com.example.currency.cache.SimpleCache;
+import com.example.currency.cache.CacheInvalidator;
+import com.example.currency.cache.CacheTag;
+import com.example.currency.cache.CurrencyCache;
+import com.example.currency.cache.RateKey;
+import com.example.currency.cache.SingleFlight;
 import com.example.currency.client.NbrbApiClient;
+import com.example.currency.client.UpstreamUnavailableException;
+import com.example.currency.dto.CurrencyView;
+import com.example.currency.dto.RateView;
 import com.example.currency.models.CurrencyInfo;
 import com.example.currency.models.CurrencyRate;
 import com.example.currency.repository.CurrencyInfoRepository;
 import com.example.currency.repository.CurrencyRateRepository;
+import com.example.currency.repository.RateRow;
+import com.example.currency.schedule.RatePublicationSchedule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
 @Service
 public class CurrencyService {
+    private static final Logger logger = LoggerFactory.getLogger(CurrencyService.class);
+    private static final String ALL_CURRENCIES = "allCurrencies";
+    private static final String ALL_CURRENCIES_FROM_DB = "allCurrenciesFromDb";
+
     private final CurrencyInfoRepository currencyInfoRepository;
     private final CurrencyRateRepository currencyRateRepository;
     private final NbrbApiClient apiClient;
-    private final SimpleCache cacheService;
+    private final CurrencyCache cacheService;
+    private final SingleFlight<RateKey, RateView> rateLoads;
+    private final RateWriteBehindQueue rateWriter;
+    private final CacheInvalidator cacheInvalidator;
+    private final RatePublicationSchedule schedule;
 
     public CurrencyService(
             CurrencyInfoRepository currencyInfoRepository,
             CurrencyRateRepository currencyRateRepository,
             NbrbApiClient apiClient,
-            SimpleCache cacheService) {
+            CurrencyCache cacheService,
+            RateWriteBehindQueue rateWriter,
+            CacheInvalidator cacheInvalidator,
+            RatePublicationSchedule schedule,
+            @Value("${currency.rates.load-timeout:PT10S}") Duration rateLoadTimeout) {
         this.currencyInfoRepository = currencyInfoRepository;
         this.currencyRateRepository = currencyRateRepository;
         this.apiClient = apiClient;
         this.cacheService = cacheService;
+        this.rateLoads = new SingleFlight<>(rateLoadTimeout);
+        this.rateWriter = rateWriter;
+        this.cacheInvalidator = cacheInvalidator;
+        this.schedule = schedule;
     }
 
-    public List<CurrencyInfo> getAllCurrencies() {
-        String cacheKey = "allCurrencies";
-        Optional<Object> cached = cacheService.get(cacheKey);
+    public List<CurrencyView> getAllCurrencies() {
+        Optional<List<CurrencyView>> cached = cacheService.currencyLists().get(ALL_CURRENCIES);
         if (cached.isPresent()) {
-            return (List<CurrencyInfo>) cached.get();
+            return cached.get();
         }
 
-        List<CurrencyInfo> dbCurrencies = currencyInfoRepository.findAll();
+        List<CurrencyView> dbCurrencies = currencyInfoRepository.findAllViews();
         if (dbCurrencies.isEmpty()) {
             List<CurrencyInfo> apiCurrencies = apiClient.getAllCurrencies();
-            dbCurrencies = currencyInfoRepository.saveAll(apiCurrencies);
+            dbCurrencies = currencyInfoRepository.saveAll(apiCurrencies).stream().map(CurrencyView::from).toList();
         }
-        cacheService.put(cacheKey, dbCurrencies);
+        cacheService.currencyLists().put(ALL_CURRENCIES, dbCurrencies, List.of(CacheTag.CURRENCY_LISTS));
         return dbCurrencies;
     }
 
-    public CurrencyRate getCurrencyRate(Integer currencyId) {
-        String cacheKey = "rate:" + currencyId + ":" + LocalDate.now();
-        Optional<Object> cached = cacheService.get(cacheKey);
+    public RateView getCurrencyRate(Integer currencyId) {
+        RateKey cacheKey = new RateKey(currencyId, schedule.servedRateDate());
+        Optional<RateView> cached = cacheService.dailyRates().get(cacheKey);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        return rateLoads.execute(cacheKey, () -> loadCurrencyRate(cacheKey));
+    }
+
+    private RateView loadCurrencyRate(RateKey cacheKey) {
+        Optional<RateView> cached = cacheService.dailyRates().get(cacheKey);
         if (cached.isPresent()) {
-            return ((List<CurrencyRate>) cached.get()).get(0);
+            return cached.get();
         }
 
-        Optional<CurrencyInfo> currency = currencyInfoRepository.findById(currencyId);
-        if (currency.isPresent()) {
-            List<CurrencyRate> rates = currency.get().getRates();
-            Optional<CurrencyRate> latestRate = rates.stream()
-                    .filter(rate -> rate.getDate().equals(LocalDate.now()))
-                    .findFirst();
-            if (latestRate.isPresent()) {
-                cacheService.put(cacheKey, List.of(latestRate.get()));
-                return latestRate.get();
-            }
+        Integer currencyId = cacheKey.currencyId();
+        Optional<RateView> storedRate = currencyRateRepository.findViewByCurrencyIdAndDate(currencyId, cacheKey.date());
+        if (storedRate.isPresent()) {
+            cacheService.dailyRates().put(cacheKey, storedRate.get(), CacheTag.forRate(currencyId, cacheKey.date()));
+            return storedRate.get();
         }
 
-        CurrencyRate rate = apiClient.getCurrencyRate(currencyId);
-        if (currency.isPresent()) {
-            rate.setCurrency(currency.get());
-            currencyRateRepository.save(rate);
-            cacheService.put(cacheKey, List.of(rate));
+        CurrencyRate rate;
+        try {
+            rate = apiClient.getCurrencyRate(currencyId);
+        } catch (UpstreamUnavailableException e) {
+            return lastKnownRate(cacheKey).orElseThrow(() -> e);
+        }
+        LocalDate rateDate = rate.getDate() != null ? rate.getDate() : cacheKey.date();
+        Optional<CurrencyView> currency = getCurrencyById(currencyId);
+        if (currency.isEmpty()) {
+            return new RateView(null, currencyId, null, rate.getOfficialRate(), rate.getScale(), rateDate);
         }
+        RateView view = new RateView(null, currencyId, currency.get().abbreviation(),
+                rate.getOfficialRate(), rate.getScale(), rateDate);
+        // served from the cache right away; stored, and the cached lists invalidated, by the next flush
+        cacheService.dailyRates().put(cacheKey, view, CacheTag.forRate(currencyId, cacheKey.date()));
+        rateWriter.submit(new RateRow(currencyId, rateDate, view.officialRate(), view.scale()), view.abbreviation());
+        return view;
+    }
+
+    /**
+     * Caches rates loaded ahead of their publication, so the first requests
+     * for them are hits.
+     */
+    public void primeDailyRates(LocalDate date, List<RateRow> rows) {
+        for (RateRow row : rows) {
+            String abbreviation = getCurrencyById(row.currencyId()).map(CurrencyView::abbreviation).orElse(null);
+            RateView view = new RateView(null, row.currencyId(), abbreviation, row.officialRate(), row.scale(), row.date());
+            cacheService.dailyRates().put(new RateKey(row.currencyId(), date), view, CacheTag.forRate(row.currencyId(), date));
+        }
+    }
+
+    private Optional<RateView> lastKnownRate(RateKey cacheKey) {
+        Optional<RateView> rate = currencyRateRepository
+                .findLatestViews(cacheKey.currencyId(), cacheKey.date(), PageRequest.ofSize(1))
+                .stream()
+                .findFirst();
+        rate.ifPresent(r -> logger.warn("NBRB unavailable, serving last known rate for currency {} from {}",
+                cacheKey.currencyId(), r.date()));
         return rate;
     }
 
     public CurrencyInfo createCurrency(CurrencyInfo currencyInfo) {
         CurrencyInfo saved = currencyInfoRepository.save(currencyInfo);
-        cacheService.clear();
+        cacheInvalidator.invalidate(CacheTag.CURRENCY_LISTS, CacheTag.currency(saved.getId()));
         return saved;
     }
 
-    public List<CurrencyInfo> getAllCurrenciesFromDb() {
-        String cacheKey = "allCurrenciesFromDb";
-        Optional<Object> cached = cacheService.get(cacheKey);
+    public List<CurrencyView> getAllCurrenciesFromDb() {
+        Optional<List<CurrencyView>> cached = cacheService.currencyLists().get(ALL_CURRENCIES_FROM_DB);
         if (cached.isPresent()) {
-            return (List<CurrencyInfo>) cached.get();
+            return cached.get();
         }
 
-        List<CurrencyInfo> currencies = currencyInfoRepository.findAll();
-        cacheService.put(cacheKey, currencies);
+        List<CurrencyView> currencies = currencyInfoRepository.findAllViews();
+        cacheService.currencyLists().put(ALL_CURRENCIES_FROM_DB, currencies, List.of(CacheTag.CURRENCY_LISTS));
         return currencies;
     }
 
-    public Optional<CurrencyInfo> getCurrencyById(Integer id) {
-        String cacheKey = "currency:" + id;
-        Optional<Object> cached = cacheService.get(cacheKey);
+    public Optional<CurrencyView> getCurrencyById(Integer id) {
+        Optional<CurrencyView> cached = cacheService.currencies().get(id);
         if (cached.isPresent()) {
-            return Optional.of((CurrencyInfo) cached.get());
+            return cached;
         }
 
-        Optional<CurrencyInfo> currency = currencyInfoRepository.findById(id);
-        currency.ifPresent(c -> cacheService.put(cacheKey, c));
+        Optional<CurrencyView> currency = currencyInfoRepository.findViewById(id);
+        currency.ifPresent(c -> cacheService.currencies().put(id, c, List.of(CacheTag.currency(id))));
         return currency;
     }
 
@@ -113,7 +175,8 @@ public class CurrencyService {
             currency.setName(updatedCurrency.getName());
             currency.setScale(updatedCurrency.getScale());
             CurrencyInfo saved = currencyInfoRepository.save(currency);
-            cacheService.clear();
+            // cached rates embed the currency
+            cacheInvalidator.invalidate(CacheTag.CURRENCY_LISTS, CacheTag.currency(id), CacheTag.ALL_RATES);
             return saved;
         }
         throw new RuntimeException("Currency not found with id: " + id);
@@ -121,6 +184,6 @@ public class CurrencyService {
 
     public void deleteCurrency(Integer id) {
         currencyInfoRepository.deleteById(id);
-        cacheService.clear();
+        cacheInvalidator.invalidate(CacheTag.CURRENCY_LISTS, CacheTag.currency(id), CacheTag.ALL_RATES);
     }
-}
\ No newline at end of file
+}
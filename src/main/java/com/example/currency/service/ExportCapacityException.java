@@ -0,0 +1,7 @@
+package com.example.currency.service;
+
+public class ExportCapacityException extends RuntimeException {
+    public ExportCapacityException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.currency.service;
+
+import com.example.currency.dto.RateImportRecord;
+import com.example.currency.repository.RateExportRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Service
+public class RateExportService {
+    private static final Logger logger = LoggerFactory.getLogger(RateExportService.class);
+    static final String CSV_HEADER = "abbreviation,date,rate,scale";
+
+    private final RateExportRepository exportRepository;
+    private final ObjectWriter recordWriter;
+    private final Semaphore slots;
+    private final int maxConcurrency;
+
+    public RateExportService(RateExportRepository exportRepository, ObjectMapper objectMapper,
+                             @Value("${currency.export.max-concurrency:2}") int maxConcurrency) {
+        this.exportRepository = exportRepository;
+        this.slots = new Semaphore(maxConcurrency);
+        this.maxConcurrency = maxConcurrency;
+        this.recordWriter = objectMapper.writerFor(RateImportRecord.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator("\n");
+    }
+
+    /**
+     * Takes one of the export slots or fails at once when all are in use.
+     * An export holds a database connection for as long as the client takes
+     * to read it, so a few slow downloads must not starve the other
+     * requests of the pool. Close the slot when the export is done.
+     */
+    public Slot reserveSlot() {
+        if (!slots.tryAcquire()) {
+            throw new ExportCapacityException("All " + maxConcurrency + " export slots are in use");
+        }
+        return new Slot();
+    }
+
+    /**
+     * Writes the matching rates in the format the import endpoint reads, so
+     * an export can be imported into another instance as is. Rows go to the
+     * output as they are read from the cursor.
+     */
+    public long export(LocalDate from, LocalDate to, Collection<Integer> currencyIds,
+                       RateImportService.Format format, OutputStream out) throws IOException {
+        long started = System.nanoTime();
+        long count;
+        try {
+            count = format == RateImportService.Format.CSV
+                    ? exportCsv(from, to, currencyIds, out)
+                    : exportNdjson(from, to, currencyIds, out);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        logger.info("Exported {} rates as {} in {} ms", count, format, (System.nanoTime() - started) / 1_000_000);
+        return count;
+    }
+
+    private long exportCsv(LocalDate from, LocalDate to, Collection<Integer> currencyIds, OutputStream out)
+            throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        long count = exportRepository.forEach(from, to, currencyIds, record -> {
+            try {
+                writer.write(record.abbreviation() + ',' + record.date() + ',' + record.rate().toPlainString()
+                        + ',' + record.scale() + '\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        writer.flush();
+        return count;
+    }
+
+    private long exportNdjson(LocalDate from, LocalDate to, Collection<Integer> currencyIds, OutputStream out)
+            throws IOException {
+        try (SequenceWriter records = recordWriter.writeValues(out)) {
+            long count = exportRepository.forEach(from, to, currencyIds, record -> {
+                try {
+                    records.write(record);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            records.flush();
+            if (count > 0) {
+                out.write('\n');
+            }
+            return count;
+        }
+    }
+
+    public final class Slot implements AutoCloseable {
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Slot() {
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                slots.release();
+            }
+        }
+    }
+}
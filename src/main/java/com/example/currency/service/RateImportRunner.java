@@ -0,0 +1,64 @@
+package com.example.currency.service;
+
+import com.example.currency.dto.ImportResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * CLI mode: {@code java -jar app.jar --currency.import.file=rates.csv} imports
+ * the file once the application is ready and then exits with status 0, or 1
+ * if the file could not be read. Runs after the history store has been
+ * rebuilt so imported rows are not mistaken for a complete history.
+ */
+@Component
+@ConditionalOnProperty(name = "currency.import.file")
+public class RateImportRunner {
+    private static final Logger logger = LoggerFactory.getLogger(RateImportRunner.class);
+
+    private final RateImportService importService;
+    private final ApplicationContext context;
+    private final Path file;
+    private final boolean exitAfterImport;
+
+    public RateImportRunner(
+            RateImportService importService,
+            ApplicationContext context,
+            @Value("${currency.import.file}") Path file,
+            @Value("${currency.import.exit:true}") boolean exitAfterImport) {
+        this.importService = importService;
+        this.context = context;
+        this.file = file;
+        this.exitAfterImport = exitAfterImport;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void importFile() {
+        int exitCode = 0;
+        try (InputStream in = Files.newInputStream(file)) {
+            ImportResult result = importService.importRates(in, RateImportService.Format.fromFileName(file.toString()));
+            result.errors().forEach(error -> logger.warn("Skipped {}", error));
+        } catch (IOException | RuntimeException e) {
+            logger.error("Import of {} failed: {}", file, e.getMessage(), e);
+            exitCode = 1;
+        }
+        if (exitAfterImport) {
+            int status = exitCode;
+            System.exit(SpringApplication.exit(context, () -> status));
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.currency.service;
+
+import com.example.currency.cache.CacheInvalidator;
+import com.example.currency.cache.CacheTag;
+import com.example.currency.conversion.RateMatrix;
+import com.example.currency.conversion.RateMatrixHolder;
+import com.example.currency.dto.CurrencyView;
+import com.example.currency.dto.ImportResult;
+import com.example.currency.dto.RateImportRecord;
+import com.example.currency.history.RateHistoryStore;
+import com.example.currency.repository.CurrencyInfoRepository;
+import com.example.currency.repository.CurrencyRateBatchRepository;
+import com.example.currency.repository.RateRow;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+@Service
+public class RateImportService {
+    private static final Logger logger = LoggerFactory.getLogger(RateImportService.class);
+    private static final int MAX_REPORTED_ERRORS = 20;
+    private static final Comparator<RateRow> INSERT_ORDER =
+            Comparator.comparingInt(RateRow::currencyId).thenComparing(RateRow::date);
+
+    public enum Format {
+        CSV,
+        NDJSON;
+
+        public static Format fromFileName(String fileName) {
+            String lower = fileName.toLowerCase(Locale.ROOT);
+            return lower.endsWith(".ndjson") || lower.endsWith(".jsonl") || lower.endsWith(".json") ? NDJSON : CSV;
+        }
+    }
+
+    private final CurrencyInfoRepository currencyInfoRepository;
+    private final CurrencyRateBatchRepository batchRepository;
+    private final RateHistoryStore historyStore;
+    private final RateMatrixHolder rateMatrixHolder;
+    private final CacheInvalidator cacheInvalidator;
+    private final ObjectReader recordReader;
+    private final int chunkSize;
+
+    public RateImportService(
+            CurrencyInfoRepository currencyInfoRepository,
+            CurrencyRateBatchRepository batchRepository,
+            RateHistoryStore historyStore,
+            RateMatrixHolder rateMatrixHolder,
+            CacheInvalidator cacheInvalidator,
+            ObjectMapper objectMapper,
+            @Value("${currency.import.chunk-size:5000}") int chunkSize) {
+        this.currencyInfoRepository = currencyInfoRepository;
+        this.batchRepository = batchRepository;
+        this.historyStore = historyStore;
+        this.rateMatrixHolder = rateMatrixHolder;
+        this.cacheInvalidator = cacheInvalidator;
+        this.recordReader = objectMapper.readerFor(RateImportRecord.class);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Streams (abbreviation, date, rate, scale) records and writes them in
+     * chunks through JDBC batch upserts, sorted by (currency, date) within
+     * each chunk. Currency ids are resolved from a map loaded once per import.
+     * Re-importing the same file is idempotent. Invalid lines are skipped and
+     * the first few are reported in the result.
+     */
+    public ImportResult importRates(InputStream in, Format format) throws IOException {
+        Progress progress = new Progress(currencyIdsByAbbreviation());
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            String line;
+            long lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || (format == Format.CSV && lineNumber == 1
+                        && line.toLowerCase(Locale.ROOT).startsWith("abbreviation"))) {
+                    continue;
+                }
+                progress.read++;
+                RateImportRecord record;
+                try {
+                    // one JSON value per line, so a bad record cannot end the import
+                    record = format == Format.NDJSON ? recordReader.readValue(line) : parseCsv(line);
+                } catch (JsonProcessingException e) {
+                    progress.reject(lineNumber, e.getOriginalMessage());
+                    continue;
+                } catch (RuntimeException e) {
+                    progress.reject(lineNumber, e.getMessage());
+                    continue;
+                }
+                progress.accept(lineNumber, record);
+            }
+            progress.flush();
+        } finally {
+            // also after a failed chunk: earlier chunks are already written
+            if (!progress.dates.isEmpty()) {
+                List<CacheTag> tags = new ArrayList<>();
+                tags.add(CacheTag.ALL_RATES);
+                progress.dates.forEach(date -> tags.add(CacheTag.date(date)));
+                cacheInvalidator.invalidate(tags);
+            }
+        }
+        ImportResult result = progress.result();
+        logger.info("Imported {} of {} rates ({} skipped) in {} ms, {} rows/s",
+                result.imported(), result.read(), result.skipped(), result.elapsedMillis(),
+                Math.round(result.rowsPerSecond()));
+        return result;
+    }
+
+    private Map<String, Integer> currencyIdsByAbbreviation() {
+        Map<String, Integer> ids = new HashMap<>();
+        for (CurrencyView currency : currencyInfoRepository.findAllViews()) {
+            if (currency.abbreviation() != null) {
+                ids.putIfAbsent(currency.abbreviation().toUpperCase(Locale.ROOT), currency.id());
+            }
+        }
+        return ids;
+    }
+
+    private static RateImportRecord parseCsv(String line) {
+        String[] fields = line.split("[,;]", -1);
+        if (fields.length != 4) {
+            throw new IllegalArgumentException("expected 4 fields but got " + fields.length);
+        }
+        return new RateImportRecord(
+                fields[0].trim(),
+                LocalDate.parse(fields[1].trim()),
+                new BigDecimal(fields[2].trim()),
+                Integer.valueOf(fields[3].trim()));
+    }
+
+    private final class Progress {
+        private final Map<String, Integer> currencyIds;
+        private final List<RateRow> chunk = new ArrayList<>(chunkSize);
+        private final List<String> errors = new ArrayList<>();
+        private final Set<LocalDate> dates = new TreeSet<>();
+        private final long started = System.nanoTime();
+        private long read;
+        private long imported;
+        private long skipped;
+
+        Progress(Map<String, Integer> currencyIds) {
+            this.currencyIds = currencyIds;
+        }
+
+        void accept(long line, RateImportRecord record) {
+            if (record.abbreviation() == null || record.date() == null || record.rate() == null || record.scale() == null) {
+                reject(line, "abbreviation, date, rate and scale are required");
+                return;
+            }
+            if (record.rate().signum() <= 0 || record.scale() <= 0) {
+                reject(line, "rate and scale must be positive");
+                return;
+            }
+            Integer currencyId = currencyIds.get(record.abbreviation().toUpperCase(Locale.ROOT));
+            if (currencyId == null) {
+                reject(line, "unknown currency " + record.abbreviation());
+                return;
+            }
+            chunk.add(new RateRow(currencyId, record.date(), record.rate(), record.scale()));
+            if (chunk.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        void reject(long line, String reason) {
+            skipped++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add("line " + line + ": " + reason);
+            }
+        }
+
+        void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            chunk.sort(INSERT_ORDER);
+            chunk.forEach(row -> dates.add(row.date()));
+            batchRepository.upsert(chunk);
+            historyStore.appendAll(chunk);
+            for (RateRow row : chunk) {
+                rateMatrixHolder.put(row.date(), row.currencyId(), RateMatrix.perUnitRate(row.officialRate(), row.scale()));
+            }
+            imported += chunk.size();
+            chunk.clear();
+            logger.info("Import progress: {} rows written, {} skipped, {} rows/s",
+                    imported, skipped, Math.round(rowsPerSecond()));
+        }
+
+        double rowsPerSecond() {
+            double seconds = (System.nanoTime() - started) / 1e9;
+            return seconds > 0 ? imported / seconds : 0;
+        }
+
+        ImportResult result() {
+            long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+            return new ImportResult(read, imported, skipped, elapsedMillis, rowsPerSecond(), List.copyOf(errors));
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.currency.service;
+
+import com.example.currency.schedule.RatePublicationSchedule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+@Component
+@ConditionalOnProperty(name = "currency.ingestion.enabled", havingValue = "true", matchIfMissing = true)
+public class RateIngestionJob {
+    private static final Logger logger = LoggerFactory.getLogger(RateIngestionJob.class);
+
+    private final RateIngestionService ingestionService;
+    private final RatePublicationSchedule schedule;
+    private final boolean runOnStartup;
+
+    public RateIngestionJob(
+            RateIngestionService ingestionService,
+            RatePublicationSchedule schedule,
+            @Value("${currency.ingestion.on-startup:true}") boolean runOnStartup) {
+        this.ingestionService = ingestionService;
+        this.schedule = schedule;
+        this.runOnStartup = runOnStartup;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ingestOnStartup() {
+        if (runOnStartup) {
+            ingestToday();
+        }
+    }
+
+    /**
+     * Skipped while the schedule still holds the previous day: the
+     * refresh-ahead job stores and promotes the new date once its set is
+     * complete, and a matrix published for it now would not be served.
+     */
+    @Scheduled(cron = "${currency.ingestion.cron:0 5 0 * * *}", zone = "${currency.ingestion.zone:Europe/Minsk}")
+    public void ingestToday() {
+        LocalDate today = schedule.currentRateDate();
+        LocalDate served = schedule.servedRateDate();
+        if (!served.equals(today)) {
+            logger.info("Daily rate ingestion for {} skipped: rates for {} are still held", today, served);
+            return;
+        }
+        try {
+            ingestionService.ingest(today);
+        } catch (RuntimeException e) {
+            logger.error("Daily rate ingestion for {} failed: {}", today, e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.currency.service;
+
+import com.example.currency.cache.CacheInvalidator;
+import com.example.currency.cache.CacheTag;
+import com.example.currency.client.NbrbApiClient;
+import com.example.currency.client.NbrbRate;
+import com.example.currency.conversion.RateMatrix;
+import com.example.currency.conversion.RateMatrixHolder;
+import com.example.currency.dto.CurrencyView;
+import com.example.currency.dto.RateUpdate;
+import com.example.currency.history.RateHistoryStore;
+import com.example.currency.repository.CurrencyInfoRepository;
+import com.example.currency.repository.CurrencyRateBatchRepository;
+import com.example.currency.repository.RateRow;
+import com.example.currency.stream.RateUpdateBroadcaster;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class RateIngestionService {
+    private static final Logger logger = LoggerFactory.getLogger(RateIngestionService.class);
+
+    private final NbrbApiClient apiClient;
+    private final CurrencyInfoRepository currencyInfoRepository;
+    private final CurrencyRateBatchRepository batchRepository;
+    private final RateMatrixHolder rateMatrixHolder;
+    private final RateHistoryStore historyStore;
+    private final CacheInvalidator cacheInvalidator;
+    private final RateUpdateBroadcaster updateBroadcaster;
+
+    public RateIngestionService(
+            NbrbApiClient apiClient,
+            CurrencyInfoRepository currencyInfoRepository,
+            CurrencyRateBatchRepository batchRepository,
+            RateMatrixHolder rateMatrixHolder,
+            RateHistoryStore historyStore,
+            CacheInvalidator cacheInvalidator,
+            RateUpdateBroadcaster updateBroadcaster) {
+        this.apiClient = apiClient;
+        this.currencyInfoRepository = currencyInfoRepository;
+        this.batchRepository = batchRepository;
+        this.rateMatrixHolder = rateMatrixHolder;
+        this.historyStore = historyStore;
+        this.cacheInvalidator = cacheInvalidator;
+        this.updateBroadcaster = updateBroadcaster;
+    }
+
+    /**
+     * Fetches every official rate for the given date in one upstream call and
+     * upserts them in JDBC batches. Returns the rows that were written.
+     */
+    public List<RateRow> ingest(LocalDate date) {
+        List<RateRow> rows = fetch(date);
+        apply(date, rows);
+        return rows;
+    }
+
+    /**
+     * Fetches the official rates for the given date without storing them.
+     * Rows keep the date NBRB reports, which is an earlier date if the rates
+     * for {@code date} have not been published yet.
+     */
+    public List<RateRow> fetch(LocalDate date) {
+        List<NbrbRate> rates = apiClient.getDailyRates(date);
+        List<RateRow> rows = toRows(date, rates);
+        logger.debug("Fetched {} of {} rates for {}", rows.size(), rates.size(), date);
+        return rows;
+    }
+
+    /**
+     * Upserts fetched rates and makes them visible: history, the rate matrix,
+     * caches and stream subscribers.
+     */
+    public void apply(LocalDate date, List<RateRow> rows) {
+        batchRepository.upsert(rows);
+        historyStore.appendAll(rows);
+
+        Map<Integer, Long> perUnitRates = new HashMap<>();
+        for (RateRow row : rows) {
+            perUnitRates.put(row.currencyId(), RateMatrix.perUnitRate(row.officialRate(), row.scale()));
+        }
+        rateMatrixHolder.putAll(date, perUnitRates);
+        cacheInvalidator.invalidate(CacheTag.date(date), CacheTag.ALL_RATES);
+        updateBroadcaster.publishAll(rows.stream().map(RateUpdate::ingested).toList());
+        logger.info("Ingested {} rates for {}", rows.size(), date);
+    }
+
+    private List<RateRow> toRows(LocalDate date, List<NbrbRate> rates) {
+        Map<String, Integer> idsByAbbreviation = new HashMap<>();
+        for (CurrencyView currency : currencyInfoRepository.findAllViews()) {
+            if (currency.abbreviation() != null) {
+                idsByAbbreviation.putIfAbsent(currency.abbreviation(), currency.id());
+            }
+        }
+
+        List<RateRow> rows = new ArrayList<>(rates.size());
+        for (NbrbRate rate : rates) {
+            Integer currencyId = idsByAbbreviation.get(rate.abbreviation());
+            if (currencyId == null || rate.officialRate() == null || rate.scale() == null) {
+                logger.debug("Skipping rate for unknown currency {}", rate.abbreviation());
+                continue;
+            }
+            LocalDate rateDate = rate.date() != null ? rate.date().toLocalDate() : date;
+            rows.add(new RateRow(currencyId, rateDate, rate.officialRate(), rate.scale()));
+        }
+        return rows;
+    }
+}
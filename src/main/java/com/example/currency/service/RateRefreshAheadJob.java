@@ -0,0 +1,126 @@
+package com.example.currency.service;
+
+import com.example.currency.repository.RateRow;
+import com.example.currency.schedule.RatePublicationSchedule;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Loads the next day's rates before they take effect and switches to them
+ * at the publication time, so the rollover never sends user requests to
+ * NBRB. Within {@code currency.refresh.lead-time} of the next publication
+ * the job polls NBRB until it returns a complete set for the next date (every
+ * currency of the set currently served), keeps it in memory and, once the
+ * publication time has passed, stores it, primes the caches and promotes
+ * it. Until then the schedule keeps serving the previous day.
+ */
+@Component
+@ConditionalOnProperty(name = "currency.refresh.enabled", havingValue = "true", matchIfMissing = true)
+public class RateRefreshAheadJob {
+    private static final Logger logger = LoggerFactory.getLogger(RateRefreshAheadJob.class);
+
+    private final RateIngestionService ingestionService;
+    private final CurrencyService currencyService;
+    private final RatePublicationSchedule schedule;
+    private final Duration leadTime;
+    private final AtomicReference<StagedRates> staged = new AtomicReference<>();
+    private volatile Set<Integer> expectedCurrencies;
+
+    record StagedRates(LocalDate date, List<RateRow> rows) {
+    }
+
+    public RateRefreshAheadJob(
+            RateIngestionService ingestionService,
+            CurrencyService currencyService,
+            RatePublicationSchedule schedule,
+            @Value("${currency.refresh.lead-time:PT12H}") Duration leadTime) {
+        this.ingestionService = ingestionService;
+        this.currencyService = currencyService;
+        this.schedule = schedule;
+        this.leadTime = leadTime;
+    }
+
+    @PostConstruct
+    public void start() {
+        // hold the current day from now on, until the next one is promoted
+        schedule.promote(schedule.currentRateDate());
+    }
+
+    @Scheduled(fixedDelayString = "${currency.refresh.poll-interval:PT5M}")
+    public void prepare() {
+        LocalDate next = schedule.servedRateDate().plusDays(1);
+        StagedRates current = staged.get();
+        if (current != null && !current.date().isBefore(next)) {
+            return;
+        }
+        if (schedule.untilNextPublication().compareTo(leadTime) > 0) {
+            return;
+        }
+        try {
+            if (expectedCurrencies == null) {
+                LocalDate served = schedule.servedRateDate();
+                expectedCurrencies = currencyIds(publishedFor(served, ingestionService.fetch(served)));
+            }
+            List<RateRow> rows = publishedFor(next, ingestionService.fetch(next));
+            Set<Integer> currencies = currencyIds(rows);
+            if (rows.isEmpty() || !currencies.containsAll(expectedCurrencies)) {
+                logger.info("Rates for {} not complete yet: {} of {} currencies", next, currencies.size(),
+                        expectedCurrencies.size());
+                return;
+            }
+            staged.set(new StagedRates(next, rows));
+            logger.info("Staged {} rates for {}, effective at {}", rows.size(), next, schedule.publishedAt(next));
+        } catch (RuntimeException e) {
+            logger.warn("Loading rates for {} ahead failed: {}", next, e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${currency.refresh.promote-interval:PT1S}")
+    public void promoteIfDue() {
+        StagedRates rates = staged.get();
+        if (rates == null || schedule.now().isBefore(schedule.publishedAt(rates.date()))) {
+            return;
+        }
+        try {
+            // stored and cached before the switch, so the first readers of the new date hit the caches
+            ingestionService.apply(rates.date(), rates.rows());
+            currencyService.primeDailyRates(rates.date(), rates.rows());
+        } catch (RuntimeException e) {
+            logger.error("Promoting rates for {} failed, retrying: {}", rates.date(), e.getMessage(), e);
+            return;
+        }
+        schedule.promote(rates.date());
+        staged.compareAndSet(rates, null);
+        expectedCurrencies = currencyIds(rates.rows());
+        logger.info("Promoted {} rates for {}", rates.rows().size(), rates.date());
+    }
+
+    StagedRates getStaged() {
+        return staged.get();
+    }
+
+    private static List<RateRow> publishedFor(LocalDate date, List<RateRow> rows) {
+        // before publication NBRB answers with the latest rates it has, dated earlier
+        return rows.stream().filter(row -> date.equals(row.date())).toList();
+    }
+
+    private static Set<Integer> currencyIds(List<RateRow> rows) {
+        Set<Integer> ids = new HashSet<>();
+        for (RateRow row : rows) {
+            ids.add(row.currencyId());
+        }
+        return ids;
+    }
+}
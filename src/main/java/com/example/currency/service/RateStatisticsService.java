@@ -0,0 +1,29 @@
+package com.example.currency.service;
+
+import com.example.currency.dto.RateStatsBucket;
+import com.example.currency.history.RateAggregator;
+import com.example.currency.history.RateHistoryStore;
+import com.example.currency.history.StatsBucket;
+import com.example.currency.models.CurrencyInfo;
+import com.example.currency.repository.CurrencyInfoRepository;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Service
+public class RateStatisticsService {
+    private final CurrencyInfoRepository currencyInfoRepository;
+    private final RateHistoryStore historyStore;
+
+    public RateStatisticsService(CurrencyInfoRepository currencyInfoRepository, RateHistoryStore historyStore) {
+        this.currencyInfoRepository = currencyInfoRepository;
+        this.historyStore = historyStore;
+    }
+
+    public Optional<List<RateStatsBucket>> getStats(String abbreviation, LocalDate from, LocalDate to, StatsBucket bucket) {
+        Optional<CurrencyInfo> currency = currencyInfoRepository.findFirstByAbbreviation(abbreviation);
+        return currency.map(c -> RateAggregator.aggregate(historyStore.scan(c.getId(), from, to), bucket));
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.currency.service;
+
+import com.example.currency.cache.CacheInvalidator;
+import com.example.currency.cache.CacheTag;
+import com.example.currency.cache.RateKey;
+import com.example.currency.history.RateHistoryStore;
+import com.example.currency.repository.CurrencyRateBatchRepository;
+import com.example.currency.repository.RateRow;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Persists rates fetched from NBRB off the request path. Callers cache the
+ * rate themselves and hand it over here; the queue keeps the latest rate per
+ * (currency, date), and a scheduled flush upserts the pending rows in JDBC
+ * batches, appends them to the history and then invalidates the cached lists
+ * that are read from the database. The queue is bounded: a rate that does
+ * not fit is written synchronously by the caller, as before. A failed flush
+ * puts its rows back for the next attempt. Pending rows are flushed on
+ * shutdown.
+ */
+@Component
+public class RateWriteBehindQueue implements DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(RateWriteBehindQueue.class);
+
+    private final CurrencyRateBatchRepository batchRepository;
+    private final RateHistoryStore historyStore;
+    private final CacheInvalidator cacheInvalidator;
+    private final int capacity;
+    private final int batchSize;
+    private final Map<RateKey, PendingRate> pending = new LinkedHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final Timer flushTimer;
+    private final Counter overflowed;
+    private final Counter dropped;
+
+    record PendingRate(RateRow row, String abbreviation) {
+        RateKey key() {
+            return new RateKey(row.currencyId(), row.date());
+        }
+    }
+
+    public RateWriteBehindQueue(
+            CurrencyRateBatchRepository batchRepository,
+            RateHistoryStore historyStore,
+            CacheInvalidator cacheInvalidator,
+            MeterRegistry meterRegistry,
+            @Value("${currency.write-behind.capacity:10000}") int capacity,
+            @Value("${currency.jdbc.batch-size:500}") int batchSize) {
+        this.batchRepository = batchRepository;
+        this.historyStore = historyStore;
+        this.cacheInvalidator = cacheInvalidator;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.flushTimer = Timer.builder("currency.write-behind.flush")
+                .description("Write-behind batch flush latency")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.overflowed = Counter.builder("currency.write-behind.overflowed")
+                .description("Rates written synchronously because the write-behind queue was full")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("currency.write-behind.dropped")
+                .description("Rates not persisted because a failed flush could not requeue them")
+                .register(meterRegistry);
+        Gauge.builder("currency.write-behind.queue.depth", this, RateWriteBehindQueue::size)
+                .description("Rates waiting to be persisted")
+                .register(meterRegistry);
+    }
+
+    public void submit(RateRow row, String abbreviation) {
+        PendingRate rate = new PendingRate(row, abbreviation);
+        boolean queued;
+        synchronized (pending) {
+            queued = pending.size() < capacity || pending.containsKey(rate.key());
+            if (queued) {
+                pending.put(rate.key(), rate);
+            }
+        }
+        if (!queued) {
+            overflowed.increment();
+            write(List.of(rate));
+        }
+    }
+
+    public int size() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${currency.write-behind.flush-interval:PT1S}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            List<PendingRate> batch = drain();
+            while (!batch.isEmpty()) {
+                try {
+                    write(batch);
+                } catch (RuntimeException e) {
+                    logger.warn("Flushing {} rates failed, retrying later: {}", batch.size(), e.getMessage());
+                    requeue(batch);
+                    return;
+                }
+                batch = drain();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        flush();
+        int remaining = size();
+        if (remaining > 0) {
+            logger.error("{} fetched rates were not persisted before shutdown", remaining);
+        }
+    }
+
+    private List<PendingRate> drain() {
+        synchronized (pending) {
+            List<PendingRate> batch = new ArrayList<>(Math.min(batchSize, pending.size()));
+            Iterator<PendingRate> iterator = pending.values().iterator();
+            while (iterator.hasNext() && batch.size() < batchSize) {
+                batch.add(iterator.next());
+                iterator.remove();
+            }
+            return batch;
+        }
+    }
+
+    private void requeue(List<PendingRate> batch) {
+        int lost = 0;
+        synchronized (pending) {
+            for (PendingRate rate : batch) {
+                // a rate submitted since the drain is newer and wins
+                if (pending.containsKey(rate.key())) {
+                    continue;
+                }
+                if (pending.size() < capacity) {
+                    pending.put(rate.key(), rate);
+                } else {
+                    lost++;
+                }
+            }
+        }
+        if (lost > 0) {
+            dropped.increment(lost);
+            logger.error("Write-behind queue full, dropped {} fetched rates", lost);
+        }
+    }
+
+    private void write(List<PendingRate> batch) {
+        flushTimer.record(() -> {
+            List<RateRow> rows = batch.stream().map(PendingRate::row).toList();
+            batchRepository.upsert(rows);
+            historyStore.appendAll(rows);
+            // only the lists: the rates themselves were cached as fetched, and a rate tag would evict them again
+            Set<CacheTag> tags = new LinkedHashSet<>();
+            tags.add(CacheTag.ALL_RATES);
+            for (PendingRate rate : batch) {
+                if (rate.abbreviation() != null) {
+                    tags.add(CacheTag.ratesList(rate.abbreviation(), rate.row().date()));
+                }
+            }
+            cacheInvalidator.invalidate(tags);
+        });
+        logger.debug("Persisted {} fetched rates", batch.size());
+    }
+}
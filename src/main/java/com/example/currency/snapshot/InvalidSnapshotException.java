@@ -0,0 +1,7 @@
+package com.example.currency.snapshot;
+
+public class InvalidSnapshotException extends RuntimeException {
+    public InvalidSnapshotException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.currency.snapshot;
+
+import com.example.currency.cache.InvalidationPoller;
+import com.example.currency.conversion.RateMatrix;
+import com.example.currency.dto.CurrencyView;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * The rate matrix and currency directory in a compact binary form:
+ * <pre>
+ * int magic, short version, long createdAtMillis,
+ * long invalidationId, long invalidationsPolledAtMillis, long matrixEpochDay,
+ * int rateCount, rateCount x (int currencyId, long perUnitRate),
+ * int currencyCount, currencyCount x (int id, str code, str abbreviation, str name, int scale),
+ * long crc32 of all preceding bytes
+ * </pre>
+ * where {@code str} is a presence flag followed by modified UTF-8. The
+ * invalidation position is the cache_invalidation id the state reflects, or -1
+ * if unknown.
+ */
+public record RateSnapshot(Instant createdAt, InvalidationPoller.Position invalidations, RateMatrix matrix,
+                           List<CurrencyView> currencies) {
+    static final int MAGIC = 0x52534E50;
+    static final short VERSION = 2;
+
+    public byte[] encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + matrix.size() * 12 + currencies.size() * 48);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeLong(createdAt.toEpochMilli());
+            out.writeLong(invalidations != null ? invalidations.appliedThrough() : -1);
+            out.writeLong(invalidations != null ? invalidations.polledAt().toEpochMilli() : 0);
+            out.writeLong(matrix.getDate().toEpochDay());
+            out.writeInt(matrix.size());
+            matrix.forEach((currencyId, perUnitRate) -> {
+                try {
+                    out.writeInt(currencyId);
+                    out.writeLong(perUnitRate);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            out.writeInt(currencies.size());
+            for (CurrencyView currency : currencies) {
+                out.writeInt(currency.id());
+                writeString(out, currency.code());
+                writeString(out, currency.abbreviation());
+                writeString(out, currency.name());
+                out.writeInt(currency.scale() != null ? currency.scale() : 0);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        byte[] body = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        return ByteBuffer.allocate(body.length + Long.BYTES).put(body).putLong(crc.getValue()).array();
+    }
+
+    /**
+     * Parses a snapshot, rejecting it with {@link InvalidSnapshotException} if
+     * the checksum, magic number or version do not match.
+     */
+    public static RateSnapshot decode(byte[] data) {
+        if (data.length < Long.BYTES) {
+            throw new InvalidSnapshotException("Snapshot is truncated");
+        }
+        int bodyLength = data.length - Long.BYTES;
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, bodyLength);
+        if (crc.getValue() != ByteBuffer.wrap(data, bodyLength, Long.BYTES).getLong()) {
+            throw new InvalidSnapshotException("Snapshot checksum mismatch");
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, 0, bodyLength))) {
+            if (in.readInt() != MAGIC) {
+                throw new InvalidSnapshotException("Not a rate snapshot");
+            }
+            short version = in.readShort();
+            if (version != VERSION) {
+                throw new InvalidSnapshotException("Unsupported snapshot version " + version);
+            }
+            Instant createdAt = Instant.ofEpochMilli(in.readLong());
+            long invalidationId = in.readLong();
+            Instant polledAt = Instant.ofEpochMilli(in.readLong());
+            InvalidationPoller.Position invalidations = invalidationId >= 0
+                    ? new InvalidationPoller.Position(invalidationId, polledAt)
+                    : null;
+            RateMatrix.Builder matrix = RateMatrix.builder(LocalDate.ofEpochDay(in.readLong()));
+            int rateCount = in.readInt();
+            for (int i = 0; i < rateCount; i++) {
+                matrix.put(in.readInt(), in.readLong());
+            }
+            int currencyCount = in.readInt();
+            List<CurrencyView> currencies = new ArrayList<>(currencyCount);
+            for (int i = 0; i < currencyCount; i++) {
+                currencies.add(new CurrencyView(in.readInt(), readString(in), readString(in), readString(in), in.readInt()));
+            }
+            return new RateSnapshot(createdAt, invalidations, matrix.build(), currencies);
+        } catch (IOException | RuntimeException e) {
+            if (e instanceof InvalidSnapshotException invalid) {
+                throw invalid;
+            }
+            throw new InvalidSnapshotException("Snapshot is malformed: " + e.getMessage());
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.currency.snapshot;
+
+import com.example.currency.cache.CacheTag;
+import com.example.currency.cache.CurrencyCache;
+import com.example.currency.cache.InvalidationPoller;
+import com.example.currency.conversion.RateMatrix;
+import com.example.currency.conversion.RateMatrixHolder;
+import com.example.currency.dto.CurrencyView;
+import com.example.currency.repository.CurrencyInfoRepository;
+import com.example.currency.schedule.RatePublicationSchedule;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Keeps the current rate matrix and currency directory in a local file so a
+ * restarted instance can convert before the database and the NBRB API have
+ * been consulted. The file is loaded while the context starts and rewritten
+ * periodically and on shutdown. A snapshot with a bad checksum, one older than
+ * the maximum age, or one whose rates are no longer current is ignored and the
+ * instance warms up from the database as before. The snapshot records how far
+ * the cache invalidation log had been applied, and the {@link InvalidationPoller}
+ * replays the rows written by other instances since then.
+ */
+@Component
+@ConditionalOnProperty(name = "currency.snapshot.enabled", havingValue = "true", matchIfMissing = true)
+public class RateSnapshotStore implements DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(RateSnapshotStore.class);
+
+    private final Path file;
+    private final Duration maxAge;
+    private final RateMatrixHolder rateMatrixHolder;
+    private final CurrencyCache cacheService;
+    private final CurrencyInfoRepository currencyInfoRepository;
+    private final RatePublicationSchedule schedule;
+    // null when invalidations are not shared between instances
+    private final InvalidationPoller invalidationPoller;
+    private volatile List<CurrencyView> lastDirectory = List.of();
+
+    public RateSnapshotStore(
+            @Value("${currency.snapshot.file:data/rate-snapshot.bin}") Path file,
+            @Value("${currency.snapshot.max-age:P1D}") Duration maxAge,
+            RateMatrixHolder rateMatrixHolder,
+            CurrencyCache cacheService,
+            CurrencyInfoRepository currencyInfoRepository,
+            RatePublicationSchedule schedule,
+            ObjectProvider<InvalidationPoller> invalidationPoller) {
+        this.file = file;
+        this.maxAge = maxAge;
+        this.rateMatrixHolder = rateMatrixHolder;
+        this.cacheService = cacheService;
+        this.currencyInfoRepository = currencyInfoRepository;
+        this.schedule = schedule;
+        this.invalidationPoller = invalidationPoller.getIfAvailable();
+    }
+
+    @PostConstruct
+    public void load() {
+        long started = System.nanoTime();
+        RateSnapshot snapshot;
+        try {
+            snapshot = RateSnapshot.decode(Files.readAllBytes(file));
+        } catch (NoSuchFileException e) {
+            logger.info("No rate snapshot at {}, starting cold", file);
+            return;
+        } catch (IOException | InvalidSnapshotException e) {
+            logger.warn("Ignoring rate snapshot {}: {}", file, e.getMessage());
+            return;
+        }
+        Duration age = Duration.between(snapshot.createdAt(), schedule.now());
+        if (age.compareTo(maxAge) > 0 || age.isNegative()) {
+            logger.warn("Ignoring rate snapshot {} written at {}", file, snapshot.createdAt());
+            return;
+        }
+        if (invalidationPoller != null) {
+            if (snapshot.invalidations() == null) {
+                // nothing to replay from, so changes made elsewhere meanwhile would go unnoticed
+                logger.warn("Ignoring rate snapshot {} without an invalidation position", file);
+                return;
+            }
+            invalidationPoller.resumeFrom(snapshot.invalidations());
+        }
+        lastDirectory = snapshot.currencies();
+        for (CurrencyView currency : snapshot.currencies()) {
+            cacheService.currencies().put(currency.id(), currency, List.of(CacheTag.currency(currency.id())));
+        }
+        LocalDate current = schedule.servedRateDate();
+        if (snapshot.matrix().getDate().equals(current)) {
+            rateMatrixHolder.publish(snapshot.matrix());
+        } else {
+            logger.info("Rate snapshot is for {}, current rates are for {}; loading directory only",
+                    snapshot.matrix().getDate(), current);
+        }
+        logger.info("Loaded rate snapshot for {} with {} rates and {} currencies in {} ms",
+                snapshot.matrix().getDate(), snapshot.matrix().size(), snapshot.currencies().size(),
+                Duration.ofNanos(System.nanoTime() - started).toMillis());
+    }
+
+    @Scheduled(initialDelayString = "${currency.snapshot.interval:PT5M}",
+            fixedDelayString = "${currency.snapshot.interval:PT5M}")
+    public void write() {
+        RateMatrix matrix = rateMatrixHolder.get();
+        if (matrix.size() == 0) {
+            logger.debug("Rate matrix is empty, keeping the existing snapshot");
+            return;
+        }
+        try {
+            lastDirectory = currencyInfoRepository.findAllViews();
+        } catch (RuntimeException e) {
+            logger.warn("Could not read currency directory, writing the previous one: {}", e.getMessage());
+        }
+        try {
+            InvalidationPoller.Position position =
+                    invalidationPoller != null ? invalidationPoller.position().orElse(null) : null;
+            byte[] data = new RateSnapshot(schedule.now(), position, matrix, lastDirectory).encode();
+            Path parent = file.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+            try {
+                Files.write(temp, data);
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            logger.debug("Wrote rate snapshot for {} ({} bytes) to {}", matrix.getDate(), data.length, file);
+        } catch (IOException e) {
+            logger.warn("Could not write rate snapshot {}: {}", file, e.getMessage());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        write();
+    }
+}
@@ -0,0 +1,355 @@
+package com.example.currency.stream;
+
+import com.example.currency.dto.RateUpdate;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fans rate changes out to Server-Sent Event subscribers. An idle subscriber
+ * is only an async request and a small buffer; a few dispatcher threads
+ * drain whichever buffers have pending events. Each buffer is bounded and
+ * drops its oldest event when full, so a slow client loses updates instead of
+ * holding memory. Event ids are global and increasing, so a client can spot a
+ * gap and re-read the rates it missed.
+ * <p>
+ * Sends are blocking writes, so a client that stops reading can hold a
+ * dispatcher thread. A watchdog evicts subscribers whose send has not returned
+ * within the send timeout and adds a dispatcher thread in place of the stuck
+ * one until its write fails or completes. At most
+ * {@code currency.stream.max-replacement-threads} such threads are added;
+ * beyond that, evicted subscribers keep their thread and the others share
+ * what is left.
+ */
+@Component
+public class RateUpdateBroadcaster implements DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(RateUpdateBroadcaster.class);
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicLong sequence = new AtomicLong();
+    private final ThreadPoolExecutor dispatcher;
+    private final int bufferSize;
+    private final long timeoutMillis;
+    private final long sendTimeoutNanos;
+    private final int maxReplacementThreads;
+    private final AtomicInteger replacementThreads = new AtomicInteger();
+    private final Counter dropped;
+    private final Counter evicted;
+
+    public RateUpdateBroadcaster(
+            MeterRegistry meterRegistry,
+            @Value("${currency.stream.buffer-size:256}") int bufferSize,
+            @Value("${currency.stream.timeout:PT30M}") Duration timeout,
+            @Value("${currency.stream.send-timeout:PT10S}") Duration sendTimeout,
+            @Value("${currency.stream.dispatch-threads:2}") int dispatchThreads,
+            @Value("${currency.stream.max-replacement-threads:4}") int maxReplacementThreads) {
+        this.bufferSize = bufferSize;
+        this.timeoutMillis = timeout.toMillis();
+        this.sendTimeoutNanos = sendTimeout.toNanos();
+        this.maxReplacementThreads = maxReplacementThreads;
+        AtomicInteger threads = new AtomicInteger();
+        this.dispatcher = new ThreadPoolExecutor(dispatchThreads, dispatchThreads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "rate-stream-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.dropped = Counter.builder("currency.stream.dropped")
+                .description("Rate updates dropped because a subscriber buffer was full")
+                .register(meterRegistry);
+        this.evicted = Counter.builder("currency.stream.evicted")
+                .description("Subscribers evicted because a send did not complete within the send timeout")
+                .register(meterRegistry);
+        Gauge.builder("currency.stream.subscribers", subscribers, Set::size)
+                .description("Open rate stream subscriptions")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Opens a stream of updates for the given currency ids, or for every
+     * currency if the set is empty.
+     */
+    public SseEmitter subscribe(Set<Integer> currencyIds) {
+        return subscribe(new SseEmitter(timeoutMillis), currencyIds);
+    }
+
+    SseEmitter subscribe(SseEmitter emitter, Set<Integer> currencyIds) {
+        Subscriber subscriber = new Subscriber(emitter, Set.copyOf(currencyIds));
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscriber.close(null));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        logger.debug("Rate stream subscribed: currencies={}, subscribers={}", currencyIds, subscribers.size());
+        return emitter;
+    }
+
+    public void publish(RateUpdate update) {
+        publishAll(List.of(update));
+    }
+
+    public void publishAll(Collection<RateUpdate> updates) {
+        if (subscribers.isEmpty() || updates.isEmpty()) {
+            return;
+        }
+        List<Event> events = new ArrayList<>(updates.size());
+        for (RateUpdate update : updates) {
+            events.add(new Event(sequence.incrementAndGet(), update));
+        }
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(events);
+        }
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Sends a comment to every subscriber so that proxies keep idle
+     * connections open and disconnected clients are noticed.
+     */
+    @Scheduled(fixedDelayString = "${currency.stream.heartbeat-interval:PT15S}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.heartbeat();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${currency.stream.watchdog-interval:PT1S}")
+    public void evictStalled() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.evictIfStalled(now);
+        }
+    }
+
+    private boolean addReplacementThread() {
+        int current;
+        do {
+            current = replacementThreads.get();
+            if (current >= maxReplacementThreads) {
+                return false;
+            }
+        } while (!replacementThreads.compareAndSet(current, current + 1));
+        resizeDispatcher(1);
+        return true;
+    }
+
+    private void removeReplacementThread() {
+        resizeDispatcher(-1);
+        replacementThreads.decrementAndGet();
+    }
+
+    private void resizeDispatcher(int delta) {
+        synchronized (dispatcher) {
+            int size = dispatcher.getCorePoolSize() + delta;
+            if (delta > 0) {
+                dispatcher.setMaximumPoolSize(size);
+                dispatcher.setCorePoolSize(size);
+            } else {
+                dispatcher.setCorePoolSize(size);
+                dispatcher.setMaximumPoolSize(size);
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        subscribers.forEach(subscriber -> subscriber.close(null));
+        dispatcher.shutdownNow();
+    }
+
+    private record Event(long id, RateUpdate update) {
+    }
+
+    private final class Subscriber {
+        private static final int IDLE = 0;
+        private static final int SENDING = 1;
+        private static final int STALLED = 2;
+
+        private final SseEmitter emitter;
+        private final Set<Integer> currencyIds;
+        private final ArrayDeque<Event> buffer = new ArrayDeque<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicInteger sendState = new AtomicInteger(IDLE);
+        private volatile long sendStarted;
+        private volatile boolean replaced;
+        private boolean heartbeatPending;
+
+        Subscriber(SseEmitter emitter, Set<Integer> currencyIds) {
+            this.emitter = emitter;
+            this.currencyIds = currencyIds;
+        }
+
+        void offer(List<Event> events) {
+            boolean added = false;
+            synchronized (buffer) {
+                for (Event event : events) {
+                    if (!currencyIds.isEmpty() && !currencyIds.contains(event.update().currencyId())) {
+                        continue;
+                    }
+                    if (buffer.size() == bufferSize) {
+                        buffer.pollFirst();
+                        dropped.increment();
+                    }
+                    buffer.addLast(event);
+                    added = true;
+                }
+            }
+            if (added) {
+                schedule();
+            }
+        }
+
+        void heartbeat() {
+            synchronized (buffer) {
+                heartbeatPending = true;
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    dispatcher.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    scheduled.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            List<Event> batch;
+            boolean sendHeartbeat;
+            synchronized (buffer) {
+                batch = new ArrayList<>(buffer);
+                buffer.clear();
+                sendHeartbeat = heartbeatPending;
+                heartbeatPending = false;
+            }
+            try {
+                if (sendHeartbeat && batch.isEmpty()) {
+                    send(SseEmitter.event().comment("heartbeat"));
+                }
+                for (Event event : batch) {
+                    if (!send(SseEmitter.event()
+                            .id(Long.toString(event.id()))
+                            .name(event.update().type().name().toLowerCase(Locale.ROOT))
+                            .data(event.update(), MediaType.APPLICATION_JSON))) {
+                        break;
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                if (sendState.get() != STALLED) {
+                    close(e);
+                    return;
+                }
+            }
+            if (sendState.get() == STALLED) {
+                // evicted by the watchdog while this thread was blocked
+                if (replaced) {
+                    removeReplacementThread();
+                }
+                completeWithError(new IOException("Send blocked for more than "
+                        + TimeUnit.NANOSECONDS.toMillis(sendTimeoutNanos) + " ms"));
+                return;
+            }
+            scheduled.set(false);
+            boolean more;
+            synchronized (buffer) {
+                more = !buffer.isEmpty() || heartbeatPending;
+            }
+            if (more) {
+                schedule();
+            }
+        }
+
+        /**
+         * Returns false if the watchdog evicted this subscriber during the send.
+         */
+        private boolean send(SseEmitter.SseEventBuilder event) throws IOException {
+            sendStarted = System.nanoTime();
+            sendState.set(SENDING);
+            try {
+                emitter.send(event);
+            } finally {
+                sendState.compareAndSet(SENDING, IDLE);
+            }
+            return sendState.get() != STALLED;
+        }
+
+        void evictIfStalled(long now) {
+            if (sendState.get() != SENDING || now - sendStarted <= sendTimeoutNanos) {
+                return;
+            }
+            // the replacement is added before the state flips, so the blocked thread only ever gives back
+            // a slot that exists
+            replaced = addReplacementThread();
+            if (!sendState.compareAndSet(SENDING, STALLED)) {
+                if (replaced) {
+                    replaced = false;
+                    removeReplacementThread();
+                }
+                return;
+            }
+            subscribers.remove(this);
+            evicted.increment();
+            if (replaced) {
+                logger.warn("Rate stream subscriber evicted: send blocked for more than {} ms",
+                        TimeUnit.NANOSECONDS.toMillis(sendTimeoutNanos));
+            } else {
+                logger.warn("Rate stream subscriber evicted: send blocked for more than {} ms; "
+                                + "{} replacement threads already running, dispatcher runs short until it returns",
+                        TimeUnit.NANOSECONDS.toMillis(sendTimeoutNanos), maxReplacementThreads);
+            }
+        }
+
+        void close(Throwable failure) {
+            if (subscribers.remove(this)) {
+                logger.debug("Rate stream closed: {}", failure != null ? failure.getMessage() : "completed");
+                complete();
+            }
+        }
+
+        private void completeWithError(Throwable failure) {
+            try {
+                emitter.completeWithError(failure);
+            } catch (IllegalStateException ignored) {
+                // already completed by the container
+            }
+        }
+
+        private void complete() {
+            try {
+                emitter.complete();
+            } catch (IllegalStateException ignored) {
+                // already completed by the container
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.currency;
+
+import com.example.currency.cache.InvalidationPoller;
+import com.example.currency.config.BulkheadDataSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import javax.sql.DataSource;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Starts the full application context on in-memory H2, without MySQL or
+ * NBRB, so that wiring errors (ambiguous constructors, missing beans) fail
+ * the build instead of the first deployment.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:context;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "nbrb.api.base-url=http://127.0.0.1:9/exrates/",
+        "currency.ingestion.on-startup=false"
+})
+class ApplicationContextTest {
+    @TempDir
+    static Path workDir;
+
+    @Autowired
+    private ApplicationContext context;
+
+    @DynamicPropertySource
+    static void workFiles(DynamicPropertyRegistry registry) {
+        registry.add("currency.history.dir", () -> workDir.resolve("history").toString());
+        registry.add("currency.snapshot.file", () -> workDir.resolve("rate-snapshot.bin").toString());
+    }
+
+    @Test
+    void contextStarts() {
+        assertNotNull(context.getBean(InvalidationPoller.class));
+    }
+
+    @Test
+    void platformThreadsKeepThePlainDataSource() {
+        assertFalse(context.getBean(DataSource.class) instanceof BulkheadDataSource);
+    }
+
+    @Test
+    void blockingJobsDoNotShareOneSchedulerThread() {
+        ThreadPoolTaskScheduler scheduler = context.getBean(ThreadPoolTaskScheduler.class);
+
+        assertEquals(4, scheduler.getScheduledThreadPoolExecutor().getCorePoolSize());
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.currency.aspect;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TracingAspectTest {
+    private SimpleMeterRegistry meterRegistry;
+    private ProceedingJoinPoint joinPoint;
+    private final AtomicInteger renders = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        Signature signature = mock(Signature.class);
+        when(signature.getDeclaringType()).thenReturn(TracingAspectTest.class);
+        when(signature.getName()).thenReturn("getAllRates");
+        when(signature.toShortString()).thenReturn("TracingAspectTest.getAllRates()");
+        JoinPoint.StaticPart staticPart = mock(JoinPoint.StaticPart.class);
+        when(staticPart.getSignature()).thenReturn(signature);
+        joinPoint = mock(ProceedingJoinPoint.class);
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(joinPoint.getStaticPart()).thenReturn(staticPart);
+        when(joinPoint.getArgs()).thenReturn(new Object[]{new Object() {
+            @Override
+            public String toString() {
+                renders.incrementAndGet();
+                return "argument";
+            }
+        }});
+    }
+
+    @Test
+    void recordsTimingsWithoutRenderingFastCalls() throws Throwable {
+        when(joinPoint.proceed()).thenReturn(List.of(1, 2, 3));
+        TracingAspect aspect = new TracingAspect(meterRegistry, Duration.ofMinutes(1), 0.0, 512);
+
+        for (int i = 0; i < 3; i++) {
+            aspect.trace(joinPoint);
+        }
+
+        assertEquals(3, meterRegistry.get(TracingAspect.METRIC_NAME)
+                .tag("method", "getAllRates").tag("exception", "none").timer().count());
+        assertEquals(0, renders.get());
+    }
+
+    @Test
+    void tagsFailuresWithExceptionType() throws Throwable {
+        when(joinPoint.proceed()).thenThrow(new IllegalStateException("boom"));
+        TracingAspect aspect = new TracingAspect(meterRegistry, Duration.ofMinutes(1), 0.0, 512);
+
+        assertThrows(IllegalStateException.class, () -> aspect.trace(joinPoint));
+        assertEquals(1, meterRegistry.get(TracingAspect.METRIC_NAME)
+                .tag("exception", "IllegalStateException").timer().count());
+    }
+
+    @Test
+    void rendersArgumentsOfSlowCalls() throws Throwable {
+        when(joinPoint.proceed()).thenReturn("ok");
+        TracingAspect aspect = new TracingAspect(meterRegistry, Duration.ZERO, 0.0, 512);
+
+        aspect.trace(joinPoint);
+
+        assertEquals(1, renders.get());
+    }
+
+    @Test
+    void summarisesCollectionsAndTruncatesPayloads() {
+        assertEquals("[ArrayList[size=3], abc]",
+                new TracingAspect.Payload(new Object[]{new ArrayList<>(List.of(1, 2, 3)), "abc"}, 100).toString());
+        assertEquals("abcd...", new TracingAspect.Payload("abcdefgh", 4).toString());
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.currency.cache;
+
+import com.example.currency.dto.CurrencyView;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CacheRegionTest {
+
+    @Test
+    void countsHitsAndMisses() {
+        CacheRegion<String, Integer> region = new CacheRegion<>("test", 10, Duration.ofMinutes(1));
+        region.put("a", 1);
+
+        assertEquals(1, region.get("a").orElseThrow());
+        assertTrue(region.get("b").isEmpty());
+        assertEquals(1, region.stats().hitCount());
+        assertEquals(1, region.stats().missCount());
+    }
+
+    @Test
+    void staysWithinMaximumSize() {
+        CacheRegion<Integer, Integer> region = new CacheRegion<>("bounded", 100, Duration.ofMinutes(1));
+        for (int i = 0; i < 10_000; i++) {
+            region.put(i, i);
+        }
+        region.cleanUp();
+
+        assertTrue(region.size() <= 100);
+        assertTrue(region.stats().evictionCount() > 0);
+    }
+
+    @Test
+    void weighedRegionBoundsTotalRowsAndDropsOversizedValues() {
+        CacheRegion<String, List<Integer>> region = new CacheRegion<>("weighed", 100, Duration.ofMinutes(1), List::size);
+        region.put("huge", Collections.nCopies(150, 0));
+        for (int i = 0; i < 10; i++) {
+            region.put("page" + i, Collections.nCopies(20, i));
+        }
+        region.cleanUp();
+
+        assertTrue(region.get("huge").isEmpty());
+        assertTrue(region.size() <= 5);
+        assertTrue(region.size() > 0);
+    }
+
+    @Test
+    void publishesMetersPerRegion() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        CurrencyCache cache = new CurrencyCache(10, Duration.ofMinutes(1), 10, Duration.ofMinutes(1), 1000);
+        cache.bindTo(registry);
+
+        cache.dailyRates().get(new RateKey(431, LocalDate.of(2024, 3, 1)));
+        cache.currencies().put(431, new CurrencyView(431, "840", "USD", "US Dollar", 1));
+        cache.currencies().get(431);
+
+        assertEquals(1.0, registry.get("cache.gets").tag("cache", "dailyRates").tag("result", "miss")
+                .functionCounter().count());
+        assertEquals(1.0, registry.get("cache.gets").tag("cache", "currencies").tag("result", "hit")
+                .functionCounter().count());
+        assertEquals(cache.regions().size(), registry.find("cache.size").gauges().size());
+    }
+
+    @Test
+    void invalidatesOnlyEntriesWithTheTag() {
+        CacheRegion<RateKey, Integer> region = new CacheRegion<>("tagged", 100, Duration.ofMinutes(1));
+        LocalDate date = LocalDate.of(2024, 3, 1);
+        region.put(new RateKey(431, date), 1, CacheTag.forRate(431, date));
+        region.put(new RateKey(456, date), 2, CacheTag.forRate(456, date));
+        region.put(new RateKey(431, date.plusDays(1)), 3, CacheTag.forRate(431, date.plusDays(1)));
+
+        assertEquals(1, region.invalidate(CacheTag.rate(431, date)));
+        assertTrue(region.get(new RateKey(431, date)).isEmpty());
+        assertEquals(2, region.get(new RateKey(456, date)).orElseThrow());
+        assertEquals(1, region.taggedKeyCount(CacheTag.date(date)));
+
+        assertEquals(1, region.invalidate(CacheTag.currency(431)));
+        assertEquals(0, region.taggedKeyCount(CacheTag.currency(431)));
+        assertEquals(1, region.size());
+    }
+
+    @Test
+    void dropsTagIndexWhenEntriesAreEvicted() {
+        CacheRegion<Integer, Integer> region = new CacheRegion<>("evicting", 10, Duration.ofMinutes(1));
+        for (int i = 0; i < 1_000; i++) {
+            region.put(i, i, List.of(CacheTag.currency(i)));
+        }
+        region.cleanUp();
+
+        long indexed = 0;
+        for (int i = 0; i < 1_000; i++) {
+            indexed += region.taggedKeyCount(CacheTag.currency(i));
+        }
+        assertTrue(indexed <= 10);
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.currency.cache;
+
+import com.example.currency.conversion.RateMatrix;
+import com.example.currency.conversion.RateMatrixHolder;
+import com.example.currency.history.RateHistoryLoader;
+import com.example.currency.models.CacheInvalidation;
+import com.example.currency.repository.CacheInvalidationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class InvalidationPollerTest {
+    private static final LocalDate DATE = LocalDate.of(2024, 3, 1);
+    private static final Instant NOW = Instant.parse("2024-03-01T12:00:00Z");
+
+    private CurrencyCache cache;
+    private RateMatrixHolder rateMatrixHolder;
+    private CacheInvalidationRepository repository;
+    private DataVersions dataVersions;
+    private RateHistoryLoader historyLoader;
+    private CacheInvalidator invalidator;
+
+    @BeforeEach
+    void setUp() {
+        cache = new CurrencyCache(10, Duration.ofMinutes(1), 10, Duration.ofMinutes(1), 1000);
+        rateMatrixHolder = new RateMatrixHolder();
+        rateMatrixHolder.publish(RateMatrix.builder(DATE).put(431, 3_274_100L).put(456, 35_537L).build());
+        repository = mock(CacheInvalidationRepository.class);
+        dataVersions = new DataVersions();
+        historyLoader = mock(RateHistoryLoader.class);
+        invalidator = new CacheInvalidator(cache, rateMatrixHolder, dataVersions, historyLoader, repository, "node-a", true);
+    }
+
+    @Test
+    void publishesLocalInvalidations() {
+        cache.dailyRates().put(new RateKey(431, DATE), null, CacheTag.forRate(431, DATE));
+
+        invalidator.invalidate(CacheTag.rate(431, DATE), CacheTag.ALL_RATES);
+
+        verify(repository).save(any(CacheInvalidation.class));
+        assertEquals(0, cache.dailyRates().size());
+    }
+
+    @Test
+    void failedPublishFailsATransactionalWriteAndLeavesCachesAlone() {
+        cache.dailyRates().put(new RateKey(431, DATE), null, CacheTag.forRate(431, DATE));
+        when(repository.save(any(CacheInvalidation.class))).thenThrow(new DataAccessResourceFailureException("down"));
+
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            assertThrows(DataAccessResourceFailureException.class,
+                    () -> invalidator.invalidate(CacheTag.rate(431, DATE), CacheTag.ALL_RATES));
+            assertTrue(TransactionSynchronizationManager.getSynchronizations().isEmpty());
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(1, cache.dailyRates().size());
+
+        invalidator.invalidate(CacheTag.rate(431, DATE), CacheTag.ALL_RATES);
+
+        assertEquals(0, cache.dailyRates().size());
+    }
+
+    @Test
+    void appliesRemoteRowsAndSkipsOwn() {
+        cache.currencies().put(431, null, List.of(CacheTag.currency(431)));
+        cache.currencies().put(456, null, List.of(CacheTag.currency(456)));
+        when(repository.findFirstByOrderByIdDesc()).thenReturn(Optional.of(row(10, "node-b", CacheTag.ALL_RATES)));
+        when(repository.findTop500ByIdGreaterThanOrderByIdAsc(10L)).thenReturn(List.of(
+                row(11, "node-a", CacheTag.currency(456)),
+                row(13, "node-b", CacheTag.currency(431), CacheTag.rate(431, DATE))));
+        InvalidationPoller poller = new InvalidationPoller(repository, invalidator, Duration.ofHours(1),
+                Clock.fixed(NOW, ZoneOffset.UTC));
+
+        poller.poll();
+        poller.poll();
+
+        assertEquals(13, poller.getLastSeenId());
+        assertTrue(cache.currencies().get(431).isEmpty());
+        assertEquals(1, cache.currencies().size());
+        assertEquals(RateMatrix.MISSING, rateMatrixHolder.get().perUnitRate(431));
+        assertEquals(35_537L, rateMatrixHolder.get().perUnitRate(456));
+        verify(historyLoader).markStale(List.of(CacheTag.currency(431), CacheTag.rate(431, DATE)));
+        verify(historyLoader, never()).markStale(List.of(CacheTag.currency(456)));
+        // id 12 was skipped and is re-checked until it shows up or times out
+        verify(repository).findAllById(anyIterable());
+        assertEquals(13, dataVersions.current(DataVersions.Dataset.RATES).version());
+        assertEquals(13, dataVersions.current(DataVersions.Dataset.CURRENCIES).version());
+    }
+
+    @Test
+    void versionsFollowPublishedRowsAndCountUnpublishedWrites() {
+        when(repository.save(any(CacheInvalidation.class))).thenReturn(row(42, "node-a", CacheTag.ALL_RATES));
+
+        invalidator.invalidate(CacheTag.ALL_RATES);
+        DataVersions.Stamp published = dataVersions.current(DataVersions.Dataset.RATES);
+        when(repository.save(any(CacheInvalidation.class))).thenThrow(new IllegalStateException("down"));
+        invalidator.invalidate(CacheTag.ALL_RATES);
+        DataVersions.Stamp unpublished = dataVersions.current(DataVersions.Dataset.RATES);
+        invalidator.applyRemote(row(41, "node-b", CacheTag.ALL_RATES));
+
+        assertEquals(new DataVersions.Stamp(42, 0, NOW), published);
+        assertEquals(42, unpublished.version());
+        assertNotEquals(0, unpublished.unpublished());
+        assertEquals(unpublished, dataVersions.current(DataVersions.Dataset.RATES));
+        assertEquals(0, dataVersions.current(DataVersions.Dataset.CURRENCIES).version());
+    }
+
+    @Test
+    void replaysRowsAfterAResumedPosition() {
+        when(repository.findFirstByOrderByIdDesc()).thenReturn(Optional.of(row(21, "node-b", CacheTag.rate(431, DATE))));
+        when(repository.findTop500ByIdGreaterThanOrderByIdAsc(20L)).thenReturn(List.of(
+                row(21, "node-b", CacheTag.rate(431, DATE))));
+        InvalidationPoller poller = new InvalidationPoller(repository, invalidator, Duration.ofHours(1),
+                Clock.fixed(NOW, ZoneOffset.UTC));
+
+        poller.resumeFrom(new InvalidationPoller.Position(20, NOW.minus(Duration.ofMinutes(30))));
+        poller.poll();
+
+        assertEquals(21, poller.getLastSeenId());
+        assertEquals(RateMatrix.MISSING, rateMatrixHolder.get().perUnitRate(431));
+        assertEquals(35_537L, rateMatrixHolder.get().perUnitRate(456));
+        assertEquals(new InvalidationPoller.Position(21, NOW), poller.position().orElseThrow());
+    }
+
+    @Test
+    void clearsResumedStateOlderThanTheRetention() {
+        cache.currencies().put(431, null, List.of(CacheTag.currency(431)));
+        when(repository.findFirstByOrderByIdDesc()).thenReturn(Optional.of(row(40, "node-b", CacheTag.ALL_RATES)));
+        InvalidationPoller poller = new InvalidationPoller(repository, invalidator, Duration.ofHours(1),
+                Clock.fixed(NOW, ZoneOffset.UTC));
+
+        poller.resumeFrom(new InvalidationPoller.Position(20, NOW.minus(Duration.ofHours(2))));
+        poller.poll();
+
+        assertEquals(40, poller.getLastSeenId());
+        assertEquals(LocalDate.MIN, rateMatrixHolder.get().getDate());
+        assertEquals(0, cache.currencies().size());
+        verify(historyLoader).markAllStale();
+    }
+
+    @Test
+    void remoteDateInvalidationDropsMatrix() {
+        invalidator.applyRemote(row(5, "node-b", CacheTag.date(DATE)));
+
+        assertEquals(LocalDate.MIN, rateMatrixHolder.get().getDate());
+    }
+
+    private static CacheInvalidation row(long id, String node, CacheTag... tags) {
+        CacheInvalidation row = new CacheInvalidation(node, CacheInvalidator.join(List.of(tags)), NOW);
+        row.setId(id);
+        return row;
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.currency.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SingleFlightTest {
+
+    @Test
+    void concurrentCallersShareOneLoad() throws Exception {
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>(Duration.ofSeconds(5));
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        int callers = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> singleFlight.execute("rate:1", () -> {
+                    loads.incrementAndGet();
+                    await(release);
+                    return 42;
+                })));
+            }
+            while (singleFlight.inFlightCount() == 0) {
+                Thread.onSpinWait();
+            }
+            Thread.sleep(100);
+            release.countDown();
+
+            for (Future<Integer> result : results) {
+                assertEquals(42, result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, loads.get());
+            assertEquals(0, singleFlight.inFlightCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void waitersGiveUpAfterTimeout() throws Exception {
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>(Duration.ofMillis(50));
+        CountDownLatch release = new CountDownLatch(1);
+        Thread loader = new Thread(() -> singleFlight.execute("rate:1", () -> {
+            await(release);
+            return 1;
+        }));
+        loader.start();
+        while (singleFlight.inFlightCount() == 0) {
+            Thread.onSpinWait();
+        }
+
+        assertThrows(CacheLoadTimeoutException.class, () -> singleFlight.execute("rate:1", () -> 2));
+        release.countDown();
+        loader.join();
+    }
+
+    @Test
+    void failedLoadIsNotRemembered() {
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>(Duration.ofSeconds(1));
+
+        assertThrows(IllegalStateException.class, () -> singleFlight.execute("rate:1", () -> {
+            throw new IllegalStateException("upstream down");
+        }));
+        assertEquals(7, singleFlight.execute("rate:1", () -> 7));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.currency.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class NbrbApiClientTest {
+    private static final String DAILY_RATES = """
+            [{"Cur_ID":431,"Date":"2024-03-01T00:00:00","Cur_Abbreviation":"USD","Cur_Scale":1,
+              "Cur_Name":"Доллар США","Cur_OfficialRate":3.2741},
+             {"Cur_ID":456,"Date":"2024-03-01T00:00:00","Cur_Abbreviation":"RUB","Cur_Scale":100,
+              "Cur_Name":"Российских рублей","Cur_OfficialRate":3.5537}]
+            """;
+    private static final LocalDate DATE = LocalDate.of(2024, 3, 1);
+
+    private HttpServer server;
+    private final AtomicReference<String> lastQuery = new AtomicReference<>();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger failuresBeforeSuccess = new AtomicInteger();
+    private final AtomicInteger failureStatus = new AtomicInteger(503);
+    private volatile long delayMillis;
+    private volatile String body = DAILY_RATES;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/exrates/rates", exchange -> {
+            requests.incrementAndGet();
+            lastQuery.set(exchange.getRequestURI().getQuery());
+            sleep(delayMillis);
+            if (failuresBeforeSuccess.getAndDecrement() > 0) {
+                respond(exchange, failureStatus.get(), "{}");
+            } else {
+                respond(exchange, 200, body);
+            }
+        });
+        server.start();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void stopStub() {
+        server.stop(0);
+    }
+
+    @Test
+    void fetchesAllDailyRatesInOneCall() {
+        List<NbrbRate> rates = client(3, 5).getDailyRates(DATE);
+
+        assertEquals("periodicity=0&ondate=2024-03-01", lastQuery.get());
+        assertEquals(2, rates.size());
+        assertEquals("RUB", rates.get(1).abbreviation());
+        assertEquals(100, rates.get(1).scale());
+        assertEquals(new BigDecimal("3.5537"), rates.get(1).officialRate());
+        assertEquals(DATE, rates.get(0).date().toLocalDate());
+    }
+
+    @Test
+    void retriesServerErrorsUntilSuccess() {
+        failuresBeforeSuccess.set(2);
+
+        List<NbrbRate> rates = client(3, 5).getDailyRates(DATE);
+
+        assertEquals(2, rates.size());
+        assertEquals(3, requests.get());
+        assertEquals(2.0, meterRegistry.get("nbrb.client.retries").counter().count());
+        assertEquals(2, meterRegistry.get("nbrb.client.requests").tag("status", "503").timer().count());
+    }
+
+    @Test
+    void doesNotRetryClientErrors() {
+        failuresBeforeSuccess.set(1);
+        failureStatus.set(404);
+
+        assertThrows(CurrencyNotFoundException.class, () -> client(3, 5).getDailyRates(DATE));
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void opensCircuitAfterRepeatedFailures() {
+        failuresBeforeSuccess.set(Integer.MAX_VALUE);
+        NbrbApiClient client = client(2, 2);
+
+        assertThrows(UpstreamUnavailableException.class, () -> client.getDailyRates(DATE));
+        assertThrows(UpstreamUnavailableException.class, () -> client.getDailyRates(DATE));
+        assertEquals(CircuitBreaker.State.OPEN, client.getCircuitState());
+        int requestsWhenOpened = requests.get();
+
+        assertThrows(UpstreamUnavailableException.class, () -> client.getDailyRates(DATE));
+        assertEquals(requestsWhenOpened, requests.get());
+    }
+
+    @Test
+    void unreadableResponseDuringTrialReleasesTheCircuit() throws Exception {
+        failuresBeforeSuccess.set(1);
+        NbrbApiClient client = client(1, 1, Duration.ofMillis(50));
+        assertThrows(UpstreamUnavailableException.class, () -> client.getDailyRates(DATE));
+        assertEquals(CircuitBreaker.State.OPEN, client.getCircuitState());
+
+        Thread.sleep(60);
+        body = "not json";
+        assertThrows(UpstreamUnavailableException.class, () -> client.getDailyRates(DATE));
+        assertEquals(CircuitBreaker.State.OPEN, client.getCircuitState());
+
+        Thread.sleep(60);
+        body = DAILY_RATES;
+        assertEquals(2, client.getDailyRates(DATE).size());
+        assertEquals(CircuitBreaker.State.CLOSED, client.getCircuitState());
+    }
+
+    @Test
+    void timesOutSlowResponses() {
+        delayMillis = 1_000;
+
+        long started = System.nanoTime();
+        assertThrows(UpstreamUnavailableException.class, () -> client(1, 5).getDailyRates(DATE));
+        assertEquals(0, Duration.ofNanos(System.nanoTime() - started).toSeconds());
+        assertEquals(1, meterRegistry.get("nbrb.client.requests").tag("outcome", "IO_ERROR").timer().count());
+    }
+
+    private NbrbApiClient client(int maxAttempts, int failureThreshold) {
+        return client(maxAttempts, failureThreshold, Duration.ofMinutes(1));
+    }
+
+    private NbrbApiClient client(int maxAttempts, int failureThreshold, Duration openDuration) {
+        NbrbApiProperties properties = new NbrbApiProperties(
+                "http://127.0.0.1:" + server.getAddress().getPort() + "/exrates",
+                Duration.ofMillis(500),
+                Duration.ofMillis(200),
+                Duration.ofMillis(500),
+                4,
+                new NbrbApiProperties.Retry(maxAttempts, Duration.ofMillis(1), Duration.ofMillis(5)),
+                new NbrbApiProperties.Circuit(failureThreshold, openDuration));
+        return new NbrbApiClient(new RestTemplateBuilder(), properties, meterRegistry);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
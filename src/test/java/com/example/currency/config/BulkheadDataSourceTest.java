@@ -0,0 +1,34 @@
+package com.example.currency.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BulkheadDataSourceTest {
+
+    @Test
+    void rejectsCallersBeyondLimitUntilConnectionIsClosed() throws Exception {
+        BulkheadDataSource dataSource = new BulkheadDataSource(
+                new DriverManagerDataSource("jdbc:h2:mem:bulkhead;DB_CLOSE_DELAY=-1"), 1, Duration.ofMillis(50));
+
+        Connection connection = dataSource.getConnection();
+        assertEquals(1, dataSource.getActive());
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        assertEquals(1, dataSource.getRejected());
+
+        connection.close();
+        // a second close must not release the permit again
+        connection.close();
+        assertEquals(0, dataSource.getActive());
+        try (Connection next = dataSource.getConnection()) {
+            assertEquals(1, next.createStatement().executeQuery("SELECT 1").next() ? 1 : 0);
+        }
+        assertEquals(0, dataSource.getActive());
+    }
+}
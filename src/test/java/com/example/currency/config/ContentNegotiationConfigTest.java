@@ -0,0 +1,161 @@
+package com.example.currency.config;
+
+import com.example.currency.dto.CurrencyView;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Runs the real converters and the embedded Tomcat on in-memory H2: MockMvc
+ * checks which encoding each Accept header gets, and a plain HTTP client
+ * checks the compression Tomcat applies on top.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:negotiation;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "nbrb.api.base-url=http://127.0.0.1:9/exrates/",
+        "currency.ingestion.on-startup=false"
+})
+@AutoConfigureMockMvc
+class ContentNegotiationConfigTest {
+    private static final String CURRENCIES = "/api/currency/info/db";
+    private static final int CURRENCY_COUNT = 40;
+    private static final TypeReference<List<CurrencyView>> VIEWS = new TypeReference<>() {
+    };
+
+    @TempDir
+    static Path workDir;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void workFiles(DynamicPropertyRegistry registry) {
+        registry.add("currency.history.dir", () -> workDir.resolve("history").toString());
+        registry.add("currency.snapshot.file", () -> workDir.resolve("rate-snapshot.bin").toString());
+    }
+
+    @BeforeEach
+    void setUp() {
+        if (jdbcTemplate.queryForObject("SELECT COUNT(*) FROM currency_info", Integer.class) == 0) {
+            for (int i = 0; i < CURRENCY_COUNT; i++) {
+                jdbcTemplate.update("INSERT INTO currency_info (cur_code, cur_abbreviation, cur_name, cur_scale) "
+                        + "VALUES (?, ?, ?, 1)", String.valueOf(100 + i), "C" + i, "Test currency number " + i);
+            }
+        }
+    }
+
+    @Test
+    void cborAndSmileGetBinaryBodiesWithTheJsonContent() throws Exception {
+        List<CurrencyView> json = new ObjectMapper().readValue(request(get(CURRENCIES)).getContentAsByteArray(), VIEWS);
+
+        MockHttpServletResponse cbor = request(get(CURRENCIES).accept(MediaType.APPLICATION_CBOR));
+        MockHttpServletResponse smile = request(get(CURRENCIES).accept("application/x-jackson-smile"));
+
+        assertEquals(MediaType.APPLICATION_CBOR_VALUE, cbor.getContentType());
+        assertEquals("application/x-jackson-smile", smile.getContentType());
+        assertArrayEquals(new byte[] {':', ')', '\n'}, Arrays.copyOf(smile.getContentAsByteArray(), 3));
+        assertEquals(CURRENCY_COUNT, json.size());
+        assertEquals(json, new ObjectMapper(new CBORFactory()).readValue(cbor.getContentAsByteArray(), VIEWS));
+        assertEquals(json, new ObjectMapper(new SmileFactory()).readValue(smile.getContentAsByteArray(), VIEWS));
+    }
+
+    @Test
+    void wildcardAndMissingAcceptGetJson() throws Exception {
+        MockHttpServletResponse wildcard = request(get(CURRENCIES).accept(MediaType.ALL));
+        MockHttpServletResponse none = request(get(CURRENCIES));
+
+        assertEquals(MediaType.APPLICATION_JSON_VALUE, wildcard.getContentType());
+        assertEquals(MediaType.APPLICATION_JSON_VALUE, none.getContentType());
+        assertEquals('[', wildcard.getContentAsString().charAt(0));
+    }
+
+    @Test
+    void responsesVaryByAccept() throws Exception {
+        MockHttpServletResponse response = request(get(CURRENCIES).accept(MediaType.APPLICATION_CBOR));
+
+        assertTrue(response.getHeaders(HttpHeaders.VARY).stream()
+                .flatMap(value -> List.of(value.split(",")).stream())
+                .anyMatch(value -> value.trim().equalsIgnoreCase(HttpHeaders.ACCEPT)),
+                () -> "Vary: " + response.getHeaders(HttpHeaders.VARY));
+    }
+
+    @Test
+    void compressesResponsesFromTwoKilobytes() throws Exception {
+        HttpResponse<byte[]> list = fetch(CURRENCIES);
+        Integer id = jdbcTemplate.queryForObject("SELECT MIN(id) FROM currency_info", Integer.class);
+        HttpResponse<byte[]> single = fetch("/api/currency/info/" + id);
+
+        assertEquals(Optional.of("gzip"), list.headers().firstValue(HttpHeaders.CONTENT_ENCODING));
+        byte[] body = gunzip(list.body());
+        assertTrue(body.length >= 2048, () -> "uncompressed list is only " + body.length + " bytes");
+        assertEquals(CURRENCY_COUNT, new ObjectMapper().readValue(body, VIEWS).size());
+
+        assertEquals(200, single.statusCode());
+        assertEquals(Optional.empty(), single.headers().firstValue(HttpHeaders.CONTENT_ENCODING));
+        assertTrue(single.body().length < 2048);
+    }
+
+    private MockHttpServletResponse request(MockHttpServletRequestBuilder request) throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(request).andReturn().getResponse();
+        assertEquals(200, response.getStatus());
+        return response;
+    }
+
+    private HttpResponse<byte[]> fetch(String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .build();
+        return HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private static byte[] gunzip(byte[] body) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return in.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.currency.controller;
+
+import com.example.currency.cache.DataVersions;
+import com.example.currency.schedule.RatePublicationSchedule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class HttpCachePolicyTest {
+    private static final ZoneId MINSK = ZoneId.of("Europe/Minsk");
+
+    private DataVersions dataVersions;
+    private HttpCachePolicy policy;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        dataVersions = new DataVersions();
+        // 2024-03-01 21:00 in Minsk, three hours before the next publication
+        Clock clock = Clock.fixed(Instant.parse("2024-03-01T18:00:00Z"), MINSK);
+        policy = new HttpCachePolicy(dataVersions,
+                new RatePublicationSchedule(MINSK, LocalTime.MIDNIGHT, clock), Duration.ofDays(30));
+    }
+
+    @Test
+    void answersMatchingEtagWithoutLoadingBody() {
+        ResponseEntity<String> first = get(null);
+        String etag = first.getHeaders().getETag();
+
+        ResponseEntity<String> second = get(etag);
+
+        assertEquals(HttpStatus.OK, first.getStatusCode());
+        assertEquals("max-age=10800, public", first.getHeaders().getCacheControl());
+        assertEquals(HttpStatus.NOT_MODIFIED, second.getStatusCode());
+        assertNull(second.getBody());
+        assertEquals(etag, second.getHeaders().getETag());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void changesEtagWhenDataIsWritten() {
+        String etag = get(null).getHeaders().getETag();
+        dataVersions.bump(DataVersions.Dataset.RATES);
+
+        ResponseEntity<String> response = get(etag);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotEquals(etag, response.getHeaders().getETag());
+    }
+
+    @Test
+    void sharedVersionGivesEveryInstanceTheSameEtag() {
+        String etag = get(null).getHeaders().getETag();
+        DataVersions other = new DataVersions();
+        dataVersions.advance(DataVersions.Dataset.RATES, 7, Instant.parse("2024-03-01T17:00:00Z"));
+        other.advance(DataVersions.Dataset.RATES, 7, Instant.parse("2024-03-01T17:00:00Z"));
+
+        String advanced = get(null).getHeaders().getETag();
+
+        assertNotEquals(etag, advanced);
+        assertEquals(advanced, HttpCachePolicy.etag(DataVersions.Dataset.RATES,
+                other.current(DataVersions.Dataset.RATES), LocalDate.of(2024, 3, 1)));
+    }
+
+    @Test
+    void leavesValidatorsOffMissingResources() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/currency/rates/999");
+        MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+
+        ResponseEntity<String> response = policy.conditional(new ServletWebRequest(request, servletResponse),
+                DataVersions.Dataset.RATES, policy.untilNextPublication(), () -> ResponseEntity.notFound().build());
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertNull(response.getHeaders().getETag());
+        assertNull(servletResponse.getHeader(HttpHeaders.ETAG));
+        assertNull(servletResponse.getHeader(HttpHeaders.LAST_MODIFIED));
+    }
+
+    @Test
+    void cachesFinalRatesLonger() {
+        assertEquals("max-age=2592000, public", policy.forRateDate(LocalDate.of(2024, 2, 29)).getHeaderValue());
+        assertEquals("max-age=10800, public", policy.forRateDate(LocalDate.of(2024, 3, 1)).getHeaderValue());
+    }
+
+    private ResponseEntity<String> get(String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/currency/rates");
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        ServletWebRequest webRequest = new ServletWebRequest(request, new MockHttpServletResponse());
+        return policy.conditional(webRequest, DataVersions.Dataset.RATES, policy.untilNextPublication(), () -> {
+            loads.incrementAndGet();
+            return ResponseEntity.ok("rates");
+        });
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.currency.conversion;
+
+import net.jqwik.api.Arbitraries;
+import net.jqwik.api.Arbitrary;
+import net.jqwik.api.Example;
+import net.jqwik.api.ForAll;
+import net.jqwik.api.Property;
+import net.jqwik.api.Provide;
+import net.jqwik.api.constraints.IntRange;
+import net.jqwik.api.constraints.LongRange;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FixedPointConverterTest {
+
+    @Property(tries = 5000)
+    void matchesBigDecimalFormulaForRealisticInputs(
+            @ForAll("amounts") BigDecimal amount,
+            @ForAll("officialRates") BigDecimal fromRate,
+            @ForAll("curScales") int fromScale,
+            @ForAll("officialRates") BigDecimal toRate,
+            @ForAll("curScales") int toScale) {
+        long fromPerUnitRate = RateMatrix.perUnitRate(fromRate, fromScale);
+        long toPerUnitRate = RateMatrix.perUnitRate(toRate, toScale);
+        if (toPerUnitRate == 0) {
+            assertThrows(ArithmeticException.class, () -> referenceConversion(amount, fromRate, fromScale, toRate, toScale));
+            assertThrows(ArithmeticException.class, () -> RateMatrix.convert(amount, fromPerUnitRate, toPerUnitRate));
+            return;
+        }
+        assertEquals(referenceConversion(amount, fromRate, fromScale, toRate, toScale),
+                RateMatrix.convert(amount, fromPerUnitRate, toPerUnitRate));
+    }
+
+    @Property(tries = 5000)
+    void matchesBigDecimalFormulaAcrossTheWholeLongRange(
+            @ForAll long amountUnscaled,
+            @ForAll @IntRange(min = -4, max = 20) int amountScale,
+            @ForAll @LongRange(min = -1_000_000_000_000L, max = 1_000_000_000_000L) long fromPerUnitRate,
+            @ForAll @LongRange(min = 1, max = 1_000_000_000_000L) long toPerUnitRate) {
+        BigDecimal amount = BigDecimal.valueOf(amountUnscaled, amountScale);
+
+        assertEquals(FixedPointConverter.convertExact(amount, fromPerUnitRate, toPerUnitRate),
+                FixedPointConverter.convert(amount, fromPerUnitRate, toPerUnitRate));
+    }
+
+    @Property(tries = 5000)
+    void longPathIsExactWheneverItDoesNotOverflow(
+            @ForAll @LongRange(min = -1_000_000_000_000L, max = 1_000_000_000_000L) long amountUnscaled,
+            @ForAll @IntRange(min = 0, max = 8) int amountScale,
+            @ForAll @LongRange(min = 1, max = 100_000_000_000L) long fromPerUnitRate,
+            @ForAll @LongRange(min = -100_000_000_000L, max = 100_000_000_000L) long toPerUnitRate) {
+        if (toPerUnitRate == 0) {
+            return;
+        }
+        long cents = FixedPointConverter.convert(amountUnscaled, amountScale, fromPerUnitRate, toPerUnitRate);
+        if (cents != FixedPointConverter.OVERFLOW) {
+            BigDecimal expected = FixedPointConverter.convertExact(
+                    BigDecimal.valueOf(amountUnscaled, amountScale), fromPerUnitRate, toPerUnitRate);
+            assertEquals(expected, BigDecimal.valueOf(cents, FixedPointConverter.RESULT_SCALE));
+        }
+    }
+
+    @Property(tries = 5000)
+    void perUnitRateMatchesBigDecimalDivision(
+            @ForAll("officialRates") BigDecimal officialRate,
+            @ForAll("curScales") int curScale) {
+        assertEquals(FixedPointConverter.perUnitRateExact(officialRate, curScale),
+                RateMatrix.perUnitRate(officialRate, curScale));
+    }
+
+    @Example
+    void roundsTiesAwayFromZero() {
+        assertEquals(new BigDecimal("0.13"), FixedPointConverter.convert(new BigDecimal("0.125"), 1_000_000L, 1_000_000L));
+        assertEquals(new BigDecimal("-0.13"), FixedPointConverter.convert(new BigDecimal("-0.125"), 1_000_000L, 1_000_000L));
+        assertEquals(new BigDecimal("0.12"), FixedPointConverter.convert(new BigDecimal("0.1249999"), 1_000_000L, 1_000_000L));
+    }
+
+    @Example
+    void fallsBackToBigDecimalOnOverflow() {
+        BigDecimal amount = new BigDecimal("999999999999999999");
+        assertEquals(FixedPointConverter.OVERFLOW,
+                FixedPointConverter.convert(999_999_999_999_999_999L, 0, 3_274_100L, 1_000_000L));
+        assertEquals(FixedPointConverter.convertExact(amount, 3_274_100L, 1_000_000L),
+                FixedPointConverter.convert(amount, 3_274_100L, 1_000_000L));
+        assertNotEquals(FixedPointConverter.OVERFLOW, FixedPointConverter.convert(1, 0, 3_274_100L, 1_000_000L));
+    }
+
+    @Example
+    void rejectsZeroTargetRateLikeBigDecimal() {
+        assertThrows(ArithmeticException.class, () -> FixedPointConverter.convert(BigDecimal.ONE, 1_000_000L, 0L));
+    }
+
+    @Provide
+    Arbitrary<BigDecimal> amounts() {
+        return Arbitraries.bigDecimals()
+                .between(new BigDecimal("0.0001"), new BigDecimal("1000000000"))
+                .ofScale(4)
+                .map(BigDecimal::stripTrailingZeros);
+    }
+
+    @Provide
+    Arbitrary<BigDecimal> officialRates() {
+        return Arbitraries.bigDecimals()
+                .between(new BigDecimal("0.0001"), new BigDecimal("99999.9999"))
+                .ofScale(4);
+    }
+
+    @Provide
+    Arbitrary<Integer> curScales() {
+        return Arbitraries.of(1, 10, 100, 1000, 10000, 100000, 1000000);
+    }
+
+    private static BigDecimal referenceConversion(BigDecimal amount, BigDecimal fromRate, int fromScale,
+                                                  BigDecimal toRate, int toScale) {
+        BigDecimal fromRatePerUnit = fromRate.divide(BigDecimal.valueOf(fromScale), 6, RoundingMode.HALF_UP);
+        BigDecimal toRatePerUnit = toRate.divide(BigDecimal.valueOf(toScale), 6, RoundingMode.HALF_UP);
+        return amount.multiply(fromRatePerUnit).divide(toRatePerUnit, 2, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.currency.conversion;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateMatrixTest {
+    private static final LocalDate DATE = LocalDate.of(2024, 3, 1);
+
+    @Test
+    void convertsLikeThePerCallFormula() {
+        BigDecimal usdRate = new BigDecimal("3.2741");
+        BigDecimal rubRate = new BigDecimal("3.5537");
+        RateMatrix matrix = RateMatrix.builder(DATE)
+                .put(431, RateMatrix.perUnitRate(usdRate, 1))
+                .put(456, RateMatrix.perUnitRate(rubRate, 100))
+                .build();
+        BigDecimal amount = new BigDecimal("125.50");
+
+        BigDecimal expected = amount.multiply(usdRate.divide(BigDecimal.ONE, 6, RoundingMode.HALF_UP))
+                .divide(rubRate.divide(BigDecimal.valueOf(100), 6, RoundingMode.HALF_UP), 2, RoundingMode.HALF_UP);
+
+        assertEquals(expected, RateMatrix.convert(amount, matrix.perUnitRate(431), matrix.perUnitRate(456)));
+    }
+
+    @Test
+    void copyOnWriteLeavesPublishedSnapshotUntouched() {
+        RateMatrix original = RateMatrix.builder(DATE).put(1, 1_000_000L).build();
+        RateMatrix updated = original.with(2, 2_000_000L).without(1);
+
+        assertTrue(original.contains(1));
+        assertFalse(original.contains(2));
+        assertFalse(updated.contains(1));
+        assertEquals(2_000_000L, updated.perUnitRate(2));
+        assertEquals(RateMatrix.MISSING, updated.perUnitRate(RateMatrix.MAX_CURRENCY_ID + 1));
+    }
+}
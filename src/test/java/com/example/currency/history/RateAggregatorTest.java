@@ -0,0 +1,53 @@
+package com.example.currency.history;
+
+import com.example.currency.dto.RateStatsBucket;
+import com.example.currency.repository.RateRow;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RateAggregatorTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void aggregatesPerMonthAndWeek() throws Exception {
+        RateHistoryStore store = new RateHistoryStore(directory);
+        store.appendAll(List.of(
+                row("2024-01-30", "2.0"),
+                row("2024-01-31", "4.0"),
+                row("2024-02-01", "3.0"),
+                row("2024-02-05", "6.0")));
+
+        RateSeries series = store.scan(1, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 2, 29));
+        List<RateStatsBucket> months = RateAggregator.aggregate(series, StatsBucket.MONTH);
+        List<RateStatsBucket> weeks = RateAggregator.aggregate(series, StatsBucket.WEEK);
+
+        assertEquals(2, months.size());
+        RateStatsBucket january = months.get(0);
+        assertEquals(LocalDate.of(2024, 1, 1), january.start());
+        assertEquals(LocalDate.of(2024, 1, 31), january.end());
+        assertEquals(2, january.count());
+        assertEquals(new BigDecimal("2.000000"), january.min());
+        assertEquals(new BigDecimal("4.000000"), january.max());
+        assertEquals(new BigDecimal("3.000000"), january.average());
+        assertEquals(new BigDecimal("100.0000"), january.changePercent());
+        assertEquals(LocalDate.of(2024, 2, 29), months.get(1).end());
+
+        assertEquals(2, weeks.size());
+        assertEquals(LocalDate.of(2024, 1, 29), weeks.get(0).start());
+        assertEquals(3, weeks.get(0).count());
+        assertEquals(LocalDate.of(2024, 2, 5), weeks.get(1).start());
+        store.destroy();
+    }
+
+    private static RateRow row(String date, String rate) {
+        return new RateRow(1, LocalDate.parse(date), new BigDecimal(rate), 1);
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.currency.history;
+
+import com.example.currency.cache.CacheTag;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateHistoryLoaderTest {
+    private static final LocalDate DATE = LocalDate.of(2024, 3, 1);
+
+    @TempDir
+    Path directory;
+
+    private JdbcTemplate jdbcTemplate;
+    private RateHistoryStore store;
+    private RateHistoryLoader loader;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:history-" + System.nanoTime() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE currency_rate (id BIGINT AUTO_INCREMENT PRIMARY KEY, currency_id INT NOT NULL, "
+                + "date DATE, cur_official_rate DECIMAL(19, 4), cur_scale INT)");
+        jdbcTemplate.update("INSERT INTO currency_rate (currency_id, date, cur_official_rate, cur_scale) "
+                        + "VALUES (431, ?, 3.2741, 1), (431, ?, 3.2800, 1), (456, ?, 3.5537, 100)",
+                DATE, DATE.plusDays(1), DATE);
+        store = new RateHistoryStore(directory);
+        loader = new RateHistoryLoader(store, dataSource, 100, 2);
+        loader.rebuild();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        store.destroy();
+    }
+
+    @Test
+    void reloadsCurrenciesAndDatesChangedElsewhere() {
+        jdbcTemplate.update("DELETE FROM currency_rate WHERE currency_id = 431 AND date = ?", DATE.plusDays(1));
+        jdbcTemplate.update("UPDATE currency_rate SET cur_official_rate = 3.6000 WHERE currency_id = 456");
+        jdbcTemplate.update("INSERT INTO currency_rate (currency_id, date, cur_official_rate, cur_scale) "
+                + "VALUES (431, ?, 3.3000, 1)", DATE.plusDays(5));
+
+        loader.markStale(List.of(CacheTag.rate(431, DATE.plusDays(1)), CacheTag.date(DATE)));
+        loader.syncStale();
+
+        RateSeries usd = store.scan(431, DATE, DATE.plusDays(10));
+        assertEquals(2, usd.size());
+        assertEquals(DATE.plusDays(5), usd.date(1));
+        assertEquals(36_000L, store.scan(456, DATE, DATE).perUnitRate(0));
+    }
+
+    @Test
+    void rebuildsWhenTooManyDatesAreStaleOrInvalidationsWereMissed() {
+        jdbcTemplate.update("DELETE FROM currency_rate WHERE currency_id = 456");
+
+        loader.markStale(List.of(CacheTag.date(DATE.plusDays(7)), CacheTag.date(DATE.plusDays(8)),
+                CacheTag.date(DATE.plusDays(9))));
+        loader.syncStale();
+
+        assertTrue(store.scan(456, DATE, DATE).isEmpty());
+
+        jdbcTemplate.update("DELETE FROM currency_rate WHERE currency_id = 431");
+        loader.markAllStale();
+        loader.syncStale();
+
+        assertTrue(store.isEmpty());
+    }
+}
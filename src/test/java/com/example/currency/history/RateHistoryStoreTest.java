@@ -0,0 +1,160 @@
+package com.example.currency.history;
+
+import com.example.currency.repository.RateRow;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateHistoryStoreTest {
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void scansDateWindowForOneCurrency() throws Exception {
+        RateHistoryStore store = new RateHistoryStore(directory);
+        for (int day = 0; day < 30; day++) {
+            store.append(row(431, day, "3.2" + day, 1));
+            store.append(row(456, day, "350.00", 100));
+        }
+
+        RateSeries series = store.scan(431, START.plusDays(10), START.plusDays(14));
+
+        assertEquals(5, series.size());
+        assertEquals(START.plusDays(10), series.date(0));
+        assertEquals(new BigDecimal("3.210000"), series.rate(0));
+        assertEquals(START.plusDays(14), series.date(4));
+        assertEquals(3_500_000L, store.scan(456, START, START).perUnitRate(0));
+        assertTrue(store.scan(1, START, START.plusDays(30)).isEmpty());
+        store.destroy();
+    }
+
+    @Test
+    void replacesSameDayAndMergesOlderDays() throws Exception {
+        RateHistoryStore store = new RateHistoryStore(directory);
+        store.appendAll(List.of(row(1, 0, "1.0", 1), row(1, 2, "1.2", 1)));
+        store.append(row(1, 2, "2.2", 1));
+        store.append(row(1, 1, "2.1", 1));
+
+        RateSeries series = store.scan(1, START, START.plusDays(5));
+
+        assertEquals(3, series.size());
+        assertEquals(2_100_000L, series.perUnitRate(1));
+        assertEquals(2_200_000L, series.perUnitRate(2));
+        store.destroy();
+    }
+
+    @Test
+    void reopensExistingFiles() throws Exception {
+        RateHistoryStore store = new RateHistoryStore(directory);
+        store.append(row(7, 3, "0.5", 10));
+        store.destroy();
+
+        RateHistoryStore reopened = new RateHistoryStore(directory);
+
+        assertFalse(reopened.isEmpty());
+        assertEquals(50_000L, reopened.scan(7, START, START.plusDays(3)).perUnitRate(0));
+        reopened.destroy();
+    }
+
+    @Test
+    void growsPastOneMappingStepAndReopensWithExactCount() throws Exception {
+        RateHistoryStore store = new RateHistoryStore(directory);
+        int days = ColumnSegment.GROWTH_ROWS + 10;
+        for (int day = 0; day < days; day++) {
+            store.append(row(3, day, "1." + (day % 10 + 1), 1));
+        }
+        store.destroy();
+
+        RateHistoryStore reopened = new RateHistoryStore(directory);
+        RateSeries series = reopened.scan(3, START, START.plusDays(days + 100));
+
+        assertEquals(days, series.size());
+        assertEquals(START.plusDays(days - 1), series.date(days - 1));
+        reopened.destroy();
+    }
+
+    @Test
+    void clearKeepsEarlierScansReadable() throws Exception {
+        RateHistoryStore store = new RateHistoryStore(directory);
+        store.appendAll(List.of(row(5, 0, "1.0", 1), row(5, 1, "1.1", 1)));
+        RateSeries before = store.scan(5, START, START.plusDays(1));
+
+        store.clear();
+        store.append(row(5, 0, "9.0", 1));
+
+        assertEquals(2, before.size());
+        assertEquals(START, before.date(0));
+        assertEquals(1_000_000L, before.perUnitRate(0));
+        assertEquals(START.plusDays(1), before.date(1));
+        assertEquals(1_100_000L, before.perUnitRate(1));
+        assertEquals(9_000_000L, store.scan(5, START, START.plusDays(1)).perUnitRate(0));
+        store.clear();
+        assertTrue(store.scan(5, START, START.plusDays(1)).isEmpty());
+        store.destroy();
+        RateHistoryStore reopened = new RateHistoryStore(directory);
+        assertTrue(reopened.isEmpty());
+        reopened.destroy();
+    }
+
+    @Test
+    void mergeKeepsEarlierScansReadable() throws Exception {
+        RateHistoryStore store = new RateHistoryStore(directory);
+        store.appendAll(List.of(row(5, 1, "1.1", 1), row(5, 3, "1.3", 1)));
+        RateSeries before = store.scan(5, START, START.plusDays(5));
+
+        store.appendAll(List.of(row(5, 0, "2.0", 1), row(5, 2, "2.2", 1), row(5, 3, "2.3", 1)));
+
+        assertEquals(2, before.size());
+        assertEquals(START.plusDays(1), before.date(0));
+        assertEquals(1_100_000L, before.perUnitRate(0));
+        assertEquals(START.plusDays(3), before.date(1));
+        assertEquals(1_300_000L, before.perUnitRate(1));
+        RateSeries after = store.scan(5, START, START.plusDays(5));
+        assertEquals(4, after.size());
+        assertEquals(List.of(2_000_000L, 1_100_000L, 2_200_000L, 2_300_000L),
+                List.of(after.perUnitRate(0), after.perUnitRate(1), after.perUnitRate(2), after.perUnitRate(3)));
+        store.destroy();
+    }
+
+    @Test
+    void removesAndReplacesDaysAcrossReopen() throws Exception {
+        RateHistoryStore store = new RateHistoryStore(directory);
+        store.appendAll(List.of(row(8, 0, "1.0", 1), row(8, 1, "1.1", 1), row(8, 2, "1.2", 1)));
+        store.append(row(9, 0, "5.0", 1));
+        RateSeries before = store.scan(8, START, START.plusDays(2));
+
+        store.remove(8, START.plusDays(1));
+        store.remove(8, START.plusDays(7));
+        store.replace(9, List.of(row(9, 4, "5.4", 1)));
+
+        assertEquals(1_100_000L, before.perUnitRate(1));
+        RateSeries after = store.scan(8, START, START.plusDays(2));
+        assertEquals(2, after.size());
+        assertEquals(START.plusDays(2), after.date(1));
+        store.destroy();
+
+        RateHistoryStore reopened = new RateHistoryStore(directory);
+        assertEquals(2, reopened.scan(8, START, START.plusDays(2)).size());
+        RateSeries replaced = reopened.scan(9, START, START.plusDays(5));
+        assertEquals(1, replaced.size());
+        assertEquals(START.plusDays(4), replaced.date(0));
+        reopened.retainOnly(Set.of(9));
+        assertTrue(reopened.scan(8, START, START.plusDays(2)).isEmpty());
+        reopened.destroy();
+    }
+
+    private static RateRow row(int currencyId, int day, String rate, int scale) {
+        return new RateRow(currencyId, START.plusDays(day), new BigDecimal(rate), scale);
+    }
+}
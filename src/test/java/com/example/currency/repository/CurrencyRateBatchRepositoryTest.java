@@ -0,0 +1,43 @@
+package com.example.currency.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CurrencyRateBatchRepositoryTest {
+    private static final LocalDate DATE = LocalDate.of(2024, 3, 1);
+
+    private JdbcTemplate jdbcTemplate;
+    private CurrencyRateBatchRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:batch-" + System.nanoTime() + ";MODE=MySQL;DB_CLOSE_DELAY=-1"));
+        jdbcTemplate.execute("CREATE TABLE currency_rate (id BIGINT AUTO_INCREMENT PRIMARY KEY, currency_id INT, "
+                + "date DATE, cur_official_rate DECIMAL(19, 4), cur_scale INT, "
+                + "CONSTRAINT uk_currency_rate_currency_date UNIQUE (currency_id, date))");
+        repository = new CurrencyRateBatchRepository(jdbcTemplate, 2);
+    }
+
+    @Test
+    void insertsAcrossBatchesAndOverwritesExistingRows() {
+        repository.upsert(List.of(
+                new RateRow(431, DATE, new BigDecimal("3.2741"), 1),
+                new RateRow(431, DATE.plusDays(1), new BigDecimal("3.2800"), 1),
+                new RateRow(456, DATE, new BigDecimal("3.5537"), 100)));
+        repository.upsert(List.of(new RateRow(431, DATE, new BigDecimal("3.3000"), 1)));
+
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM currency_rate", Integer.class));
+        assertEquals(new BigDecimal("3.3000"), jdbcTemplate.queryForObject(
+                "SELECT cur_official_rate FROM currency_rate WHERE currency_id = 431 AND date = ?",
+                BigDecimal.class, DATE));
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.currency.repository;
+
+import com.example.currency.dto.CurrencyView;
+import com.example.currency.dto.RateView;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CurrencyRateRepositoryTest {
+    private static final LocalDate DATE = LocalDate.of(2024, 3, 1);
+
+    private EntityManagerFactory entityManagerFactory;
+    private CurrencyRateRepository rateRepository;
+    private CurrencyInfoRepository currencyRepository;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:views-" + System.nanoTime() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE currency_info (id INT AUTO_INCREMENT PRIMARY KEY, cur_code VARCHAR(8), "
+                + "cur_abbreviation VARCHAR(8), cur_name VARCHAR(64), cur_scale INT)");
+        jdbcTemplate.execute("CREATE TABLE currency_rate (id BIGINT AUTO_INCREMENT PRIMARY KEY, currency_id INT NOT NULL, "
+                + "date DATE, cur_official_rate DECIMAL(19, 4), cur_scale INT)");
+        jdbcTemplate.update("INSERT INTO currency_info (id, cur_code, cur_abbreviation, cur_name, cur_scale) "
+                + "VALUES (431, '840', 'USD', 'US Dollar', 1), (456, '643', 'RUB', 'Russian Ruble', 100)");
+        jdbcTemplate.update("INSERT INTO currency_rate (id, currency_id, date, cur_official_rate, cur_scale) "
+                + "VALUES (1, 431, ?, 3.2741, 1), (2, 456, ?, 3.5537, 100), (3, 431, ?, 3.2800, 1)",
+                DATE, DATE, DATE.plusDays(1));
+
+        LocalContainerEntityManagerFactoryBean factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setPackagesToScan("com.example.currency.models");
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factoryBean.setJpaPropertyMap(Map.of("hibernate.hbm2ddl.auto", "none"));
+        factoryBean.afterPropertiesSet();
+        entityManagerFactory = factoryBean.getObject();
+
+        JpaRepositoryFactory repositoryFactory = new JpaRepositoryFactory(
+                SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory));
+        rateRepository = repositoryFactory.getRepository(CurrencyRateRepository.class);
+        currencyRepository = repositoryFactory.getRepository(CurrencyInfoRepository.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        entityManagerFactory.close();
+    }
+
+    @Test
+    void projectsRatesWithFlattenedCurrency() {
+        assertEquals(List.of(
+                new RateView(1L, 431, "USD", new BigDecimal("3.2741"), 1, DATE),
+                new RateView(2L, 456, "RUB", new BigDecimal("3.5537"), 100, DATE),
+                new RateView(3L, 431, "USD", new BigDecimal("3.2800"), 1, DATE.plusDays(1))),
+                rateRepository.findAllViews());
+        assertEquals(List.of(2L), rateRepository.findViewsByAbbreviationAndDate("RUB", DATE).stream().map(RateView::id).toList());
+        assertEquals(2, rateRepository.findViewsByDate(DATE).size());
+        assertEquals(DATE.plusDays(1),
+                rateRepository.findLatestViews(431, DATE.plusDays(5), PageRequest.ofSize(1)).get(0).date());
+        assertEquals(List.of(2L, 3L), rateRepository.findViewsAfter(1, PageRequest.ofSize(2)).stream().map(RateView::id).toList());
+        assertEquals(List.of(), rateRepository.findViewsAfter(3, PageRequest.ofSize(2)));
+    }
+
+    @Test
+    void projectsCurrenciesWithoutRates() {
+        assertEquals(List.of(new CurrencyView(431, "840", "USD", "US Dollar", 1),
+                        new CurrencyView(456, "643", "RUB", "Russian Ruble", 100)),
+                currencyRepository.findAllViews());
+        assertEquals("RUB", currencyRepository.findViewById(456).orElseThrow().abbreviation());
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.currency.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RateKeyMigrationTest {
+    private static final LocalDate DATE = LocalDate.of(2024, 3, 1);
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:rate-key-" + System.nanoTime() + ";MODE=MySQL;DB_CLOSE_DELAY=-1"));
+        jdbcTemplate.execute("CREATE TABLE currency_rate (id BIGINT AUTO_INCREMENT PRIMARY KEY, currency_id INT, "
+                + "date DATE, cur_official_rate DECIMAL(19, 4), cur_scale INT)");
+        jdbcTemplate.update("INSERT INTO currency_rate (id, currency_id, date, cur_official_rate, cur_scale) "
+                        + "VALUES (1, 431, ?, 3.2700, 1), (2, 431, ?, 3.2741, 1), (3, 456, ?, 3.5537, 100), "
+                        + "(4, 431, ?, 3.2800, 1)",
+                DATE, DATE, DATE, DATE.plusDays(1));
+    }
+
+    @Test
+    void removesDuplicatesKeepingNewestAndAddsUniqueKey() {
+        RateKeyMigration migration = new RateKeyMigration(jdbcTemplate);
+
+        migration.migrate();
+        migration.migrate();
+
+        assertEquals(List.of(2L, 3L, 4L), jdbcTemplate.queryForList("SELECT id FROM currency_rate ORDER BY id", Long.class));
+        assertThrows(DataIntegrityViolationException.class, () -> jdbcTemplate.update(
+                "INSERT INTO currency_rate (currency_id, date, cur_official_rate, cur_scale) VALUES (431, ?, 1, 1)", DATE));
+    }
+}
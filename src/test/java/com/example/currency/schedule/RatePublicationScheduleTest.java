@@ -0,0 +1,64 @@
+package com.example.currency.schedule;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RatePublicationScheduleTest {
+    private static final ZoneId MINSK = ZoneId.of("Europe/Minsk");
+
+    @Test
+    void switchesRateDateAtPublicationTime() {
+        // 2024-03-01 10:59 in Minsk (UTC+3)
+        RatePublicationSchedule beforePublication = schedule("2024-03-01T07:59:00Z", LocalTime.of(11, 0));
+        RatePublicationSchedule afterPublication = schedule("2024-03-01T08:00:00Z", LocalTime.of(11, 0));
+
+        assertEquals(LocalDate.of(2024, 2, 29), beforePublication.currentRateDate());
+        assertEquals(Duration.ofMinutes(1), beforePublication.untilNextPublication());
+        assertEquals(LocalDate.of(2024, 3, 1), afterPublication.currentRateDate());
+        assertEquals(Duration.ofHours(24), afterPublication.untilNextPublication());
+    }
+
+    @Test
+    void usesConfiguredZoneForMidnightRollover() {
+        // 22:30 UTC is already the next day in Minsk
+        RatePublicationSchedule schedule = schedule("2024-03-01T22:30:00Z", LocalTime.MIDNIGHT);
+
+        assertEquals(LocalDate.of(2024, 3, 2), schedule.currentRateDate());
+        assertEquals(Instant.parse("2024-03-02T21:00:00Z"), schedule.nextPublication());
+        assertTrue(schedule.isFinal(LocalDate.of(2024, 3, 1)));
+        assertFalse(schedule.isFinal(LocalDate.of(2024, 3, 2)));
+    }
+
+    @Test
+    void holdsPromotedDateUntilNextIsPromotedOrHoldExpires() {
+        Clock clock = Clock.fixed(Instant.parse("2024-03-01T21:30:00Z"), MINSK);
+        RatePublicationSchedule schedule = new RatePublicationSchedule(MINSK, LocalTime.MIDNIGHT, clock, Duration.ofHours(1));
+        RatePublicationSchedule expired = new RatePublicationSchedule(MINSK, LocalTime.MIDNIGHT,
+                Clock.offset(clock, Duration.ofHours(1)), Duration.ofHours(1));
+        schedule.promote(LocalDate.of(2024, 3, 1));
+        expired.promote(LocalDate.of(2024, 3, 1));
+
+        assertEquals(LocalDate.of(2024, 3, 2), schedule.currentRateDate());
+        assertEquals(LocalDate.of(2024, 3, 1), schedule.servedRateDate());
+        assertEquals(Duration.ZERO, schedule.untilNextPublication());
+        assertEquals(LocalDate.of(2024, 3, 2), expired.servedRateDate());
+
+        schedule.promote(LocalDate.of(2024, 3, 2));
+        schedule.promote(LocalDate.of(2024, 3, 1));
+        assertEquals(LocalDate.of(2024, 3, 2), schedule.servedRateDate());
+    }
+
+    private static RatePublicationSchedule schedule(String now, LocalTime publicationTime) {
+        return new RatePublicationSchedule(MINSK, publicationTime, Clock.fixed(Instant.parse(now), MINSK));
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.currency.service;
+
+import com.example.currency.client.CurrencyNotFoundException;
+import com.example.currency.client.UpstreamUnavailableException;
+import com.example.currency.conversion.RateMatrix;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BatchConversionServiceTest {
+    private CurrencyConversionService conversionService;
+    private BatchConversionService batchConversionService;
+
+    @BeforeEach
+    void setUp() {
+        conversionService = mock(CurrencyConversionService.class);
+        when(conversionService.currentRateMatrix()).thenReturn(RateMatrix.empty(LocalDate.now()));
+        when(conversionService.perUnitRate(any(), eq(1))).thenReturn(3_000_000L);
+        when(conversionService.perUnitRate(any(), eq(2))).thenReturn(1_500_000L);
+        batchConversionService = new BatchConversionService(conversionService, new ObjectMapper());
+    }
+
+    @Test
+    void convertsJsonArrayAndResolvesEachCurrencyOnce() throws Exception {
+        String body = "[{\"from\":1,\"to\":2,\"amount\":10},{\"from\":2,\"to\":1,\"amount\":3},{\"from\":1,\"to\":2,\"amount\":-1}]";
+
+        String[] lines = convert(body);
+
+        assertEquals(3, lines.length);
+        assertEquals("{\"from\":1,\"to\":2,\"amount\":10,\"result\":20.00}", lines[0]);
+        assertEquals("{\"from\":2,\"to\":1,\"amount\":3,\"result\":1.50}", lines[1]);
+        assertEquals("{\"from\":1,\"to\":2,\"amount\":-1,\"error\":\"Amount must be greater than zero\"}", lines[2]);
+        verify(conversionService, times(1)).perUnitRate(any(), eq(1));
+        verify(conversionService, times(1)).perUnitRate(any(), eq(2));
+    }
+
+    @Test
+    void convertsNdjsonStream() throws Exception {
+        String body = "{\"from\":1,\"to\":2,\"amount\":1}\n{\"from\":1,\"to\":2,\"amount\":2}\n";
+
+        String[] lines = convert(body);
+
+        assertEquals(2, lines.length);
+        assertEquals("{\"from\":1,\"to\":2,\"amount\":2,\"result\":4.00}", lines[1]);
+    }
+
+    @Test
+    void reportsMalformedItemsAndUnknownCurrenciesWithoutStopping() throws Exception {
+        when(conversionService.perUnitRate(any(), eq(9))).thenThrow(new CurrencyNotFoundException("Unknown currency 9"));
+        String array = "[{\"from\":\"x\",\"to\":2,\"amount\":1},{\"from\":9,\"to\":2,\"amount\":1},"
+                + "{\"from\":9,\"to\":1,\"amount\":2},{\"from\":1,\"to\":2,\"amount\":1}]";
+        String ndjson = "{\"from\":1,\"to\":2,\"amount\":1}\n{\"from\":1,\n{\"from\":1,\"to\":2,\"amount\":2}\n";
+
+        String[] arrayLines = convert(array);
+        String[] ndjsonLines = convert(ndjson);
+
+        assertEquals(4, arrayLines.length);
+        assertTrue(arrayLines[0].startsWith("{\"error\":\"Invalid item"), arrayLines[0]);
+        assertEquals("{\"from\":9,\"to\":1,\"amount\":2,\"error\":\"Unknown currency 9\"}", arrayLines[2]);
+        assertEquals("{\"from\":1,\"to\":2,\"amount\":1,\"result\":2.00}", arrayLines[3]);
+        verify(conversionService, times(1)).perUnitRate(any(), eq(9));
+        assertEquals(3, ndjsonLines.length);
+        assertTrue(ndjsonLines[1].startsWith("{\"error\":\"Invalid item"), ndjsonLines[1]);
+        assertEquals("{\"from\":1,\"to\":2,\"amount\":2,\"result\":4.00}", ndjsonLines[2]);
+    }
+
+    @Test
+    void retriesCurrenciesWhoseLookupFailedTransiently() throws Exception {
+        when(conversionService.perUnitRate(any(), eq(3)))
+                .thenThrow(new UpstreamUnavailableException("NBRB down"))
+                .thenReturn(1_000_000L);
+        String body = "{\"from\":3,\"to\":2,\"amount\":1}\n{\"from\":3,\"to\":2,\"amount\":3}\n"
+                + "{\"from\":3,\"to\":1,\"amount\":3}\n";
+
+        String[] lines = convert(body);
+
+        assertEquals("{\"from\":3,\"to\":2,\"amount\":1,\"error\":\"NBRB down\"}", lines[0]);
+        assertEquals("{\"from\":3,\"to\":2,\"amount\":3,\"result\":2.00}", lines[1]);
+        assertEquals("{\"from\":3,\"to\":1,\"amount\":3,\"result\":1.00}", lines[2]);
+        verify(conversionService, times(2)).perUnitRate(any(), eq(3));
+    }
+
+    private String[] convert(String body) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        batchConversionService.convert(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), out);
+        return out.toString(StandardCharsets.UTF_8).strip().split("\n");
+    }
+}
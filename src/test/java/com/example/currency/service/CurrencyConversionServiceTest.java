@@ -0,0 +1,164 @@
+package com.example.currency.service;
+
+import com.example.currency.cache.CacheInvalidator;
+import com.example.currency.cache.CacheTag;
+import com.example.currency.cache.CurrencyCache;
+import com.example.currency.cache.DataVersions;
+import com.example.currency.conversion.RateMatrix;
+import com.example.currency.conversion.RateMatrixHolder;
+import com.example.currency.dto.CurrencyView;
+import com.example.currency.history.RateHistoryLoader;
+import com.example.currency.history.RateHistoryStore;
+import com.example.currency.models.CurrencyInfo;
+import com.example.currency.models.CurrencyRate;
+import com.example.currency.repository.CacheInvalidationRepository;
+import com.example.currency.repository.CurrencyRateRepository;
+import com.example.currency.schedule.RatePublicationSchedule;
+import com.example.currency.stream.RateUpdateBroadcaster;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CurrencyConversionServiceTest {
+    private static final ZoneId ZONE = ZoneOffset.UTC;
+    private static final LocalDate TODAY = LocalDate.of(2024, 3, 1);
+
+    private final RateMatrixHolder rateMatrixHolder = new RateMatrixHolder();
+    private final CurrencyCache cache = new CurrencyCache(10, Duration.ofMinutes(1), 10, Duration.ofMinutes(1), 1000);
+    private CurrencyService currencyService;
+    private CurrencyRateRepository rateRepository;
+    private RateUpdateBroadcaster broadcaster;
+    private RateHistoryStore historyStore;
+    private CurrencyConversionService conversionService;
+
+    @BeforeEach
+    void setUp() {
+        currencyService = mock(CurrencyService.class);
+        broadcaster = mock(RateUpdateBroadcaster.class);
+        historyStore = mock(RateHistoryStore.class);
+        rateRepository = mock(CurrencyRateRepository.class);
+        when(rateRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(rateRepository.saveAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        CacheInvalidator cacheInvalidator = new CacheInvalidator(cache, rateMatrixHolder, new DataVersions(),
+                mock(RateHistoryLoader.class), mock(CacheInvalidationRepository.class), "test", false);
+        Clock clock = Clock.fixed(TODAY.atTime(12, 0).toInstant(ZoneOffset.UTC), ZONE);
+        conversionService = new CurrencyConversionService(
+                currencyService,
+                rateRepository,
+                cache,
+                rateMatrixHolder,
+                historyStore,
+                cacheInvalidator,
+                broadcaster,
+                new RatePublicationSchedule(ZONE, LocalTime.MIDNIGHT, clock),
+                Duration.ofSeconds(1));
+    }
+
+    @Test
+    void updateMovingRateToAnotherCurrencyClearsItsOldSlot() {
+        rateMatrixHolder.publish(RateMatrix.builder(TODAY)
+                .put(431, RateMatrix.perUnitRate(new BigDecimal("3.2741"), 1))
+                .build());
+        when(rateRepository.findWithCurrencyById(1L)).thenReturn(Optional.of(rate(1L, 431, "3.2741", TODAY)));
+
+        conversionService.updateRate(1L, rate(null, 456, "3.5537", TODAY));
+
+        RateMatrix matrix = rateMatrixHolder.get();
+        assertEquals(RateMatrix.MISSING, matrix.perUnitRate(431));
+        assertEquals(RateMatrix.perUnitRate(new BigDecimal("3.5537"), 1), matrix.perUnitRate(456));
+        verify(historyStore).remove(431, TODAY);
+    }
+
+    @Test
+    void deleteDropsTheRateFromMatrixAndHistory() {
+        rateMatrixHolder.publish(RateMatrix.builder(TODAY)
+                .put(431, RateMatrix.perUnitRate(new BigDecimal("3.2741"), 1))
+                .build());
+        when(rateRepository.findWithCurrencyById(1L)).thenReturn(Optional.of(rate(1L, 431, "3.2741", TODAY)));
+
+        conversionService.deleteRate(1L);
+
+        assertEquals(RateMatrix.MISSING, rateMatrixHolder.get().perUnitRate(431));
+        verify(historyStore).remove(431, TODAY);
+    }
+
+    @Test
+    void updateChangesMatrixAndCachesOnlyAfterCommit() {
+        rateMatrixHolder.publish(RateMatrix.builder(TODAY)
+                .put(431, RateMatrix.perUnitRate(new BigDecimal("3.2741"), 1))
+                .build());
+        when(rateRepository.findWithCurrencyById(1L)).thenReturn(Optional.of(rate(1L, 431, "3.2741", TODAY)));
+        cache.rateLists().put("allRates", List.of(), List.of(CacheTag.ALL_RATES));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            conversionService.updateRate(1L, rate(null, 431, "3.3000", TODAY));
+
+            assertEquals(RateMatrix.perUnitRate(new BigDecimal("3.2741"), 1), rateMatrixHolder.get().perUnitRate(431));
+            assertEquals(1, cache.rateLists().size());
+            verify(broadcaster, never()).publish(any());
+
+            TransactionSynchronizationUtils.triggerAfterCommit();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(RateMatrix.perUnitRate(new BigDecimal("3.3000"), 1), rateMatrixHolder.get().perUnitRate(431));
+        assertEquals(0, cache.rateLists().size());
+        verify(broadcaster).publish(any());
+    }
+
+    @Test
+    void createdRateDropsCachedListForItsAbbreviation() {
+        when(currencyService.getCurrencyById(431)).thenReturn(Optional.of(new CurrencyView(431, null, "USD", null, 1)));
+        when(rateRepository.findViewsByAbbreviationAndDate("USD", TODAY)).thenReturn(List.of());
+        conversionService.getRatesByAbbreviationAndDate("USD", TODAY);
+
+        conversionService.createRate(rate(null, 431, "3.2741", TODAY));
+
+        assertEquals(0, cache.rateLists().size());
+    }
+
+    @Test
+    void pagesAreReadFromTheTableWithoutFillingTheCache() {
+        when(rateRepository.findViewsAfter(anyLong(), any())).thenReturn(List.of());
+
+        conversionService.getRatesAfter(0, 100);
+        conversionService.getRatesAfter(0, 100);
+
+        verify(rateRepository, times(2)).findViewsAfter(anyLong(), any());
+        assertEquals(0, cache.rateLists().size());
+    }
+
+    private static CurrencyRate rate(Long id, int currencyId, String officialRate, LocalDate date) {
+        CurrencyInfo currency = new CurrencyInfo();
+        currency.setId(currencyId);
+        CurrencyRate rate = new CurrencyRate();
+        rate.setId(id);
+        rate.setCurrency(currency);
+        rate.setOfficialRate(new BigDecimal(officialRate));
+        rate.setScale(1);
+        rate.setDate(date);
+        return rate;
+    }
+}
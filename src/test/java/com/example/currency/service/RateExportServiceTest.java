@@ -0,0 +1,85 @@
+package com.example.currency.service;
+
+import com.example.currency.repository.RateExportRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RateExportServiceTest {
+    private static final LocalDate DATE = LocalDate.of(2024, 3, 1);
+
+    private RateExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:export-" + System.nanoTime() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE currency_info (id INT AUTO_INCREMENT PRIMARY KEY, cur_code VARCHAR(8), "
+                + "cur_abbreviation VARCHAR(8), cur_name VARCHAR(64), cur_scale INT)");
+        jdbcTemplate.execute("CREATE TABLE currency_rate (id BIGINT AUTO_INCREMENT PRIMARY KEY, currency_id INT NOT NULL, "
+                + "date DATE, cur_official_rate DECIMAL(19, 4), cur_scale INT)");
+        jdbcTemplate.update("INSERT INTO currency_info (id, cur_code, cur_abbreviation, cur_name, cur_scale) "
+                + "VALUES (431, '840', 'USD', 'US Dollar', 1), (456, '643', 'RUB', 'Russian Ruble', 100)");
+        jdbcTemplate.update("INSERT INTO currency_rate (id, currency_id, date, cur_official_rate, cur_scale) "
+                        + "VALUES (1, 456, ?, 3.5537, 100), (2, 431, ?, 3.2800, 1), (3, 431, ?, 3.2741, 1)",
+                DATE, DATE.plusDays(1), DATE);
+        exportService = new RateExportService(new RateExportRepository(dataSource, 2),
+                new ObjectMapper().registerModule(new JavaTimeModule())
+                        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS), 2);
+    }
+
+    @Test
+    void exportsCsvInCurrencyAndDateOrder() throws IOException {
+        assertEquals(List.of(
+                "abbreviation,date,rate,scale",
+                "USD,2024-03-01,3.2741,1",
+                "USD,2024-03-02,3.2800,1",
+                "RUB,2024-03-01,3.5537,100"),
+                export(null, null, null, RateImportService.Format.CSV));
+    }
+
+    @Test
+    void rejectsExportsBeyondTheSlotLimitUntilOneIsClosed() {
+        RateExportService.Slot first = exportService.reserveSlot();
+        RateExportService.Slot second = exportService.reserveSlot();
+        assertThrows(ExportCapacityException.class, exportService::reserveSlot);
+
+        first.close();
+        first.close();
+        RateExportService.Slot third = exportService.reserveSlot();
+        assertThrows(ExportCapacityException.class, exportService::reserveSlot);
+        second.close();
+        third.close();
+    }
+
+    @Test
+    void exportsNdjsonFilteredByDateAndCurrency() throws IOException {
+        assertEquals(List.of("{\"abbreviation\":\"USD\",\"date\":\"2024-03-01\",\"rate\":3.2741,\"scale\":1}"),
+                export(DATE, DATE, Set.of(431), RateImportService.Format.NDJSON));
+        assertEquals(List.of(), export(DATE.plusDays(5), null, null, RateImportService.Format.NDJSON));
+    }
+
+    private List<String> export(LocalDate from, LocalDate to, Set<Integer> currencyIds,
+                                RateImportService.Format format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long count = exportService.export(from, to, currencyIds, format, out);
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(count, format == RateImportService.Format.CSV ? lines.size() - 1 : lines.size());
+        return lines;
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.currency.service;
+
+import com.example.currency.cache.CacheInvalidator;
+import com.example.currency.cache.CurrencyCache;
+import com.example.currency.cache.DataVersions;
+import com.example.currency.conversion.RateMatrixHolder;
+import com.example.currency.dto.CurrencyView;
+import com.example.currency.dto.ImportResult;
+import com.example.currency.history.RateHistoryLoader;
+import com.example.currency.history.RateHistoryStore;
+import com.example.currency.repository.CacheInvalidationRepository;
+import com.example.currency.repository.CurrencyInfoRepository;
+import com.example.currency.repository.CurrencyRateBatchRepository;
+import com.example.currency.repository.RateRow;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RateImportServiceTest {
+    private final List<List<RateRow>> batches = new ArrayList<>();
+    private int failingBatch = -1;
+    private DataVersions dataVersions;
+    private RateImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        CurrencyInfoRepository currencyInfoRepository = mock(CurrencyInfoRepository.class);
+        when(currencyInfoRepository.findAllViews()).thenReturn(List.of(currency(431, "USD"), currency(456, "RUB")));
+        CurrencyRateBatchRepository batchRepository = mock(CurrencyRateBatchRepository.class);
+        doAnswer(invocation -> {
+            if (batches.size() == failingBatch) {
+                throw new IllegalStateException("connection lost");
+            }
+            batches.add(List.copyOf(invocation.getArgument(0)));
+            return batches.get(batches.size() - 1).size();
+        }).when(batchRepository).upsert(anyList());
+        dataVersions = new DataVersions();
+        RateMatrixHolder rateMatrixHolder = new RateMatrixHolder();
+        CacheInvalidator cacheInvalidator = new CacheInvalidator(
+                new CurrencyCache(10, Duration.ofMinutes(1), 10, Duration.ofMinutes(1), 1000),
+                rateMatrixHolder, dataVersions, mock(RateHistoryLoader.class), mock(CacheInvalidationRepository.class), "test", false);
+        importService = new RateImportService(
+                currencyInfoRepository,
+                batchRepository,
+                mock(RateHistoryStore.class),
+                rateMatrixHolder,
+                cacheInvalidator,
+                new ObjectMapper().registerModule(new JavaTimeModule()),
+                2);
+    }
+
+    @Test
+    void importsCsvInSortedChunksAndReportsBadLines() throws Exception {
+        DataVersions.Stamp version = dataVersions.current(DataVersions.Dataset.RATES);
+        String csv = """
+                abbreviation,date,rate,scale
+                USD,2024-03-02,3.2800,1
+                USD,2024-03-01,3.2741,1
+                XYZ,2024-03-01,1.0,1
+                RUB,2024-03-01,not-a-number,100
+                rub,2024-03-01,3.5537,100
+                """;
+
+        ImportResult result = importService.importRates(stream(csv), RateImportService.Format.CSV);
+
+        assertEquals(5, result.read());
+        assertEquals(3, result.imported());
+        assertEquals(2, result.skipped());
+        assertEquals(2, result.errors().size());
+        assertTrue(result.errors().get(0).startsWith("line 4: unknown currency"));
+        assertEquals(2, batches.size());
+        assertEquals(LocalDate.of(2024, 3, 1), batches.get(0).get(0).date());
+        assertEquals(new RateRow(456, LocalDate.of(2024, 3, 1), new BigDecimal("3.5537"), 100), batches.get(1).get(0));
+        assertNotEquals(version, dataVersions.current(DataVersions.Dataset.RATES));
+    }
+
+    @Test
+    void importsNdjson() throws Exception {
+        String ndjson = """
+                {"abbreviation":"USD","date":"2024-03-01","rate":3.2741,"scale":1}
+                {"abbreviation":"RUB","date":"2024-03-01","rate":3.5537}
+                """;
+
+        ImportResult result = importService.importRates(stream(ndjson), RateImportService.Format.NDJSON);
+
+        assertEquals(2, result.read());
+        assertEquals(1, result.imported());
+        assertEquals(1, result.skipped());
+    }
+
+    @Test
+    void skipsMalformedNdjsonRecordsAndKeepsReading() throws Exception {
+        String ndjson = """
+                {"abbreviation":"USD","date":"2024-03-01","rate":3.2741,"scale":1}
+                {"abbreviation":"RUB","date":"2024-03-01","rate":
+                {"abbreviation":"RUB","date":"not-a-date","rate":3.5537,"scale":100}
+                {"abbreviation":"RUB","date":"2024-03-01","rate":3.5537,"scale":100}
+                """;
+
+        ImportResult result = importService.importRates(stream(ndjson), RateImportService.Format.NDJSON);
+
+        assertEquals(4, result.read());
+        assertEquals(2, result.imported());
+        assertEquals(2, result.skipped());
+        assertTrue(result.errors().get(0).startsWith("line 2: "));
+        assertTrue(result.errors().get(1).startsWith("line 3: "));
+    }
+
+    @Test
+    void invalidatesWrittenChunksWhenALaterChunkFails() {
+        failingBatch = 1;
+        DataVersions.Stamp version = dataVersions.current(DataVersions.Dataset.RATES);
+        String csv = """
+                USD,2024-03-01,3.2741,1
+                RUB,2024-03-01,3.5537,100
+                USD,2024-03-02,3.2800,1
+                """;
+
+        assertThrows(IllegalStateException.class,
+                () -> importService.importRates(stream(csv), RateImportService.Format.CSV));
+
+        assertEquals(1, batches.size());
+        assertNotEquals(version, dataVersions.current(DataVersions.Dataset.RATES));
+    }
+
+    private static CurrencyView currency(int id, String abbreviation) {
+        return new CurrencyView(id, null, abbreviation, null, 1);
+    }
+
+    private static ByteArrayInputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.currency.service;
+
+import com.example.currency.schedule.RatePublicationSchedule;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class RateIngestionJobTest {
+    private static final ZoneId MINSK = ZoneId.of("Europe/Minsk");
+    private static final LocalDate TODAY = LocalDate.of(2024, 3, 2);
+    // 00:05 in Minsk
+    private static final Clock AFTER_MIDNIGHT = Clock.fixed(Instant.parse("2024-03-01T21:05:00Z"), MINSK);
+
+    private final RateIngestionService ingestionService = mock(RateIngestionService.class);
+
+    @Test
+    void skipsTheNewDateWhileThePreviousOneIsHeld() {
+        RatePublicationSchedule schedule = new RatePublicationSchedule(MINSK, LocalTime.MIDNIGHT, AFTER_MIDNIGHT,
+                Duration.ofHours(2));
+        schedule.promote(TODAY.minusDays(1));
+
+        new RateIngestionJob(ingestionService, schedule, false).ingestToday();
+
+        verify(ingestionService, never()).ingest(any());
+    }
+
+    @Test
+    void ingestsTheCurrentDateOnceItIsServed() {
+        RatePublicationSchedule schedule = new RatePublicationSchedule(MINSK, LocalTime.MIDNIGHT, AFTER_MIDNIGHT,
+                Duration.ofHours(2));
+
+        new RateIngestionJob(ingestionService, schedule, false).ingestToday();
+
+        verify(ingestionService).ingest(TODAY);
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.currency.service;
+
+import com.example.currency.repository.RateRow;
+import com.example.currency.schedule.RatePublicationSchedule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RateRefreshAheadJobTest {
+    private static final ZoneId MINSK = ZoneId.of("Europe/Minsk");
+    private static final LocalDate TODAY = LocalDate.of(2024, 3, 1);
+    private static final LocalDate TOMORROW = TODAY.plusDays(1);
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2024-03-01T12:00:00Z"));
+    private RateIngestionService ingestionService;
+    private CurrencyService currencyService;
+    private RatePublicationSchedule schedule;
+    private RateRefreshAheadJob job;
+
+    @BeforeEach
+    void setUp() {
+        ingestionService = mock(RateIngestionService.class);
+        currencyService = mock(CurrencyService.class);
+        schedule = new RatePublicationSchedule(MINSK, LocalTime.MIDNIGHT, clock, Duration.ofHours(2));
+        job = new RateRefreshAheadJob(ingestionService, currencyService, schedule, Duration.ofHours(12));
+        job.start();
+        when(ingestionService.fetch(TODAY)).thenReturn(List.of(row(431, TODAY), row(456, TODAY)));
+    }
+
+    @Test
+    void keepsServingPreviousDayUntilCompleteSetIsPromoted() {
+        when(ingestionService.fetch(TOMORROW)).thenReturn(List.of(row(431, TOMORROW), row(456, TODAY)));
+        job.prepare();
+        assertNull(job.getStaged());
+
+        // past midnight in Minsk, but only one of two currencies has been published
+        clock.set(Instant.parse("2024-03-01T21:00:05Z"));
+        job.promoteIfDue();
+        assertEquals(TODAY, schedule.servedRateDate());
+
+        List<RateRow> complete = List.of(row(431, TOMORROW), row(456, TOMORROW));
+        when(ingestionService.fetch(TOMORROW)).thenReturn(complete);
+        job.prepare();
+        job.promoteIfDue();
+
+        InOrder order = inOrder(ingestionService, currencyService);
+        order.verify(ingestionService).apply(TOMORROW, complete);
+        order.verify(currencyService).primeDailyRates(TOMORROW, complete);
+        assertEquals(TOMORROW, schedule.servedRateDate());
+        assertNull(job.getStaged());
+    }
+
+    @Test
+    void promotesStagedRatesOnlyAtPublicationTime() {
+        when(ingestionService.fetch(TOMORROW)).thenReturn(List.of(row(431, TOMORROW), row(456, TOMORROW)));
+        clock.set(Instant.parse("2024-03-01T20:59:59Z"));
+        job.prepare();
+        job.promoteIfDue();
+
+        assertNotNull(job.getStaged());
+        verify(ingestionService, never()).apply(any(), any());
+        assertEquals(TODAY, schedule.servedRateDate());
+
+        clock.set(Instant.parse("2024-03-01T21:00:00Z"));
+        job.promoteIfDue();
+
+        assertEquals(TOMORROW, schedule.servedRateDate());
+    }
+
+    @Test
+    void doesNotPollOutsideLeadTime() {
+        clock.set(Instant.parse("2024-03-01T08:00:00Z"));
+        job.prepare();
+
+        verify(ingestionService, never()).fetch(any());
+    }
+
+    private static RateRow row(int currencyId, LocalDate date) {
+        return new RateRow(currencyId, date, new BigDecimal("3.2741"), 1);
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void set(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return MINSK;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return Clock.fixed(instant, zone);
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.currency.service;
+
+import com.example.currency.cache.CacheInvalidator;
+import com.example.currency.cache.CacheTag;
+import com.example.currency.cache.CurrencyCache;
+import com.example.currency.cache.DataVersions;
+import com.example.currency.cache.RateKey;
+import com.example.currency.conversion.RateMatrixHolder;
+import com.example.currency.history.RateHistoryLoader;
+import com.example.currency.history.RateHistoryStore;
+import com.example.currency.repository.CacheInvalidationRepository;
+import com.example.currency.repository.CurrencyRateBatchRepository;
+import com.example.currency.repository.RateRow;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class RateWriteBehindQueueTest {
+    private static final LocalDate DATE = LocalDate.of(2024, 3, 1);
+
+    private final List<List<RateRow>> batches = new ArrayList<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private CurrencyRateBatchRepository batchRepository;
+    private boolean failing;
+
+    @BeforeEach
+    void setUp() {
+        batchRepository = mock(CurrencyRateBatchRepository.class);
+        doAnswer(invocation -> {
+            if (failing) {
+                throw new IllegalStateException("database down");
+            }
+            batches.add(List.copyOf(invocation.getArgument(0)));
+            return batches.get(batches.size() - 1).size();
+        }).when(batchRepository).upsert(anyList());
+    }
+
+    @Test
+    void flushesLatestRatePerCurrencyAndDateInBatches() {
+        RateWriteBehindQueue queue = queue(10, 2);
+        queue.submit(row(431, "3.2000"), "USD");
+        queue.submit(row(456, "3.5537"), "RUB");
+        queue.submit(row(431, "3.2741"), "USD");
+        queue.submit(row(978, "3.5300"), "EUR");
+        assertEquals(3, queue.size());
+        assertEquals(3.0, meterRegistry.get("currency.write-behind.queue.depth").gauge().value());
+
+        queue.flush();
+
+        assertEquals(List.of(List.of(row(431, "3.2741"), row(456, "3.5537")), List.of(row(978, "3.5300"))), batches);
+        assertEquals(0, queue.size());
+        assertEquals(2, meterRegistry.get("currency.write-behind.flush").timer().count());
+    }
+
+    @Test
+    void writesSynchronouslyWhenFullAndRequeuesFailedFlush() {
+        RateWriteBehindQueue queue = queue(1, 10);
+        queue.submit(row(431, "3.2741"), "USD");
+        queue.submit(row(456, "3.5537"), "RUB");
+
+        assertEquals(List.of(List.of(row(456, "3.5537"))), batches);
+        assertEquals(1.0, meterRegistry.get("currency.write-behind.overflowed").counter().count());
+
+        failing = true;
+        queue.flush();
+        assertEquals(1, queue.size());
+
+        failing = false;
+        queue.destroy();
+        assertEquals(List.of(row(431, "3.2741")), batches.get(1));
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    void flushDropsCachedListsButKeepsTheFetchedRate() {
+        CurrencyCache cache = new CurrencyCache(10, Duration.ofMinutes(1), 10, Duration.ofMinutes(1), 1000);
+        CacheInvalidator invalidator = new CacheInvalidator(cache, new RateMatrixHolder(), new DataVersions(), mock(RateHistoryLoader.class),
+                mock(CacheInvalidationRepository.class), "test", false);
+        RateWriteBehindQueue queue = new RateWriteBehindQueue(batchRepository, mock(RateHistoryStore.class), invalidator,
+                meterRegistry, 10, 10);
+        cache.dailyRates().put(new RateKey(431, DATE), null, CacheTag.forRate(431, DATE));
+        cache.rateLists().put("allRates", List.of(), List.of(CacheTag.ALL_RATES));
+        cache.rateLists().put("rates:USD:" + DATE, List.of(), List.of(CacheTag.ratesList("USD", DATE)));
+
+        queue.submit(row(431, "3.2741"), "USD");
+        queue.flush();
+
+        assertEquals(1, cache.dailyRates().size());
+        assertEquals(0, cache.rateLists().size());
+    }
+
+    private RateWriteBehindQueue queue(int capacity, int batchSize) {
+        return new RateWriteBehindQueue(batchRepository, mock(RateHistoryStore.class), mock(CacheInvalidator.class),
+                meterRegistry, capacity, batchSize);
+    }
+
+    private static RateRow row(int currencyId, String rate) {
+        return new RateRow(currencyId, DATE, new BigDecimal(rate), 1);
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.currency.snapshot;
+
+import com.example.currency.cache.CurrencyCache;
+import com.example.currency.cache.InvalidationPoller;
+import com.example.currency.conversion.RateMatrix;
+import com.example.currency.conversion.RateMatrixHolder;
+import com.example.currency.dto.CurrencyView;
+import com.example.currency.repository.CurrencyInfoRepository;
+import com.example.currency.schedule.RatePublicationSchedule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RateSnapshotStoreTest {
+    private static final ZoneId ZONE = ZoneId.of("Europe/Minsk");
+    private static final LocalDate TODAY = LocalDate.of(2024, 3, 1);
+
+    @TempDir
+    Path dir;
+    private Path file;
+    private CurrencyInfoRepository currencyInfoRepository;
+
+    @BeforeEach
+    void setUp() {
+        file = dir.resolve("rate-snapshot.bin");
+        currencyInfoRepository = mock(CurrencyInfoRepository.class);
+        when(currencyInfoRepository.findAllViews()).thenReturn(List.of(currency(431, "USD", 1), currency(456, "RUB", 100)));
+    }
+
+    @Test
+    void restoresMatrixAndDirectoryWrittenOnShutdown() {
+        RateMatrixHolder written = new RateMatrixHolder();
+        written.publish(RateMatrix.builder(TODAY).put(431, 3_274_100L).put(456, 35_537L).build());
+        store(written, cache(), at(TODAY, 18)).destroy();
+
+        RateMatrixHolder restored = new RateMatrixHolder();
+        CurrencyCache cache = cache();
+        store(restored, cache, at(TODAY, 20)).load();
+
+        assertEquals(TODAY, restored.get().getDate());
+        assertEquals(3_274_100L, restored.get().perUnitRate(431));
+        assertEquals(35_537L, restored.get().perUnitRate(456));
+        assertEquals("RUB", cache.currencies().get(456).orElseThrow().abbreviation());
+        assertEquals(100, cache.currencies().get(456).orElseThrow().scale());
+    }
+
+    @Test
+    void ignoresCorruptSnapshot() throws IOException {
+        RateMatrixHolder written = new RateMatrixHolder();
+        written.publish(RateMatrix.builder(TODAY).put(431, 3_274_100L).build());
+        store(written, cache(), at(TODAY, 18)).write();
+        byte[] data = Files.readAllBytes(file);
+        data[data.length / 2] ^= 0x01;
+        Files.write(file, data);
+
+        assertThrows(InvalidSnapshotException.class, () -> RateSnapshot.decode(data));
+        RateMatrixHolder restored = new RateMatrixHolder();
+        CurrencyCache cache = cache();
+        store(restored, cache, at(TODAY, 20)).load();
+
+        assertEquals(LocalDate.MIN, restored.get().getDate());
+        assertEquals(0, cache.currencies().size());
+    }
+
+    @Test
+    void keepsDirectoryButNotRatesFromPreviousDay() {
+        RateMatrixHolder written = new RateMatrixHolder();
+        written.publish(RateMatrix.builder(TODAY).put(431, 3_274_100L).build());
+        store(written, cache(), at(TODAY, 22)).write();
+
+        RateMatrixHolder restored = new RateMatrixHolder();
+        CurrencyCache cache = cache();
+        store(restored, cache, at(TODAY.plusDays(1), 1)).load();
+
+        assertFalse(restored.get().contains(431));
+        assertTrue(cache.currencies().get(431).isPresent());
+    }
+
+    @Test
+    void resumesInvalidationPollingFromTheSnapshotPosition() {
+        InvalidationPoller.Position position = new InvalidationPoller.Position(20, at(TODAY, 18).instant());
+        InvalidationPoller before = mock(InvalidationPoller.class);
+        when(before.position()).thenReturn(Optional.of(position));
+        RateMatrixHolder written = new RateMatrixHolder();
+        written.publish(RateMatrix.builder(TODAY).put(431, 3_274_100L).build());
+        store(written, cache(), at(TODAY, 18), before)
+                .destroy();
+
+        InvalidationPoller after = mock(InvalidationPoller.class);
+        RateMatrixHolder restored = new RateMatrixHolder();
+        store(restored, cache(), at(TODAY, 20), after)
+                .load();
+
+        verify(after).resumeFrom(position);
+        assertTrue(restored.get().contains(431));
+    }
+
+    @Test
+    void ignoresSnapshotWithoutPositionWhenInvalidationsAreShared() {
+        RateMatrixHolder written = new RateMatrixHolder();
+        written.publish(RateMatrix.builder(TODAY).put(431, 3_274_100L).build());
+        store(written, cache(), at(TODAY, 18)).write();
+
+        RateMatrixHolder restored = new RateMatrixHolder();
+        CurrencyCache cache = cache();
+        InvalidationPoller poller = mock(InvalidationPoller.class);
+        store(restored, cache, at(TODAY, 20), poller).load();
+
+        assertEquals(LocalDate.MIN, restored.get().getDate());
+        verify(poller, never()).resumeFrom(any());
+    }
+
+    private RateSnapshotStore store(RateMatrixHolder holder, CurrencyCache cache, Clock clock) {
+        return store(holder, cache, clock, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    private RateSnapshotStore store(RateMatrixHolder holder, CurrencyCache cache, Clock clock, InvalidationPoller poller) {
+        ObjectProvider<InvalidationPoller> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(poller);
+        return new RateSnapshotStore(file, Duration.ofDays(1), holder, cache, currencyInfoRepository,
+                new RatePublicationSchedule(ZONE, LocalTime.MIDNIGHT, clock), provider);
+    }
+
+    private static CurrencyCache cache() {
+        return new CurrencyCache(100, Duration.ofHours(1), 100, Duration.ofHours(1), 1000);
+    }
+
+    private static Clock at(LocalDate date, int hour) {
+        Instant instant = date.atTime(hour, 0).atZone(ZONE).toInstant();
+        return Clock.fixed(instant, ZONE);
+    }
+
+    private static CurrencyView currency(int id, String abbreviation, int scale) {
+        return new CurrencyView(id, null, abbreviation, abbreviation + " name", scale);
+    }
+}
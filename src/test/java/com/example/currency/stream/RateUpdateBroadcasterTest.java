@@ -0,0 +1,182 @@
+package com.example.currency.stream;
+
+import com.example.currency.dto.RateUpdate;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateUpdateBroadcasterTest {
+    private static final LocalDate DATE = LocalDate.of(2024, 3, 1);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private RateUpdateBroadcaster broadcaster;
+
+    @AfterEach
+    void tearDown() {
+        broadcaster.destroy();
+    }
+
+    @Test
+    void deliversOnlySubscribedCurrencies() throws InterruptedException {
+        broadcaster = new RateUpdateBroadcaster(meterRegistry, 16, Duration.ofMinutes(1), Duration.ofSeconds(10), 1, 4);
+        RecordingEmitter usd = new RecordingEmitter(null);
+        RecordingEmitter all = new RecordingEmitter(null);
+        broadcaster.subscribe(usd, Set.of(431));
+        broadcaster.subscribe(all, Set.of());
+
+        broadcaster.publishAll(List.of(update(431, "3.2741"), update(456, "3.5537")));
+
+        assertTrue(all.await(2));
+        assertTrue(usd.await(1));
+        assertEquals(List.of(431), usd.currencyIds());
+        assertEquals(List.of(431, 456), all.currencyIds());
+    }
+
+    @Test
+    void dropsOldestUpdatesForSlowSubscriber() throws InterruptedException {
+        broadcaster = new RateUpdateBroadcaster(meterRegistry, 3, Duration.ofMinutes(1), Duration.ofSeconds(10), 1, 4);
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter slow = new RecordingEmitter(release);
+        broadcaster.subscribe(slow, Set.of());
+
+        broadcaster.publish(update(1, "1"));
+        assertTrue(slow.sending.await(5, TimeUnit.SECONDS));
+        for (int id = 2; id <= 10; id++) {
+            broadcaster.publish(update(id, "1"));
+        }
+        release.countDown();
+
+        assertTrue(slow.await(4));
+        assertEquals(List.of(1, 8, 9, 10), slow.currencyIds());
+        assertEquals(6.0, meterRegistry.get("currency.stream.dropped").counter().count());
+    }
+
+    @Test
+    void removesSubscriberWhenSendFails() throws InterruptedException {
+        broadcaster = new RateUpdateBroadcaster(meterRegistry, 16, Duration.ofMinutes(1), Duration.ofSeconds(10), 1, 4);
+        SseEmitter broken = new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+        broadcaster.subscribe(broken, Set.of());
+
+        broadcaster.publish(update(431, "3.2741"));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (broadcaster.subscriberCount() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, broadcaster.subscriberCount());
+    }
+
+    @Test
+    void evictsSubscriberStuckInASendAndKeepsServingOthers() throws InterruptedException {
+        broadcaster = new RateUpdateBroadcaster(meterRegistry, 16, Duration.ofMinutes(1), Duration.ofMillis(50), 1, 4);
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter stuck = new RecordingEmitter(release);
+        broadcaster.subscribe(stuck, Set.of(1));
+        broadcaster.publish(update(1, "1"));
+        assertTrue(stuck.sending.await(5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+
+        broadcaster.evictStalled();
+        RecordingEmitter healthy = new RecordingEmitter(null);
+        broadcaster.subscribe(healthy, Set.of(2));
+        broadcaster.publish(update(2, "1"));
+
+        assertTrue(healthy.await(1));
+        assertEquals(1, broadcaster.subscriberCount());
+        assertEquals(1.0, meterRegistry.get("currency.stream.evicted").counter().count());
+        release.countDown();
+    }
+
+    @Test
+    void addsNoMoreThanTheMaximumReplacementThreads() throws InterruptedException {
+        broadcaster = new RateUpdateBroadcaster(meterRegistry, 16, Duration.ofMinutes(1), Duration.ofMillis(50), 1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter first = new RecordingEmitter(release);
+        RecordingEmitter second = new RecordingEmitter(release);
+        broadcaster.subscribe(first, Set.of(1));
+        broadcaster.publish(update(1, "1"));
+        assertTrue(first.sending.await(5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        broadcaster.evictStalled();
+        broadcaster.subscribe(second, Set.of(2));
+        broadcaster.publish(update(2, "1"));
+        assertTrue(second.sending.await(5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        broadcaster.evictStalled();
+
+        RecordingEmitter healthy = new RecordingEmitter(null);
+        broadcaster.subscribe(healthy, Set.of(3));
+        broadcaster.publish(update(3, "1"));
+        Thread.sleep(200);
+
+        assertTrue(healthy.currencyIds().isEmpty());
+        assertEquals(2.0, meterRegistry.get("currency.stream.evicted").counter().count());
+        release.countDown();
+        assertTrue(healthy.await(1));
+    }
+
+    private static RateUpdate update(int currencyId, String rate) {
+        return new RateUpdate(RateUpdate.Type.UPDATED, 1L, currencyId, DATE, new BigDecimal(rate), 1);
+    }
+
+    private static final class RecordingEmitter extends SseEmitter {
+        private final List<RateUpdate> received = new CopyOnWriteArrayList<>();
+        private final CountDownLatch release;
+        private final CountDownLatch sending = new CountDownLatch(1);
+
+        RecordingEmitter(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            sending.countDown();
+            if (release != null) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            builder.build().stream()
+                    .map(data -> data.getData())
+                    .filter(RateUpdate.class::isInstance)
+                    .map(RateUpdate.class::cast)
+                    .forEach(received::add);
+            // the payload must be serializable as sent to real clients
+            Jackson2ObjectMapperBuilder.json().build().writeValueAsString(received.get(received.size() - 1));
+        }
+
+        boolean await(int count) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (received.size() < count && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            return received.size() >= count;
+        }
+
+        List<Integer> currencyIds() {
+            return received.stream().map(RateUpdate::currencyId).toList();
+        }
+    }
+}